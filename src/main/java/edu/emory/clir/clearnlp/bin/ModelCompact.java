@@ -0,0 +1,114 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.bin;
+
+import java.util.List;
+
+import org.kohsuke.args4j.Option;
+import org.kohsuke.args4j.spi.StringArrayOptionHandler;
+
+import edu.emory.clir.clearnlp.classification.model.StringModel;
+import edu.emory.clir.clearnlp.classification.vector.QuantizedWeightVector.Precision;
+import edu.emory.clir.clearnlp.component.trainer.AbstractNLPTrainer;
+import edu.emory.clir.clearnlp.component.utils.GlobalLexica;
+import edu.emory.clir.clearnlp.component.utils.NLPMode;
+import edu.emory.clir.clearnlp.util.BinUtils;
+import edu.emory.clir.clearnlp.util.FileUtils;
+import edu.emory.clir.clearnlp.util.IOUtils;
+
+/**
+ * Removes the features whose weights are (near) zero across all labels from a model of a statistical component,
+ * renumbers the remaining features, and evaluates the model on a development set before and after if specified.
+ * The compacted model can also be quantized (see {@link ModelConvert}).
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ModelCompact extends ModelConvert
+{
+	@Option(name="-threshold", usage="features whose weight norms are less than or equal to this are removed (default: 0)", required=false, metaVar="<double>")
+	private double d_threshold = 0;
+	@Option(name="-c", usage="confinguration file (required for evaluation)", required=false, metaVar="<filename>")
+	private String s_configurationFile;
+	@Option(name="-f", usage="feature template files (required for evaluation)", required=false, metaVar="<filename>", handler=StringArrayOptionHandler.class)
+	private String[] s_featureFiles;
+	@Option(name="-d", usage="development path (optional)", required=false, metaVar="<filepath>")
+	private String s_developPath = null;
+	@Option(name="-de", usage="development file extension (default: *)", required=false, metaVar="<string>")
+	private String s_developExt = "*";
+	@Option(name="-mode", usage="pos|dep|ner|srl (required for evaluation)", required=false, metaVar="<mode>")
+	private String s_mode;
+	
+	public ModelCompact() {}
+	
+	public ModelCompact(String[] args) throws Exception
+	{
+		BinUtils.initArgs(args, this);
+		AbstractNLPTrainer trainer = null;
+		List<String> developFiles = null;
+		Precision precision = getPrecision();
+		
+		read(s_inputFile);
+		
+		for (StringModel model : s_models)
+			if (model.isFeatureHashing()) throw new IllegalArgumentException("Models with feature hashing cannot be compacted.");
+		
+		if (s_developPath != null)
+		{
+			if (s_configurationFile == null || s_featureFiles == null || s_mode == null)
+				throw new IllegalArgumentException("The configuration file, feature files, and mode are required for evaluation.");
+			
+			GlobalLexica.init(IOUtils.createFileInputStream(s_configurationFile));
+			trainer = new NLPTrain().getTrainer(NLPMode.valueOf(s_mode), IOUtils.createFileInputStream(s_configurationFile), IOUtils.createFileInputStreams(s_featureFiles));
+			developFiles = FileUtils.getFileList(s_developPath, s_developExt, false);
+			BinUtils.LOG.info("Before: ");
+			trainer.evaluate(o_lexicons, s_models, developFiles);
+		}
+		
+		compact(s_models, d_threshold);
+		if (precision != null) quantize(s_models, precision);
+		
+		if (trainer != null)
+		{
+			BinUtils.LOG.info("After : ");
+			trainer.evaluate(o_lexicons, s_models, developFiles);
+		}
+		
+		write(s_outputFile, s_format.equals("binary"));
+	}
+	
+	/** Compacts each model and reports the number of features and the size of the weights before and after. */
+	public void compact(StringModel[] models, double threshold)
+	{
+		int i, featureSize, weightSize;
+		
+		for (i=0; i<models.length; i++)
+		{
+			featureSize = models[i].getFeatureSize();
+			weightSize  = models[i].getWeightVector().size();
+			models[i].compact(threshold);
+			BinUtils.LOG.info(String.format("Model %d: %,d -> %,d features, %,d -> %,d weights\n", i, featureSize, models[i].getFeatureSize(), weightSize, models[i].getWeightVector().size()));
+		}
+	}
+	
+	static public void main(String[] args)
+	{
+		try
+		{
+			new ModelCompact(args);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+}
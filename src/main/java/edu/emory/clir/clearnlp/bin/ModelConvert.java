@@ -0,0 +1,245 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.bin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.kohsuke.args4j.Option;
+import org.tukaani.xz.LZMA2Options;
+import org.tukaani.xz.XZInputStream;
+import org.tukaani.xz.XZOutputStream;
+
+import edu.emory.clir.clearnlp.classification.map.FeatureMap;
+import edu.emory.clir.clearnlp.classification.map.HashedFeatureMap;
+import edu.emory.clir.clearnlp.classification.map.PerfectHashFeatureMap;
+import edu.emory.clir.clearnlp.classification.model.ModelFile;
+import edu.emory.clir.clearnlp.classification.model.ModelInputStream;
+import edu.emory.clir.clearnlp.classification.model.StringModel;
+import edu.emory.clir.clearnlp.classification.vector.AbstractWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.QuantizedWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.QuantizedWeightVector.Precision;
+import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
+import edu.emory.clir.clearnlp.util.DSUtils;
+import edu.emory.clir.clearnlp.util.BinUtils;
+
+/**
+ * Converts a model of a statistical component between the XZ-compressed serialization and the binary format of {@link ModelFile}.
+ * The weights can also be quantized for decoding (see {@link QuantizedWeightVector}), in which case
+ * the sizes, the score agreement, and the scoring speed of the original and the quantized models are reported.
+ * With {@code -index mphf}, feature maps are frozen into {@link PerfectHashFeatureMap}s, which cannot be converted back.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ModelConvert
+{
+	@Option(name="-i", usage="input model file (required)", required=true, metaVar="<filename>")
+	protected String s_inputFile;
+	@Option(name="-o", usage="output model file (required)", required=true, metaVar="<filename>")
+	protected String s_outputFile;
+	@Option(name="-format", usage="binary|xz (default: binary)", required=false, metaVar="<string>")
+	protected String s_format = "binary";
+	@Option(name="-quantize", usage="int8|fp16 (default: none)", required=false, metaVar="<string>")
+	protected String s_quantize = null;
+	@Option(name="-index", usage="feature index: table|mphf (default: table)", required=false, metaVar="<string>")
+	protected String s_index = "table";
+	
+	protected Object        o_extractors;
+	protected Object        o_lexicons;
+	protected StringModel[] s_models;
+	
+	public ModelConvert() {}
+	
+	public ModelConvert(String[] args) throws Exception
+	{
+		BinUtils.initArgs(args, this);
+		convert(s_inputFile, s_outputFile, s_format.equals("binary"), getPrecision());
+	}
+	
+	/** @return the precision given by {@code -quantize} if exists; otherwise, {@code null}. */
+	protected Precision getPrecision()
+	{
+		return (s_quantize != null) ? Precision.valueOf(s_quantize.toUpperCase()) : null;
+	}
+	
+	public void convert(String inputFile, String outputFile, boolean binary) throws Exception
+	{
+		convert(inputFile, outputFile, binary, null);
+	}
+	
+	/**
+	 * Reads the feature extractors, lexicons, and models saved by a statistical component in either format,
+	 * and writes them in the binary format if {@code binary}; otherwise, in the XZ-compressed serialization.
+	 * @param precision if not {@code null}, the weights are quantized to this precision.
+	 */
+	public void convert(String inputFile, String outputFile, boolean binary, Precision precision) throws Exception
+	{
+		read(inputFile);
+		if (precision != null) quantize(s_models, precision);
+		if (s_index.equals("mphf")) freeze(s_models);
+		write(outputFile, binary);
+		BinUtils.LOG.info(String.format("%s -> %s: %d models\n", inputFile, outputFile, s_models.length));
+	}
+	
+	/** Reads the feature extractors, lexicons, and models saved by a statistical component in either format. */
+	public void read(String inputFile) throws Exception
+	{
+		InputStream in = new BufferedInputStream(new FileInputStream(inputFile));
+		ObjectInputStream oin = ModelFile.isModelFile(in) ? new ModelInputStream(ModelFile.map(new File(inputFile))) : new ObjectInputStream(new XZInputStream(in));
+		o_extractors = oin.readObject();
+		o_lexicons   = oin.readObject();
+		
+		if (oin instanceof ModelInputStream)
+			s_models = ((ModelInputStream)oin).getModels();
+		else
+		{
+			s_models = new StringModel[oin.readInt()];
+			for (int i=0; i<s_models.length; i++) s_models[i] = new StringModel(oin);
+		}
+		
+		oin.close();
+		in.close();
+	}
+	
+	/** Writes the feature extractors, lexicons, and models in the binary format if {@code binary}; otherwise, in the XZ-compressed serialization. */
+	public void write(String outputFile, boolean binary) throws Exception
+	{
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile));
+		ObjectOutputStream oout;
+		
+		if (binary)
+		{
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			oout = new ObjectOutputStream(bos);
+			oout.writeObject(o_extractors);
+			oout.writeObject(o_lexicons);
+			oout.close();
+			ModelFile.write(out, bos.toByteArray(), s_models);
+			out.close();
+		}
+		else
+		{
+			oout = new ObjectOutputStream(new XZOutputStream(out, new LZMA2Options()));
+			oout.writeObject(o_extractors);
+			oout.writeObject(o_lexicons);
+			oout.writeInt(s_models.length);
+			for (StringModel model : s_models) model.save(oout);
+			oout.close();
+		}
+	}
+	
+	/** Replaces the feature map of each model with its minimal perfect hash map unless the map keeps no feature. */
+	public void freeze(StringModel[] models)
+	{
+		FeatureMap map;
+		
+		for (StringModel model : models)
+		{
+			map = model.getFeatureMap();
+			
+			if (!(map instanceof PerfectHashFeatureMap || map instanceof HashedFeatureMap))
+				model.setFeatureMap(new PerfectHashFeatureMap(map));
+		}
+	}
+	
+//	====================================== QUANTIZATION ======================================
+	
+	/** Replaces the weight vector of each model with its quantized vector and reports the difference. */
+	public void quantize(StringModel[] models, Precision precision)
+	{
+		AbstractWeightVector vector;
+		QuantizedWeightVector quantized;
+		
+		for (int i=0; i<models.length; i++)
+		{
+			vector = models[i].getWeightVector();
+			if (vector instanceof QuantizedWeightVector) continue;
+			quantized = new QuantizedWeightVector(vector, precision);
+			BinUtils.LOG.info(String.format("Model %d: %s\n", i, getReport(vector, quantized)));
+			models[i].setWeightVector(quantized);
+		}
+	}
+	
+	/**
+	 * Compares the specific vectors on random feature vectors drawn from the feature space;
+	 * for the accuracy on real data, decode a development set with both models.
+	 * @return the sizes, the maximum weight error, the rate of the same best labels, and the time per scoring of both vectors.
+	 */
+	public String getReport(AbstractWeightVector vector, QuantizedWeightVector quantized)
+	{
+		final int N = 10000, F = 64;
+		SparseFeatureVector[] xs = new SparseFeatureVector[N];
+		Random rand = new Random(5);
+		int i, j, same = 0;
+		double max = 0;
+		
+		for (i=0; i<vector.size(); i++)
+			max = Math.max(max, Math.abs(vector.get(i) - quantized.get(i)));
+		
+		for (i=0; i<N; i++)
+		{
+			xs[i] = new SparseFeatureVector();
+			
+			for (j=0; j<F && vector.getFeatureSize() > 1; j++)
+				xs[i].addFeature(1 + rand.nextInt(vector.getFeatureSize() - 1));
+		}
+		
+		for (i=0; i<N; i++)
+		{
+			if (DSUtils.maxIndex(vector.getScores(xs[i])) == DSUtils.maxIndex(quantized.getScores(xs[i])))
+				same++;
+		}
+		
+		return String.format("%,d -> %,d bytes, max error = %.6f, same best = %5.2f%%, %d -> %d ns/scoring",
+				4L * vector.size(), quantized.getByteSize(), max, 100d * same / N, getScoringTime(vector, xs), getScoringTime(quantized, xs));
+	}
+	
+	/** @return the median time per scoring in nanoseconds over several rounds. */
+	private long getScoringTime(AbstractWeightVector vector, SparseFeatureVector[] xs)
+	{
+		long[] times = new long[5];
+		long st;
+		
+		for (int k=0; k<times.length; k++)
+		{
+			st = System.nanoTime();
+			for (SparseFeatureVector x : xs) vector.getScores(x);
+			times[k] = (System.nanoTime() - st) / xs.length;
+		}
+		
+		Arrays.sort(times);
+		return times[times.length/2];
+	}
+	
+	static public void main(String[] args)
+	{
+		try
+		{
+			new ModelConvert(args);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+}
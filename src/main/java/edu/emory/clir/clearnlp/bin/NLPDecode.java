@@ -15,23 +15,28 @@
  */
 package edu.emory.clir.clearnlp.bin;
 
-import java.io.PrintStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import org.kohsuke.args4j.Option;
 
 import edu.emory.clir.clearnlp.component.AbstractComponent;
 import edu.emory.clir.clearnlp.component.configuration.DecodeConfiguration;
+import edu.emory.clir.clearnlp.component.metrics.ComponentMetrics;
 import edu.emory.clir.clearnlp.component.mode.dep.DEPConfiguration;
 import edu.emory.clir.clearnlp.component.mode.srl.SRLConfiguration;
-import edu.emory.clir.clearnlp.component.utils.GlobalLexica;
+import edu.emory.clir.clearnlp.component.pipeline.NLPPipeline;
+import edu.emory.clir.clearnlp.component.pipeline.SentenceScheduler;
+import edu.emory.clir.clearnlp.component.utils.ComponentLoader;
 import edu.emory.clir.clearnlp.component.utils.NLPMode;
 import edu.emory.clir.clearnlp.component.utils.NLPUtils;
-import edu.emory.clir.clearnlp.dependency.DEPNode;
 import edu.emory.clir.clearnlp.dependency.DEPTree;
 import edu.emory.clir.clearnlp.reader.AbstractReader;
 import edu.emory.clir.clearnlp.reader.LineReader;
@@ -42,8 +47,14 @@ import edu.emory.clir.clearnlp.tokenization.AbstractTokenizer;
 import edu.emory.clir.clearnlp.util.BinUtils;
 import edu.emory.clir.clearnlp.util.FileUtils;
 import edu.emory.clir.clearnlp.util.IOUtils;
+import edu.emory.clir.clearnlp.util.constant.PatternConst;
 import edu.emory.clir.clearnlp.util.constant.StringConst;
 import edu.emory.clir.clearnlp.util.lang.TLanguage;
+import edu.emory.clir.clearnlp.writer.AbstractWriter;
+import edu.emory.clir.clearnlp.writer.BinaryWriter;
+import edu.emory.clir.clearnlp.writer.JSONWriter;
+import edu.emory.clir.clearnlp.writer.TSVWriter;
+import edu.emory.clir.clearnlp.writer.TWriter;
 
 /**
  * @since 3.0.0
@@ -63,8 +74,27 @@ public class NLPDecode
 	protected String s_mode;
 	@Option(name="-threads", usage="number of threads (default: 1)", required=false, metaVar="<integer>")
 	protected int n_threads = 1;
+	@Option(name="-sentence", usage="if set, decode sentences within each file in parallel", required=false, metaVar="<boolean>")
+	protected boolean b_sentence = false;
+	@Option(name="-detail", usage="if set, measure the transitions, classifications, and time spent in feature extraction and scoring of each component", required=false, metaVar="<boolean>")
+	protected boolean b_detail = false;
+	@Option(name="-pipeline", usage="if set, run components as pipeline stages with the given numbers of workers in the processing order (e.g., 1,1,4,4)", required=false, metaVar="<string>")
+	protected String s_pipeline = null;
+	@Option(name="-batch", usage="number of sentences decoded together by each component (default: 1)", required=false, metaVar="<integer>")
+	protected int n_batch = 1;
+	@Option(name="-format", usage="output format: tsv|json|binary (default: tsv)", required=false, metaVar="<string>")
+	protected String s_format = "tsv";
+	@Option(name="-loaders", usage="number of threads loading components and lexica at startup (default: number of processors)", required=false, metaVar="<integer>")
+	protected int n_loaders = Runtime.getRuntime().availableProcessors();
 	
-//	private long time = 0, tokens = 0, trees = 0;
+	/** The number of sentences per thread sorted together by length during sentence-level decoding (see {@link SentenceScheduler}). */
+	private final int SENTENCE_QUEUE_SIZE = 100;
+	/** The capacity of the queue in front of each pipeline stage. */
+	private final int PIPELINE_QUEUE_SIZE = 256;
+	
+	/** Reading and tokenizing raw or line inputs; reading tsv inputs is not included. */
+	private final ComponentMetrics m_tokenizer = new ComponentMetrics("Tokenizer");
+	private List<ComponentMetrics> l_metrics = new ArrayList<>();
 	
 	public NLPDecode() {}
 	
@@ -73,30 +103,22 @@ public class NLPDecode
 		BinUtils.initArgs(args, this);
 		NLPMode mode = NLPMode.valueOf(s_mode);
 		List<String> inputFiles = FileUtils.getFileList(s_inputPath, s_inputExt, false);
-		if (n_threads > 2)	decode(inputFiles, s_outputExt, s_configurationFile, n_threads, mode);
-		else				decode(inputFiles, s_outputExt, s_configurationFile, mode);
-//		System.out.printf("Tokens / Sec.: %d\n", Math.round(MathUtils.divide(tokens*1000, time)));
-//		System.out.printf("Sents. / Sec.: %d\n", Math.round(MathUtils.divide(trees *1000, time)));
+		if (s_pipeline != null)					decodePipeline(inputFiles, s_outputExt, s_configurationFile, toWorkers(s_pipeline), mode);
+		else if (b_sentence && n_threads > 1)	decodeSentences(inputFiles, s_outputExt, s_configurationFile, n_threads, mode);
+		else if (n_threads > 2)					decode(inputFiles, s_outputExt, s_configurationFile, n_threads, mode);
+		else if (n_batch > 1)					decodeBatch(inputFiles, s_outputExt, s_configurationFile, n_batch, mode);
+		else									decode(inputFiles, s_outputExt, s_configurationFile, mode);
+		BinUtils.LOG.info("\n"+getMetricsSummary());
 	}
 	
 	public void decode(List<String> inputFiles, String outputExt, String configurationFile, NLPMode mode)
 	{
 		DecodeConfiguration config = new DecodeConfiguration(IOUtils.createFileInputStream(configurationFile));;
-		GlobalLexica.init(IOUtils.createFileInputStream(configurationFile));
 		AbstractReader<?> reader = config.getReader();
-		AbstractTokenizer tokenizer = null;
-		AbstractComponent[] components;
-		PrintStream fout;
+		AbstractTokenizer tokenizer = reader.isReaderType(TReader.TSV) ? null : NLPUtils.getTokenizer(config.getLanguage());
+		AbstractComponent[] components = getComponents(configurationFile, config, mode);
+		AbstractWriter fout;
 		
-		if (reader.isReaderType(TReader.TSV))
-		{
-			components = getComponents((TSVReader)reader, config.getLanguage(), mode, config);
-		}
-		else
-		{
-			tokenizer  = NLPUtils.getTokenizer(config.getLanguage());
-			components = getComponents(config.getLanguage(), mode, config);
-		}
 		
 		BinUtils.LOG.info("Decoding:\n");
 		
@@ -104,13 +126,13 @@ public class NLPDecode
 		{
 			BinUtils.LOG.info(FileUtils.getBaseName(inputFile)+"\n");
 			reader.open(IOUtils.createFileInputStream(inputFile));
-			fout = IOUtils.createBufferedPrintStream(inputFile + StringConst.PERIOD + outputExt);
+			fout = createWriter(inputFile + StringConst.PERIOD + outputExt, mode);
 			
 			switch (reader.getReaderType())
 			{
-			case TSV : process((TSVReader) reader, fout, mode, components);				break;
-			case RAW : process((RawReader) reader, fout, mode, components, tokenizer);	break;
-			case LINE: process((LineReader)reader, fout, mode, components, tokenizer);	break;
+			case TSV : process((TSVReader) reader, fout, components);				break;
+			case RAW : process((RawReader) reader, fout, components, tokenizer);	break;
+			case LINE: process((LineReader)reader, fout, components, tokenizer);	break;
 			}
 			
 			reader.close();
@@ -121,52 +143,166 @@ public class NLPDecode
 	public void decode(List<String> inputFiles, String outputExt, String configurationFile, int nThreads, NLPMode mode)
 	{
 		DecodeConfiguration config = new DecodeConfiguration(IOUtils.createFileInputStream(s_configurationFile));;
-		GlobalLexica.init(IOUtils.createFileInputStream(configurationFile));
 		ExecutorService executor = Executors.newFixedThreadPool(nThreads);
 		AbstractReader<?> reader = config.getReader();
-		AbstractTokenizer tokenizer = null;
-		AbstractComponent[] components;
+		AbstractTokenizer tokenizer = reader.isReaderType(TReader.TSV) ? null : NLPUtils.getTokenizer(config.getLanguage());
+		AbstractComponent[] components = getComponents(configurationFile, config, mode);
 		String outputFile;
 		
-		if (reader.isReaderType(TReader.TSV))
+		
+		BinUtils.LOG.info("Decoding:\n");
+		
+		for (String inputFile : inputFiles)
 		{
-			components = getComponents((TSVReader)reader, config.getLanguage(), mode, config);
+			outputFile = inputFile + StringConst.PERIOD + outputExt;
+			executor.submit(new NLPTask(tokenizer, components, reader, mode, inputFile, outputFile));
 		}
-		else
+		
+		executor.shutdown();
+		
+		try
 		{
-			tokenizer  = NLPUtils.getTokenizer(config.getLanguage());
-			components = getComponents(config.getLanguage(), mode, config);
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
 		}
+		catch (InterruptedException e) {e.printStackTrace();}
+	}
+	
+	/**
+	 * Decodes the input files one at a time; sentences within each file are decoded by {@code nThreads} threads
+	 * in buckets of similar lengths, longest first, and written to the output file in their original order.
+	 */
+	public void decodeSentences(List<String> inputFiles, String outputExt, String configurationFile, int nThreads, NLPMode mode)
+	{
+		DecodeConfiguration config = new DecodeConfiguration(IOUtils.createFileInputStream(configurationFile));
+		ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+		AbstractReader<?> reader = config.getReader();
+		SentenceScheduler scheduler = new SentenceScheduler(executor, nThreads, nThreads * SENTENCE_QUEUE_SIZE);
+		AbstractTokenizer tokenizer = reader.isReaderType(TReader.TSV) ? null : NLPUtils.getTokenizer(config.getLanguage());
+		AbstractComponent[] components = getComponents(configurationFile, config, mode);
+		AbstractWriter fout;
+		
 		
 		BinUtils.LOG.info("Decoding:\n");
 		
 		for (String inputFile : inputFiles)
 		{
-			outputFile = inputFile + StringConst.PERIOD + outputExt;
-			executor.submit(new NLPTask(tokenizer, components, reader, mode, inputFile, outputFile));
+			BinUtils.LOG.info(FileUtils.getBaseName(inputFile)+"\n");
+			reader.open(IOUtils.createFileInputStream(inputFile));
+			fout = createWriter(inputFile + StringConst.PERIOD + outputExt, mode);
+			
+			switch (reader.getReaderType())
+			{
+			case TSV : process(getTrees((TSVReader) reader), fout, components, scheduler);				break;
+			case RAW : process(getTrees((RawReader) reader, tokenizer), fout, components, scheduler);	break;
+			case LINE: process(getTrees((LineReader)reader, tokenizer), fout, components, scheduler);	break;
+			}
+			
+			reader.close();
+			fout.close();
 		}
 		
 		executor.shutdown();
 	}
 	
+	/**
+	 * Decodes the input files one at a time; components run as stages of {@link NLPPipeline}
+	 * where the i'th component is run by {@code workers[i]} threads.
+	 */
+	public void decodePipeline(List<String> inputFiles, String outputExt, String configurationFile, int[] workers, NLPMode mode)
+	{
+		DecodeConfiguration config = new DecodeConfiguration(IOUtils.createFileInputStream(configurationFile));
+		AbstractReader<?> reader = config.getReader();
+		AbstractTokenizer tokenizer = reader.isReaderType(TReader.TSV) ? null : NLPUtils.getTokenizer(config.getLanguage());
+		AbstractComponent[] components = getComponents(configurationFile, config, mode);
+		Supplier<DEPTree> trees = null;
+		NLPPipeline pipeline;
+		AbstractWriter fout;
+		
+		
+		pipeline = new NLPPipeline(components, workers, PIPELINE_QUEUE_SIZE);
+		BinUtils.LOG.info("Decoding:\n");
+		
+		for (String inputFile : inputFiles)
+		{
+			BinUtils.LOG.info(FileUtils.getBaseName(inputFile)+"\n");
+			reader.open(IOUtils.createFileInputStream(inputFile));
+			fout = createWriter(inputFile + StringConst.PERIOD + outputExt, mode);
+			
+			switch (reader.getReaderType())
+			{
+			case TSV : trees = getTrees((TSVReader) reader);				break;
+			case RAW : trees = getTrees((RawReader) reader, tokenizer);	break;
+			case LINE: trees = getTrees((LineReader)reader, tokenizer);	break;
+			}
+			
+			pipeline.run(trees, fout::write);
+			reader.close();
+			fout.close();
+		}
+		
+		BinUtils.LOG.info("\n"+pipeline.getSummary());
+	}
+	
+	/** Decodes the input files one at a time; each component processes {@code batchSize} sentences together. */
+	public void decodeBatch(List<String> inputFiles, String outputExt, String configurationFile, int batchSize, NLPMode mode)
+	{
+		DecodeConfiguration config = new DecodeConfiguration(IOUtils.createFileInputStream(configurationFile));
+		AbstractComponent[] components = getComponents(configurationFile, config, mode);
+		AbstractReader<?> reader = config.getReader();
+		AbstractTokenizer tokenizer = reader.isReaderType(TReader.TSV) ? null : NLPUtils.getTokenizer(config.getLanguage());
+		Supplier<DEPTree> trees = null;
+		AbstractWriter fout;
+		
+		BinUtils.LOG.info("Decoding:\n");
+		
+		for (String inputFile : inputFiles)
+		{
+			BinUtils.LOG.info(FileUtils.getBaseName(inputFile)+"\n");
+			reader.open(IOUtils.createFileInputStream(inputFile));
+			fout = createWriter(inputFile + StringConst.PERIOD + outputExt, mode);
+			
+			switch (reader.getReaderType())
+			{
+			case TSV : trees = getTrees((TSVReader) reader);				break;
+			case RAW : trees = getTrees((RawReader) reader, tokenizer);	break;
+			case LINE: trees = getTrees((LineReader)reader, tokenizer);	break;
+			}
+			
+			process(trees, fout, components, batchSize);
+			reader.close();
+			fout.close();
+		}
+	}
+	
+	/** @return the numbers of workers in the comma-separated string. */
+	private int[] toWorkers(String s)
+	{
+		String[] t = PatternConst.COMMA.split(s);
+		int i, size = t.length;
+		int[] workers = new int[size];
+		
+		for (i=0; i<size; i++)
+			workers[i] = Integer.parseInt(t[i].trim());
+		
+		return workers;
+	}
+	
 	class NLPTask implements Runnable
 	{
 		private AbstractComponent[] components;
 		private AbstractTokenizer tokenizer;
 		private AbstractReader<?> reader;
 		private String input_file;
-		private PrintStream fout;
-		private NLPMode mode;
+		private AbstractWriter fout;
 		
 		public NLPTask(AbstractTokenizer tokenizer, AbstractComponent[] components, AbstractReader<?> reader, NLPMode mode, String inputFile, String outputFile)
 		{
-			this.mode = mode;
 			this.tokenizer = tokenizer;
 			this.input_file = inputFile;
 			this.components = components;
 			this.reader = reader.clone();
 			this.reader.open(IOUtils.createFileInputStream(inputFile));
-			this.fout = IOUtils.createBufferedPrintStream(outputFile);
+			this.fout = createWriter(outputFile, mode);
 		}
 		
 		@Override
@@ -178,32 +314,32 @@ public class NLPDecode
 				
 				switch (reader.getReaderType())
 				{
-				case TSV : process((TSVReader) reader, fout, mode, components);				break;
-				case RAW : process((RawReader) reader, fout, mode, components, tokenizer);	break;
-				case LINE: process((LineReader)reader, fout, mode, components, tokenizer);	break;
+				case TSV : process((TSVReader) reader, fout, components);				break;
+				case RAW : process((RawReader) reader, fout, components, tokenizer);	break;
+				case LINE: process((LineReader)reader, fout, components, tokenizer);	break;
 				}
 				
 				reader.close();
 				fout.close();
 			}
-			catch (Exception e) {e.printStackTrace();}
+			catch (Exception e)
+			{
+				// e.g., UncheckedIOException from the writer; the other files are still decoded
+				BinUtils.LOG.error("Failed to decode "+input_file+"\n");
+				e.printStackTrace();
+			}
 		}
 	}
 	
-	public void process(RawReader reader, PrintStream fout, NLPMode mode, AbstractComponent[] components, AbstractTokenizer tokenizer)
+	public void process(RawReader reader, AbstractWriter fout, AbstractComponent[] components, AbstractTokenizer tokenizer)
 	{
-		List<List<String>> tokens = tokenizer.segmentize(reader.getInputStream());
-		int i, size = tokens.size();
-		DEPTree tree;
+		Iterator<List<String>> it = tokenizer.getSentenceIterator(reader.getInputStream());
 		
-		for (i=0; i<size; i++)
-		{
-			tree = new DEPTree(tokens.get(i));
-			process(tree, fout, mode, components);
-		}
+		while (it.hasNext())
+			process(new DEPTree(it.next()), fout, components);
 	}
 	
-	public void process(LineReader reader, PrintStream fout, NLPMode mode, AbstractComponent[] components, AbstractTokenizer tokenizer)
+	public void process(LineReader reader, AbstractWriter fout, AbstractComponent[] components, AbstractTokenizer tokenizer)
 	{
 		DEPTree tree;
 		String  line;
@@ -211,98 +347,228 @@ public class NLPDecode
 		while ((line = reader.next()) != null)
 		{
 			tree = new DEPTree(tokenizer.tokenize(line));
-			process(tree, fout, mode, components);
+			process(tree, fout, components);
 		}
 	}
 	
-	public void process(TSVReader reader, PrintStream fout, NLPMode mode, AbstractComponent[] components)
+	public void process(TSVReader reader, AbstractWriter fout, AbstractComponent[] components)
 	{
 		DEPTree tree;
 		
 		while ((tree = reader.next()) != null)
-			process(tree, fout, mode, components);
+			process(tree, fout, components);
 	}
 	
-	public void process(DEPTree tree, PrintStream fout, NLPMode mode, AbstractComponent[] components)
+	public void process(DEPTree tree, AbstractWriter fout, AbstractComponent[] components)
 	{
-//		long st, et;
+		process(tree, components);
+		fout.write(tree);
+	}
+	
+	/** Processes the tree by each component and adds its latency to the metrics of the component. */
+	public void process(DEPTree tree, AbstractComponent[] components)
+	{
+		int tokens = tree.size() - 1;
+		long st;
 		
 		for (AbstractComponent component : components)
 		{
-//			st = System.currentTimeMillis();
+			st = System.nanoTime();
 			component.process(tree);
-//			et = System.currentTimeMillis();
-//			time += et - st;
+			component.getMetrics().addSentence(tokens, System.nanoTime() - st);
 		}
-
-//		tokens += tree.size() - 1;
-//		trees++;
-		fout.println(toString(tree, mode)+StringConst.NEW_LINE);
 	}
 	
-	private AbstractComponent[] getComponents(TLanguage language, NLPMode mode, DecodeConfiguration config)
+//	====================================== BATCH ======================================
+	
+	/**
+	 * Passes every {@code batchSize} trees returned by {@code trees} to each component together and writes them in the input order.
+	 * @param trees returns {@code null} when there is no more tree to decode.
+	 */
+	public void process(Supplier<DEPTree> trees, AbstractWriter fout, AbstractComponent[] components, int batchSize)
 	{
-		List<AbstractComponent> list = new ArrayList<>();
+		List<DEPTree> batch = new ArrayList<>(batchSize);
+		DEPTree tree;
+		int tokens = 0;
+		long st;
 		
-		switch (mode)
+		do
 		{
-		case ner  : list.add(NLPUtils.getNERecognizer(language, config.getModelPath(NLPMode.ner)));
-		case srl  : list.add(NLPUtils.getSRLabeler(language, config.getModelPath(NLPMode.srl), new SRLConfiguration(IOUtils.createFileInputStream(s_configurationFile))));
-		case dep  : list.add(NLPUtils.getDEPParser(language, config.getModelPath(NLPMode.dep), new DEPConfiguration(IOUtils.createFileInputStream(s_configurationFile))));
-		case morph: list.add(NLPUtils.getMPAnalyzer(language));
-		case pos  : list.add(NLPUtils.getPOSTagger(language, config.getModelPath(NLPMode.pos)));
+			tree = trees.get();
+			
+			if (tree != null)
+			{
+				batch.add(tree);
+				tokens += tree.size() - 1;
+			}
+			
+			if (batch.size() == batchSize || (tree == null && !batch.isEmpty()))
+			{
+				for (AbstractComponent component : components)
+				{
+					st = System.nanoTime();
+					component.process(batch);
+					component.getMetrics().addBatch(batch.size(), tokens, System.nanoTime() - st);
+				}
+				
+				for (DEPTree t : batch)
+					fout.write(t);
+				
+				batch.clear();
+				tokens = 0;
+			}
 		}
-
+		while (tree != null);
+	}
+	
+//	====================================== SENTENCE-LEVEL PARALLELISM ======================================
+	
+	/**
+	 * Decodes the trees returned by {@code trees} in parallel using the scheduler and writes them in the input order.
+	 * @param trees returns {@code null} when there is no more tree to decode.
+	 */
+	public void process(Supplier<DEPTree> trees, AbstractWriter fout, AbstractComponent[] components, SentenceScheduler scheduler)
+	{
+		scheduler.run(trees, tree -> process(tree, components), fout::write);
+	}
+	
+	Supplier<DEPTree> getTrees(TSVReader reader)
+	{
+		return reader::next;
+	}
+	
+	Supplier<DEPTree> getTrees(LineReader reader, AbstractTokenizer tokenizer)
+	{
+		return () ->
+		{
+			long st = System.nanoTime();
+			String line = reader.next();
+			if (line == null) return null;
+			DEPTree tree = new DEPTree(tokenizer.tokenize(line));
+			m_tokenizer.addSentence(tree.size()-1, System.nanoTime() - st);
+			return tree;
+		};
+	}
+	
+	Supplier<DEPTree> getTrees(RawReader reader, AbstractTokenizer tokenizer)
+	{
+		Iterator<List<String>> it = tokenizer.getSentenceIterator(reader.getInputStream());
+		
+		return () ->
+		{
+			long st = System.nanoTime();
+			if (!it.hasNext()) return null;
+			DEPTree tree = new DEPTree(it.next());
+			m_tokenizer.addSentence(tree.size()-1, System.nanoTime() - st);
+			return tree;
+		};
+	}
+	
+	/**
+	 * Loads the global lexica and the components concurrently using {@link #n_loaders} threads.
+	 * Called by {@link NLPServer}.
+	 */
+	AbstractComponent[] getComponents(String configurationFile, DecodeConfiguration config, NLPMode mode)
+	{
+		ComponentLoader loader = new ComponentLoader(n_loaders);
+		long st = System.currentTimeMillis();
+		s_configurationFile = configurationFile;
+		
+		loader.loadGlobalLexica(IOUtils.createFileInputStream(configurationFile));
+		load(loader, config.getReader(), config.getLanguage(), mode, config);
+		List<AbstractComponent> list = loader.getComponents();
+		BinUtils.LOG.info(String.format("Loaded %d components in %d ms.\n", list.size(), System.currentTimeMillis() - st));
 		return toReverseArray(list);
 	}
 	
-	private AbstractComponent[] getComponents(TSVReader reader, TLanguage language, NLPMode mode, DecodeConfiguration config)
+	/** Adds the components required for the specific mode to the loader; components whose fields are already in tsv inputs are skipped. */
+	private void load(ComponentLoader loader, AbstractReader<?> reader, TLanguage language, NLPMode mode, DecodeConfiguration config)
 	{
-		List<AbstractComponent> list = new ArrayList<>();
+		TSVReader tsv = reader.isReaderType(TReader.TSV) ? (TSVReader)reader : null;
 		
 		switch (mode)
 		{
 		case ner:
-			if (!reader.hasNamedEntityTags())
-				list.add(NLPUtils.getNERecognizer(language, config.getModelPath(NLPMode.ner)));
+			if (tsv == null || !tsv.hasNamedEntityTags())
+				loader.load(NLPMode.ner, () -> NLPUtils.getNERecognizer(language, config.getModelPath(NLPMode.ner)));
 		case srl:
-			if (!reader.hasSemanticHeads())
-				list.add(NLPUtils.getSRLabeler(language, config.getModelPath(NLPMode.srl), new SRLConfiguration(IOUtils.createFileInputStream(s_configurationFile))));
+			if (tsv == null || !tsv.hasSemanticHeads())
+				loader.load(NLPMode.srl, () -> NLPUtils.getSRLabeler(language, config.getModelPath(NLPMode.srl), new SRLConfiguration(IOUtils.createFileInputStream(s_configurationFile))));
 		case dep:
-			if (!reader.hasDependencyHeads())
-				list.add(NLPUtils.getDEPParser(language, config.getModelPath(NLPMode.dep), new DEPConfiguration(IOUtils.createFileInputStream(s_configurationFile))));
+			if (tsv == null || !tsv.hasDependencyHeads())
+				loader.load(NLPMode.dep, () -> NLPUtils.getDEPParser(language, config.getModelPath(NLPMode.dep), new DEPConfiguration(IOUtils.createFileInputStream(s_configurationFile))));
 		case morph:
-			if (!reader.hasLemmas())
-				list.add(NLPUtils.getMPAnalyzer(language));
+			if (tsv == null || !tsv.hasLemmas())
+				loader.load(NLPMode.morph, () -> NLPUtils.getMPAnalyzer(language));
 		case pos:
-			if (!reader.hasPOSTags())
-				list.add(NLPUtils.getPOSTagger(language, config.getModelPath(NLPMode.pos)));
+			if (tsv == null || !tsv.hasPOSTags())
+				loader.load(NLPMode.pos, () -> NLPUtils.getPOSTagger(language, config.getModelPath(NLPMode.pos)));
 		}
-		
-		return toReverseArray(list);
 	}
 	
 	private AbstractComponent[] toReverseArray(List<AbstractComponent> list)
 	{
 		AbstractComponent[] array = new AbstractComponent[list.size()];
+		for (AbstractComponent component : list) component.freeze();
 		Collections.reverse(list);
-		return list.toArray(array);
+		array = list.toArray(array);
+		initMetrics(array);
+		return array;
 	}
 	
-	private String toString(DEPTree tree, NLPMode mode)
+//	====================================== METRICS ======================================
+	
+	/** Registers the metrics of the tokenizer and the specific components to the platform MBean server. */
+	private void initMetrics(AbstractComponent[] components)
 	{
-		switch (mode)
+		l_metrics = new ArrayList<>();
+		l_metrics.add(m_tokenizer);
+		for (AbstractComponent component : components) l_metrics.add(component.getMetrics());
+		
+		for (ComponentMetrics metrics : l_metrics)
 		{
-		case ner  : return tree.toString();
-		case srl  : return tree.toString(DEPNode::toStringSRL);
-		case dep  : return tree.toString(DEPNode::toStringDEP);
-		case morph: return tree.toString(DEPNode::toStringMorph);
-		case pos  : return tree.toString(DEPNode::toStringPOS);
+			metrics.setDetailed(b_detail);
+			metrics.register();
 		}
-
-		throw new IllegalArgumentException("Invalid mode: "+mode.toString());
 	}
+	
+	/** @return the metrics of the tokenizer and the components that processed at least one sentence, one per line. */
+	public String getMetricsSummary()
+	{
+		StringBuilder build = new StringBuilder();
+		build.append(ComponentMetrics.getHeader());
+		build.append(StringConst.NEW_LINE);
+		
+		for (ComponentMetrics metrics : l_metrics)
+		{
+			if (metrics.getSentenceCount() > 0)
+			{
+				build.append(metrics.toString());
+				build.append(StringConst.NEW_LINE);
+			}
+		}
+		
+		return build.toString();
+	}
+	
+	private AbstractWriter createWriter(String outputFile, NLPMode mode)
+	{
+		return createWriter(TWriter.getType(s_format), IOUtils.createFileOutputStream(outputFile), mode);
+	}
+	
+	/** Called by {@link NLPServer}. */
+	AbstractWriter createWriter(TWriter type, OutputStream out, NLPMode mode)
+	{
+		switch (type)
+		{
+		case TSV   : return new TSVWriter(out, mode);
+		case JSON  : return new JSONWriter(out);
+		case BINARY: return new BinaryWriter(out);
+		}
 		
+		throw new IllegalArgumentException("Invalid format: "+type);
+	}
+	
 	static public void main(String[] args)
 	{
 		new NLPDecode(args);
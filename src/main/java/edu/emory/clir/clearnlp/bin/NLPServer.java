@@ -0,0 +1,239 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.bin;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import org.kohsuke.args4j.Option;
+
+import edu.emory.clir.clearnlp.component.AbstractComponent;
+import edu.emory.clir.clearnlp.component.configuration.DecodeConfiguration;
+import edu.emory.clir.clearnlp.component.utils.NLPMode;
+import edu.emory.clir.clearnlp.component.utils.NLPUtils;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.reader.AbstractReader;
+import edu.emory.clir.clearnlp.reader.LineReader;
+import edu.emory.clir.clearnlp.reader.RawReader;
+import edu.emory.clir.clearnlp.reader.TReader;
+import edu.emory.clir.clearnlp.reader.TSVReader;
+import edu.emory.clir.clearnlp.tokenization.AbstractTokenizer;
+import edu.emory.clir.clearnlp.util.BinUtils;
+import edu.emory.clir.clearnlp.util.IOUtils;
+import edu.emory.clir.clearnlp.util.constant.StringConst;
+import edu.emory.clir.clearnlp.writer.AbstractWriter;
+import edu.emory.clir.clearnlp.writer.TWriter;
+
+/**
+ * Keeps the lexica and the components loaded and decodes documents sent through a local socket.
+ * A document consists of lines in the format of the reader in the configuration file (raw, line, or tsv)
+ * followed by {@link #END_OF_DOCUMENT} on its own line; the decoded trees are sent back in the tsv or json format followed by the same line.
+ * If a document fails, a line starting with {@link #ERROR} is sent back instead of its trees.
+ * Multiple documents can be sent through one connection.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class NLPServer
+{
+	@Option(name="-c", usage="confinguration file (required)", required=true, metaVar="<string>")
+	protected String s_configurationFile;
+	@Option(name="-mode", usage="pos|morph|dep|srl|ner", required=true, metaVar="<string>")
+	protected String s_mode;
+	@Option(name="-port", usage="port number on the loopback address (default: 9090)", required=false, metaVar="<integer>")
+	protected int n_port = 9090;
+	@Option(name="-threads", usage="number of connections handled at once (default: 4)", required=false, metaVar="<integer>")
+	protected int n_threads = 4;
+	@Option(name="-format", usage="output format: tsv|json (default: tsv)", required=false, metaVar="<string>")
+	protected String s_format = "tsv";
+	
+	/** The line that ends each document in both requests and responses. */
+	static public final String END_OF_DOCUMENT = "@EOD";
+	/** The prefix of the line sent back instead of the trees of a document that fails to be decoded. */
+	static public final String ERROR = "@ERROR";
+	
+	private AbstractComponent[] c_components;
+	private AbstractTokenizer   t_tokenizer;
+	private AbstractReader<?>   r_reader;
+	private NLPDecode           d_decode;
+	private NLPMode             n_mode;
+	private TWriter             w_format;
+	
+	public NLPServer() {}
+	
+	public NLPServer(String[] args)
+	{
+		BinUtils.initArgs(args, this);
+		
+		try
+		{
+			init(s_configurationFile, NLPMode.valueOf(s_mode), TWriter.getType(s_format));
+			serve(n_port, n_threads);
+		}
+		catch (IOException e) {e.printStackTrace();}
+	}
+	
+	/**
+	 * Loads the lexica and the components once and concurrently; all of them are shared by every connection.
+	 * @throws IllegalArgumentException if the format is {@link TWriter#BINARY}, which cannot be delimited by lines.
+	 */
+	public void init(String configurationFile, NLPMode mode, TWriter format)
+	{
+		if (format == TWriter.BINARY) throw new IllegalArgumentException("The binary format is not supported by the server.");
+		DecodeConfiguration config = new DecodeConfiguration(IOUtils.createFileInputStream(configurationFile));
+		AbstractReader<?> reader = config.getReader();
+		NLPDecode decode = new NLPDecode();
+		AbstractTokenizer tokenizer = reader.isReaderType(TReader.TSV) ? null : NLPUtils.getTokenizer(config.getLanguage());
+		init(decode, reader, tokenizer, decode.getComponents(configurationFile, config, mode), mode, format);
+	}
+	
+	/** Initializes with the components already loaded (package-private for testing). */
+	void init(NLPDecode decode, AbstractReader<?> reader, AbstractTokenizer tokenizer, AbstractComponent[] components, NLPMode mode, TWriter format)
+	{
+		d_decode     = decode;
+		r_reader     = reader;
+		t_tokenizer  = tokenizer;
+		c_components = components;
+		n_mode       = mode;
+		w_format     = format;
+	}
+	
+	/** Accepts connections on the loopback address until this process is terminated. */
+	public void serve(int port, int nThreads) throws IOException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(nThreads);
+		ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+		BinUtils.LOG.info("Listening on port "+server.getLocalPort()+"\n");
+		
+		try
+		{
+			while (true)
+				executor.execute(new ClientTask(server.accept()));
+		}
+		finally
+		{
+			server.close();
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * @return the decoded trees of the specific document followed by the {@link #END_OF_DOCUMENT} line;
+	 * if the document fails, the {@link #ERROR} line followed by the same line.
+	 */
+	public String process(String document)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		String response;
+		
+		try
+		{
+			AbstractWriter writer = createWriter(out);
+			process(document, writer);
+			writer.flush();
+			response = new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+		catch (RuntimeException e)
+		{
+			BinUtils.LOG.error("Failed to decode a document: "+e+"\n");
+			response = ERROR + StringConst.SPACE + String.valueOf(e.getMessage()).replaceAll("\\s+", StringConst.SPACE) + StringConst.NEW_LINE;
+		}
+		
+		return response + END_OF_DOCUMENT + StringConst.NEW_LINE;
+	}
+	
+	/** Decodes the specific document and writes the trees using the specific writer without flushing it. */
+	private void process(String document, AbstractWriter writer)
+	{
+		AbstractReader<?> reader = r_reader.clone();
+		Supplier<DEPTree> trees = null;
+		DEPTree tree;
+		
+		reader.open(IOUtils.createByteArrayInputStream(document));
+		
+		switch (reader.getReaderType())
+		{
+		case TSV : trees = d_decode.getTrees((TSVReader) reader);				break;
+		case RAW : trees = d_decode.getTrees((RawReader) reader, t_tokenizer);	break;
+		case LINE: trees = d_decode.getTrees((LineReader)reader, t_tokenizer);	break;
+		}
+		
+		while ((tree = trees.get()) != null)
+		{
+			d_decode.process(tree, c_components);
+			writer.write(tree);
+		}
+		
+		reader.close();
+	}
+	
+	/** @return a writer in the format given to {@link #init(String, NLPMode, TWriter)}. */
+	public AbstractWriter createWriter(OutputStream out)
+	{
+		return d_decode.createWriter(w_format, out, n_mode);
+	}
+	
+	class ClientTask implements Runnable
+	{
+		private Socket socket;
+		
+		public ClientTask(Socket socket)
+		{
+			this.socket = socket;
+		}
+		
+		@Override
+		public void run()
+		{
+			try (Socket s = socket)
+			{
+				BufferedReader in = IOUtils.createBufferedReader(s.getInputStream());
+				OutputStream out = s.getOutputStream();
+				StringBuilder document = new StringBuilder();
+				String line;
+				
+				while ((line = in.readLine()) != null)
+				{
+					if (line.equals(END_OF_DOCUMENT))
+					{
+						out.write(process(document.toString()).getBytes(StandardCharsets.UTF_8));
+						out.flush();
+						document.setLength(0);
+					}
+					else
+					{
+						document.append(line);
+						document.append(StringConst.NEW_LINE);
+					}
+				}
+			}
+			catch (IOException e) {e.printStackTrace();}
+		}
+	}
+	
+	static public void main(String[] args)
+	{
+		new NLPServer(args);
+	}
+}
@@ -19,6 +19,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -77,8 +78,10 @@ public class Tokenize
 		InputStream in  = IOUtils.createFileInputStream(inputFile);
 		PrintStream out = IOUtils.createBufferedPrintStream(outputFile);
 		
-		for (List<String> tokens : tokenizer.segmentize(in))
-			out.println(Joiner.join(tokens, StringConst.SPACE));
+		Iterator<List<String>> it = tokenizer.getSentenceIterator(in);
+		
+		while (it.hasNext())
+			out.println(Joiner.join(it.next(), StringConst.SPACE));
 		
 		in.close();
 		out.close();
@@ -48,6 +48,8 @@ public abstract class AbstractNLPTrain
 	protected String[] s_featureFiles;
 	@Option(name="-m", usage="model filename (optional)", required=false, metaVar="<filename>")
 	protected String s_modelPath = null;
+	@Option(name="-bm", usage="if set, save the model in the binary model format", required=false, metaVar="<boolean>")
+	protected boolean b_binaryModel = false;
 	@Option(name="-t", usage="training path (required)", required=true, metaVar="<filepath>")
 	protected String s_trainPath;
 	@Option(name="-d", usage="development path (required)", required=true, metaVar="<filepath>")
@@ -95,6 +97,14 @@ public abstract class AbstractNLPTrain
 		
 		try
 		{
+			if (b_binaryModel)
+			{
+				BufferedOutputStream bout = new BufferedOutputStream(new FileOutputStream(modelPath));
+				component.saveBinary(bout);
+				bout.close();
+				return;
+			}
+			
 			out = new ObjectOutputStream(new XZOutputStream(new BufferedOutputStream(new FileOutputStream(modelPath)), new LZMA2Options()));
 			component.save(out);
 			out.close();
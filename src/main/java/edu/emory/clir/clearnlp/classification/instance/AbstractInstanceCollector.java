@@ -48,17 +48,23 @@ abstract public class AbstractInstanceCollector<I extends AbstractInstance<F>, F
 	public void addInstance(I instance)
 	{
 		i_instances.add(instance);
+		addLexica(instance);
+	}
+	
+	/** Counts the label and the features of the specific instance without keeping the instance (e.g., when it is stored on disk). */
+	public void addLexica(I instance)
+	{
 		addLabel(instance.getLabel());
 		addFeatures(instance.getFeatureVector());
 	}
 	
-	/** Called by {@link #addLexica(StringInstance)}. */
+	/** Called by {@link #addLexica(AbstractInstance)}. */
 	protected void addLabel(String label)
 	{
 		m_labels.add(label);
 	}
 	
-	/** Called by {@link #addLexica(StringInstance)}. */
+	/** Called by {@link #addLexica(AbstractInstance)}. */
 	abstract protected void addFeatures(F vector);
 	
 	public int getLabelSize()
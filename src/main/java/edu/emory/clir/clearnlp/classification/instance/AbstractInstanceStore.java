@@ -0,0 +1,276 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.instance;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import edu.emory.clir.clearnlp.collection.list.IntArrayList;
+import edu.emory.clir.clearnlp.util.DSUtils;
+
+/**
+ * A disk-backed store of instances written to sequential chunk files in a temporary directory so that
+ * the number of instances is bounded by disk rather than heap; instances are read back only by iterators.
+ * Each chunk file is read through its own stream so that multiple iterators can read this store concurrently.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+abstract public class AbstractInstanceStore<I> implements Iterable<I>
+{
+	static public final int DEFAULT_CHUNK_SIZE  = 100000;
+	static public final int DEFAULT_BUFFER_SIZE = 100000;
+	
+	private File d_directory;
+	/** The number of instances in each chunk file. */
+	private IntArrayList l_chunks;
+	private DataOutputStream o_chunk;
+	private int n_chunkSize;
+	private int n_size;
+	
+	/** @param chunkSize the maximum number of instances in each chunk file. */
+	public AbstractInstanceStore(File parentDirectory, int chunkSize)
+	{
+		try
+		{
+			d_directory = Files.createTempDirectory(parentDirectory.toPath(), "instances").toFile();
+			d_directory.deleteOnExit();
+		}
+		catch (IOException e) {throw new IllegalStateException("Cannot create a directory in: "+parentDirectory, e);}
+		
+		l_chunks    = new IntArrayList();
+		n_chunkSize = chunkSize;
+		n_size      = 0;
+	}
+	
+	abstract protected void write(DataOutputStream out, I instance) throws IOException;
+	abstract protected I read(DataInputStream in) throws IOException;
+	
+//	====================================== WRITE ======================================
+	
+	public void add(I instance)
+	{
+		try
+		{
+			if (o_chunk == null || l_chunks.get(l_chunks.size()-1) == n_chunkSize)
+			{
+				close();
+				File file = getChunkFile(l_chunks.size());
+				file.deleteOnExit();
+				o_chunk = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+				l_chunks.add(0);
+			}
+			
+			write(o_chunk, instance);
+			l_chunks.set(l_chunks.size()-1, l_chunks.get(l_chunks.size()-1) + 1);
+			n_size++;
+		}
+		catch (IOException e) {throw new IllegalStateException(e);}
+	}
+	
+	/** Flushes the last chunk file; must be called before this store is read. */
+	public void close()
+	{
+		if (o_chunk == null) return;
+		
+		try
+		{
+			o_chunk.close();
+			o_chunk = null;
+		}
+		catch (IOException e) {throw new IllegalStateException(e);}
+	}
+	
+	/** Closes and deletes all chunk files of this store. */
+	public void delete()
+	{
+		try {close();}
+		catch (IllegalStateException e) {e.printStackTrace();}
+		
+		for (int i=0; i<l_chunks.size(); i++)
+			getChunkFile(i).delete();
+		
+		d_directory.delete();
+		l_chunks.clear();
+		n_size = 0;
+	}
+	
+	private File getChunkFile(int index)
+	{
+		return new File(d_directory, String.format("chunk-%05d", index));
+	}
+	
+	/** @return the total number of instances in this store. */
+	public int size()
+	{
+		return n_size;
+	}
+	
+	/** @return the number of chunk files in this store. */
+	public int getChunkSize()
+	{
+		return l_chunks.size();
+	}
+	
+//	====================================== READ ======================================
+	
+	/** @return an iterator reading all instances in the order they are added. */
+	@Override
+	public Iterator<I> iterator()
+	{
+		return new ChunkIterator(DSUtils.range(l_chunks.size()));
+	}
+	
+	/**
+	 * @return an iterator reading the instances in the specific chunks in a shuffled order: the chunks are visited in
+	 * a random order and each instance read is swapped with a random one in a buffer of the specific size.
+	 * The order approximates a full shuffle when the buffer size is close to the number of instances.
+	 */
+	public Iterator<I> iterator(int[] chunks, Random rand, int bufferSize)
+	{
+		chunks = chunks.clone();
+		DSUtils.shuffle(chunks, rand);
+		return new ShuffleIterator(new ChunkIterator(chunks), rand, bufferSize);
+	}
+	
+	/** Reads the instances in the specific chunks in order, opening one chunk file at a time. */
+	private class ChunkIterator implements Iterator<I>
+	{
+		private int[] i_chunks;
+		private int   n_chunk;
+		private int   n_remain;
+		private DataInputStream i_chunk;
+		
+		public ChunkIterator(int[] chunks)
+		{
+			i_chunks = chunks;
+			n_chunk  = -1;
+			n_remain = 0;
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			try
+			{
+				while (n_remain == 0)
+				{
+					if (i_chunk != null) {i_chunk.close(); i_chunk = null;}
+					if (++n_chunk >= i_chunks.length) return false;
+					n_remain = l_chunks.get(i_chunks[n_chunk]);
+					if (n_remain > 0) i_chunk = new DataInputStream(new BufferedInputStream(new FileInputStream(getChunkFile(i_chunks[n_chunk]))));
+				}
+			}
+			catch (IOException e) {throw new IllegalStateException(e);}
+			
+			return true;
+		}
+		
+		@Override
+		public I next()
+		{
+			if (!hasNext()) throw new NoSuchElementException();
+			
+			try
+			{
+				n_remain--;
+				return read(i_chunk);
+			}
+			catch (IOException e) {throw new IllegalStateException(e);}
+		}
+	}
+	
+	private class ShuffleIterator implements Iterator<I>
+	{
+		private Iterator<I> i_source;
+		private Object[] o_buffer;
+		private Random   r_rand;
+		private int      n_size;
+		
+		public ShuffleIterator(Iterator<I> source, Random rand, int bufferSize)
+		{
+			i_source = source;
+			o_buffer = new Object[Math.max(1, bufferSize)];
+			r_rand   = rand;
+			
+			for (n_size=0; n_size<o_buffer.length && source.hasNext(); n_size++)
+				o_buffer[n_size] = source.next();
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			return n_size > 0;
+		}
+		
+		@Override
+		@SuppressWarnings("unchecked")
+		public I next()
+		{
+			if (n_size == 0) throw new NoSuchElementException();
+			int i = r_rand.nextInt(n_size);
+			I instance = (I)o_buffer[i];
+			
+			if (i_source.hasNext())
+				o_buffer[i] = i_source.next();
+			else
+			{
+				o_buffer[i] = o_buffer[--n_size];
+				o_buffer[n_size] = null;
+			}
+			
+			return instance;
+		}
+	}
+	
+//	====================================== VARINT ======================================
+	
+	/** Writes the specific non-negative integer in 7-bit groups, least significant first. */
+	static protected void writeVarint(DataOutputStream out, int value) throws IOException
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		
+		out.writeByte(value);
+	}
+	
+	static protected int readVarint(DataInputStream in) throws IOException
+	{
+		int b, value = 0, shift = 0;
+		
+		do
+		{
+			b = in.readUnsignedByte();
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		}
+		while ((b & 0x80) != 0);
+		
+		return value;
+	}
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.instance;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
+
+/**
+ * A disk-backed store of vectorized instances.
+ * Each instance is written as the varint label, the varint of its size shifted by its weight type,
+ * the varint feature indices, and the feature weights as floats if they are all exactly floats or as doubles otherwise.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class IntInstanceStore extends AbstractInstanceStore<IntInstance>
+{
+	static private final int NO_WEIGHT     = 0;
+	static private final int FLOAT_WEIGHT  = 1;
+	static private final int DOUBLE_WEIGHT = 2;
+	
+	public IntInstanceStore(File parentDirectory)
+	{
+		this(parentDirectory, DEFAULT_CHUNK_SIZE);
+	}
+	
+	public IntInstanceStore(File parentDirectory, int chunkSize)
+	{
+		super(parentDirectory, chunkSize);
+	}
+	
+	@Override
+	protected void write(DataOutputStream out, IntInstance instance) throws IOException
+	{
+		SparseFeatureVector x = instance.getFeatureVector();
+		int i, size = x.size(), type = getWeightType(x);
+		
+		writeVarint(out, instance.getLabel());
+		writeVarint(out, (size << 2) | type);
+		
+		for (i=0; i<size; i++)
+			writeVarint(out, x.getIndex(i));
+		
+		switch (type)
+		{
+		case FLOAT_WEIGHT : for (i=0; i<size; i++) out.writeFloat ((float)x.getWeight(i)); break;
+		case DOUBLE_WEIGHT: for (i=0; i<size; i++) out.writeDouble(x.getWeight(i)); break;
+		}
+	}
+	
+	private int getWeightType(SparseFeatureVector x)
+	{
+		if (!x.hasWeight()) return NO_WEIGHT;
+		
+		for (int i=0; i<x.size(); i++)
+			if ((float)x.getWeight(i) != x.getWeight(i)) return DOUBLE_WEIGHT;
+		
+		return FLOAT_WEIGHT;
+	}
+	
+	@Override
+	protected IntInstance read(DataInputStream in) throws IOException
+	{
+		int i, label = readVarint(in), size = readVarint(in), type = size & 3;
+		size >>>= 2;
+		
+		SparseFeatureVector x = new SparseFeatureVector(type != NO_WEIGHT);
+		int[] indices = new int[size];
+		
+		for (i=0; i<size; i++)
+			indices[i] = readVarint(in);
+		
+		switch (type)
+		{
+		case NO_WEIGHT    : for (i=0; i<size; i++) x.addFeature(indices[i]); break;
+		case FLOAT_WEIGHT : for (i=0; i<size; i++) x.addFeature(indices[i], in.readFloat()); break;
+		case DOUBLE_WEIGHT: for (i=0; i<size; i++) x.addFeature(indices[i], in.readDouble()); break;
+		}
+		
+		x.trimToSize();
+		return new IntInstance(label, x);
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.instance;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
+
+/**
+ * A disk-backed store of collected instances before they are vectorized.
+ * Each instance is written as the label, the varint of its size shifted by whether it has weights,
+ * and its features as pairs of the varint type and the value, followed by the weight if any.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class StringInstanceStore extends AbstractInstanceStore<StringInstance>
+{
+	public StringInstanceStore(File parentDirectory)
+	{
+		this(parentDirectory, DEFAULT_CHUNK_SIZE);
+	}
+	
+	public StringInstanceStore(File parentDirectory, int chunkSize)
+	{
+		super(parentDirectory, chunkSize);
+	}
+	
+	@Override
+	protected void write(DataOutputStream out, StringInstance instance) throws IOException
+	{
+		StringFeatureVector x = instance.getFeatureVector();
+		int i, size = x.size();
+		
+		out.writeUTF(instance.getLabel());
+		writeVarint(out, (size << 1) | (x.hasWeight() ? 1 : 0));
+		
+		for (i=0; i<size; i++)
+		{
+			writeVarint(out, x.getType(i));
+			out.writeUTF(x.getValue(i));
+			if (x.hasWeight()) out.writeDouble(x.getWeight(i));
+		}
+	}
+	
+	@Override
+	protected StringInstance read(DataInputStream in) throws IOException
+	{
+		String label = in.readUTF();
+		int i, size = readVarint(in);
+		boolean hasWeight = (size & 1) == 1;
+		StringFeatureVector x = new StringFeatureVector(hasWeight);
+		int type;
+		
+		for (i=size>>>1; i>0; i--)
+		{
+			type = readVarint(in);
+			if (hasWeight)	x.addFeature(type, in.readUTF(), in.readDouble());
+			else			x.addFeature(type, in.readUTF());
+		}
+		
+		return new StringInstance(label, x);
+	}
+}
@@ -87,6 +87,53 @@ public class FeatureMap implements Serializable
 		return DSUtils.isRange(l_map, type) ? l_map.get(type).get(feature) : -1;
 	}
 	
+	/** Puts the specific feature with the specific index; used to rebuild this map from another format. */
+	public void put(int type, String feature, int index)
+	{
+		while (l_map.size() <= type) l_map.add(new ObjectIntHashMap<String>());
+		l_map.get(type).put(feature, index);
+		if (n_features <= index) n_features = index + 1;
+	}
+	
+	/** @return the map from features of the specific type to their indices. */
+	public ObjectIntHashMap<String> getFeatureMap(int type)
+	{
+		return l_map.get(type);
+	}
+	
+	/**
+	 * @param indices the new index of each feature index; features whose new indices are 0 are removed.
+	 * @return a new feature map whose features are renumbered by the specific indices.
+	 */
+	public FeatureMap renumber(int[] indices)
+	{
+		FeatureMap map = new FeatureMap();
+		ObjectIntHashMap<String> m;
+		
+		for (ObjectIntHashMap<String> org : l_map)
+		{
+			m = new ObjectIntHashMap<>();
+			map.l_map.add(m);
+			
+			for (ObjectIntPair<String> p : org)
+			{
+				if (p.i < indices.length && indices[p.i] > 0)
+				{
+					m.put(p.o, indices[p.i]);
+					map.n_features = Math.max(map.n_features, indices[p.i] + 1);
+				}
+			}
+		}
+		
+		return map;
+	}
+	
+	/** @return the number of feature types. */
+	public int getTypeSize()
+	{
+		return l_map.size();
+	}
+	
 	public int size()
 	{
 		return n_features;
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.map;
+
+import java.util.BitSet;
+
+import edu.emory.clir.clearnlp.collection.map.IntObjectHashMap;
+import edu.emory.clir.clearnlp.collection.map.ObjectIntHashMap;
+import edu.emory.clir.clearnlp.collection.pair.ObjectIntPair;
+
+/**
+ * A feature map using the hashing trick: the index of each feature is derived from the hash of its type and value
+ * so that no feature is stored; features whose hashes collide share the same index.
+ * Each feature is also given a sign from an independent bit of its hash so that collisions cancel out in expectation
+ * (see {@link #getSignedFeatureIndex(int, String)}).
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class HashedFeatureMap extends FeatureMap
+{
+	private static final long serialVersionUID = 6064216780912937785L;
+	static public final int MAX_BITS = 28;
+	
+	private int n_bits;
+	private int n_mask;
+	private int n_collisions;
+	
+	/** @param bits the number of hash bits; the number of features becomes 2^bits + 1, where the index 0 is reserved for the bias. */
+	public HashedFeatureMap(int bits)
+	{
+		if (bits < 1 || bits > MAX_BITS)
+			throw new IllegalArgumentException("The number of hash bits must be between 1 and "+MAX_BITS+": "+bits);
+		
+		n_bits = bits;
+		n_mask = (1 << bits) - 1;
+	}
+	
+	@Override
+	public void reset()
+	{
+		super.reset();
+		n_collisions = 0;
+	}
+	
+	/**
+	 * Counts the features in the specific map that collide with other features; the cutoff is ignored
+	 * because features are not stored.
+	 * @return the number of features.
+	 */
+	@Override
+	public int expand(IntObjectHashMap<ObjectIntHashMap<String>> map, int cutoff)
+	{
+		BitSet rows = new BitSet();
+		int index;
+		
+		n_collisions = 0;
+		
+		for (ObjectIntPair<ObjectIntHashMap<String>> pn : map)
+		{
+			for (ObjectIntPair<String> ps : pn.o)
+			{
+				index = getFeatureIndex(pn.i, ps.o);
+				if (rows.get(index)) n_collisions++;
+				else rows.set(index);
+			}
+		}
+		
+		return size();
+	}
+	
+	@Override
+	public int getFeatureIndex(int type, String feature)
+	{
+		return (MappedFeatureMap.getHash(type, feature) & n_mask) + 1;
+	}
+	
+	/** @return the index of the specific feature, negated if the sign of the feature is negative. */
+	public int getSignedFeatureIndex(int type, String feature)
+	{
+		int hash = MappedFeatureMap.getHash(type, feature), index = (hash & n_mask) + 1;
+		return (hash < 0) ? -index : index;
+	}
+	
+	@Override
+	public void put(int type, String feature, int index)
+	{
+		throw new UnsupportedOperationException("A hashed feature map does not store features.");
+	}
+	
+	@Override
+	public ObjectIntHashMap<String> getFeatureMap(int type)
+	{
+		throw new UnsupportedOperationException("A hashed feature map does not store features.");
+	}
+	
+	@Override
+	public FeatureMap renumber(int[] indices)
+	{
+		throw new UnsupportedOperationException("A hashed feature map cannot be renumbered.");
+	}
+	
+	/** @return the number of hash bits. */
+	public int getBits()
+	{
+		return n_bits;
+	}
+	
+	/** @return the number of features that collided with other features during the last {@link #expand(IntObjectHashMap, int)}. */
+	public int getCollisionSize()
+	{
+		return n_collisions;
+	}
+	
+	@Override
+	public int getTypeSize()
+	{
+		return 0;
+	}
+	
+	@Override
+	public int size()
+	{
+		return n_mask + 2;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "hashed: "+n_bits+" bits";
+	}
+}
@@ -37,6 +37,13 @@ public class LabelMap implements Serializable
 		reset();
 	}
 	
+	public LabelMap(String[] labels)
+	{
+		reset();
+		l_labels = labels;
+		for (int i=0; i<labels.length; i++) m_labels.put(labels[i], i+1);
+	}
+	
 	public void reset()
 	{
 		m_labels = new ObjectIntHashMap<String>();
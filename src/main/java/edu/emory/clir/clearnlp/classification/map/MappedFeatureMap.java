@@ -0,0 +1,214 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.map;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+import edu.emory.clir.clearnlp.collection.map.IntObjectHashMap;
+import edu.emory.clir.clearnlp.collection.map.ObjectIntHashMap;
+import edu.emory.clir.clearnlp.collection.pair.ObjectIntPair;
+
+/**
+ * A read-only feature map over flat buffers (e.g., memory-mapped from a model file) so that nothing is deserialized.
+ * The table is an open-addressing hash table whose slots consist of {@link #SLOT_SIZE} integers,
+ * (hash, type, offset, index), where the offset points to the UTF-8 feature in the string buffer
+ * preceded by its length; a slot with the index 0 is empty.
+ * This map is serialized as a regular {@link FeatureMap}.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class MappedFeatureMap extends FeatureMap
+{
+	private static final long serialVersionUID = -2417463014577245632L;
+	static public final int SLOT_SIZE = 4;
+	
+	private transient IntBuffer  b_table;
+	private transient ByteBuffer b_strings;
+	private int n_mask;
+	private int n_types;
+	private int n_features;
+	
+	/**
+	 * @param table the hash table whose number of slots is a power of 2.
+	 * @param strings the UTF-8 features, each preceded by its length.
+	 */
+	public MappedFeatureMap(IntBuffer table, ByteBuffer strings, int typeSize, int featureSize)
+	{
+		b_table    = table;
+		b_strings  = strings;
+		n_mask     = table.capacity() / SLOT_SIZE - 1;
+		n_types    = typeSize;
+		n_features = featureSize;
+	}
+	
+	@Override
+	public int expand(IntObjectHashMap<ObjectIntHashMap<String>> map, int cutoff)
+	{
+		throw new UnsupportedOperationException("A mapped feature map is read-only.");
+	}
+	
+	@Override
+	public int getFeatureIndex(int type, String feature)
+	{
+		if (type < 0 || type >= n_types) return -1;
+		int hash = getHash(type, feature), slot = hash & n_mask, index, i;
+		
+		while ((index = b_table.get((i = slot * SLOT_SIZE) + 3)) > 0)
+		{
+			if (b_table.get(i) == hash && b_table.get(i+1) == type && equals(b_table.get(i+2), feature))
+				return index;
+			
+			slot = (slot + 1) & n_mask;
+		}
+		
+		return 0;
+	}
+	
+	@Override
+	public int getTypeSize()
+	{
+		return n_types;
+	}
+	
+	@Override
+	public int size()
+	{
+		return n_features;
+	}
+	
+	/** @return {@code true} if the UTF-8 string at the specific offset equals to the specific feature. */
+	private boolean equals(int offset, String feature)
+	{
+		int i, len = b_strings.getInt(offset), size = feature.length();
+		char c;
+		offset += 4;
+		
+		for (i=0; i<size; i++)
+		{
+			c = feature.charAt(i);
+			if (c >= 0x80) return equals(offset, len, feature.getBytes(StandardCharsets.UTF_8));
+			if (i >= len || b_strings.get(offset+i) != c) return false;
+		}
+		
+		return len == size;
+	}
+	
+	private boolean equals(int offset, int len, byte[] bytes)
+	{
+		if (len != bytes.length) return false;
+		
+		for (int i=0; i<len; i++)
+			if (b_strings.get(offset+i) != bytes[i]) return false;
+		
+		return true;
+	}
+	
+	@Override
+	public FeatureMap renumber(int[] indices)
+	{
+		return toFeatureMap().renumber(indices);
+	}
+	
+	private String getString(int offset)
+	{
+		byte[] bytes = new byte[b_strings.getInt(offset)];
+		for (int i=0; i<bytes.length; i++) bytes[i] = b_strings.get(offset+4+i);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	/** @return a copy of this map as a regular feature map. */
+	public FeatureMap toFeatureMap()
+	{
+		FeatureMap map = new FeatureMap();
+		int i, size = b_table.capacity();
+		
+		for (i=0; i<size; i+=SLOT_SIZE)
+		{
+			if (b_table.get(i+3) > 0)
+				map.put(b_table.get(i+1), getString(b_table.get(i+2)), b_table.get(i+3));
+		}
+		
+		return map;
+	}
+	
+	private Object writeReplace()
+	{
+		return toFeatureMap();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return toFeatureMap().toString();
+	}
+
+//	====================================== TABLE ======================================
+	
+	/** @return the hash of the specific feature, which must be the same across JVMs. */
+	static public int getHash(int type, String feature)
+	{
+		int h = feature.hashCode() * 31 + type;
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+	
+	/**
+	 * @param strings the UTF-8 features, each preceded by its little-endian length, are written to this stream.
+	 * @return the hash table of the specific feature map whose number of slots is a power of 2 and at least twice the number of features.
+	 */
+	static public int[] createTable(FeatureMap map, ByteArrayOutputStream strings)
+	{
+		int type, slot, hash, i, size = 0;
+		ObjectIntHashMap<String> m;
+		byte[] bytes;
+		
+		for (type=0; type<map.getTypeSize(); type++)
+			size += map.getFeatureMap(type).size();
+		
+		int[] table = new int[Integer.highestOneBit(Math.max(1, size) * 2 - 1) * 2 * SLOT_SIZE];
+		int mask = table.length / SLOT_SIZE - 1;
+		
+		for (type=0; type<map.getTypeSize(); type++)
+		{
+			m = map.getFeatureMap(type);
+			
+			for (ObjectIntPair<String> p : m)
+			{
+				hash = getHash(type, p.o);
+				for (slot = hash & mask; table[slot*SLOT_SIZE+3] > 0; slot = (slot + 1) & mask);
+				i = slot * SLOT_SIZE;
+				bytes = p.o.getBytes(StandardCharsets.UTF_8);
+				
+				table[i]   = hash;
+				table[i+1] = type;
+				table[i+2] = strings.size();
+				table[i+3] = p.i;
+				
+				for (int j=0; j<4; j++) strings.write(bytes.length >>> (j*8));
+				strings.write(bytes, 0, bytes.length);
+			}
+		}
+		
+		return table;
+	}
+}
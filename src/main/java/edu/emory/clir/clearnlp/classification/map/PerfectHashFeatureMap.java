@@ -0,0 +1,246 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.map;
+
+import java.nio.IntBuffer;
+
+import edu.emory.clir.clearnlp.collection.map.IntObjectHashMap;
+import edu.emory.clir.clearnlp.collection.map.ObjectIntHashMap;
+import edu.emory.clir.clearnlp.collection.map.StringIntMinimalPerfectHashMap;
+import edu.emory.clir.clearnlp.collection.pair.ObjectIntPair;
+
+/**
+ * A read-only feature map frozen into a {@link StringIntMinimalPerfectHashMap} per feature type so that no feature string is kept.
+ * The perfect hash function gives each known feature a distinct slot holding its index and a 16-bit fingerprint;
+ * the fingerprint rejects unknown features except for about 1 in 65,536 of them, which get the index of an arbitrary feature.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class PerfectHashFeatureMap extends FeatureMap
+{
+	private static final long serialVersionUID = -1632569217398735212L;
+	private StringIntMinimalPerfectHashMap[] m_hashes;
+	/** The fingerprints of each type by slots. */
+	private short[][] s_fingerprints;
+	private int n_features;
+	
+	/** Freezes the specific feature map. */
+	public PerfectHashFeatureMap(FeatureMap map)
+	{
+		if (map instanceof MappedFeatureMap) map = ((MappedFeatureMap)map).toFeatureMap();
+		if (map instanceof HashedFeatureMap || map instanceof PerfectHashFeatureMap)
+			throw new IllegalArgumentException("Only a regular feature map can be frozen.");
+		
+		int type, size = map.getTypeSize();
+		init(size, map.size());
+		
+		for (type=0; type<size; type++)
+			freeze(type, map.getFeatureMap(type));
+	}
+	
+	/** Creates a map from the specific table in the format of {@link #toTable()}. */
+	public PerfectHashFeatureMap(IntBuffer table, int typeSize, int featureSize)
+	{
+		init(typeSize, featureSize);
+		int type, i, keySize, position = 0;
+		int[] hashes, values;
+		short[] fingerprints;
+		
+		for (type=0; type<typeSize; type++)
+		{
+			keySize = table.get(position++);
+			hashes  = new int[table.get(position++)];
+			values  = new int[table.get(position++)];
+			fingerprints = new short[values.length];
+			
+			for (i=0; i<hashes.length; i++) hashes[i] = table.get(position++);
+			for (i=0; i<values.length; i++) values[i] = table.get(position++);
+			for (i=0; i<values.length; i+=2) setFingerprints(fingerprints, i, table.get(position++));
+			
+			if (keySize > 0)
+			{
+				m_hashes[type] = new StringIntMinimalPerfectHashMap(hashes, values, keySize);
+				s_fingerprints[type] = fingerprints;
+			}
+		}
+	}
+	
+	private PerfectHashFeatureMap() {}
+	
+	private void init(int typeSize, int featureSize)
+	{
+		m_hashes       = new StringIntMinimalPerfectHashMap[typeSize];
+		s_fingerprints = new short[typeSize][];
+		n_features     = featureSize;
+	}
+	
+	private void freeze(int type, ObjectIntHashMap<String> map)
+	{
+		if (map.isEmpty()) return;
+		StringIntMinimalPerfectHashMap hash = new StringIntMinimalPerfectHashMap();
+		
+		for (ObjectIntPair<String> p : map) hash.put(p.o, p.i);
+		hash.initHashFunction();
+		hash.clearKeys();
+		short[] fingerprints = new short[hash.getValues().length];
+		
+		for (ObjectIntPair<String> p : map)
+			fingerprints[hash.getSlot(p.o)] = getFingerprint(type, p.o);
+		
+		m_hashes[type] = hash;
+		s_fingerprints[type] = fingerprints;
+	}
+	
+	/** @return the fingerprint of the specific feature, independent from the perfect hash function. */
+	static private short getFingerprint(int type, String feature)
+	{
+		return (short)(MappedFeatureMap.getHash(type, feature) >>> 16);
+	}
+	
+	@Override
+	public void reset() {}
+	
+	@Override
+	public int expand(IntObjectHashMap<ObjectIntHashMap<String>> map, int cutoff)
+	{
+		throw new UnsupportedOperationException("A perfect hash feature map is read-only.");
+	}
+	
+	@Override
+	public int getFeatureIndex(int type, String feature)
+	{
+		if (type < 0 || type >= m_hashes.length) return -1;
+		StringIntMinimalPerfectHashMap hash = m_hashes[type];
+		if (hash == null) return 0;
+		
+		int slot = hash.getSlot(feature), index = hash.getValues()[slot];
+		return (index > 0 && s_fingerprints[type][slot] == getFingerprint(type, feature)) ? index : 0;
+	}
+	
+	@Override
+	public void put(int type, String feature, int index)
+	{
+		throw new UnsupportedOperationException("A perfect hash feature map is read-only.");
+	}
+	
+	@Override
+	public ObjectIntHashMap<String> getFeatureMap(int type)
+	{
+		throw new UnsupportedOperationException("A perfect hash feature map does not keep features.");
+	}
+	
+	/** Features whose new indices are 0 stay in the hash functions but are looked up as unknown. */
+	@Override
+	public FeatureMap renumber(int[] indices)
+	{
+		PerfectHashFeatureMap map = new PerfectHashFeatureMap();
+		StringIntMinimalPerfectHashMap hash;
+		int type, i, index;
+		int[] values;
+		
+		map.init(m_hashes.length, 1);
+		
+		for (type=0; type<m_hashes.length; type++)
+		{
+			if ((hash = m_hashes[type]) == null) continue;
+			values = hash.getValues().clone();
+			
+			for (i=0; i<values.length; i++)
+			{
+				if (values[i] <= 0) continue;
+				index = (values[i] < indices.length) ? indices[values[i]] : 0;
+				values[i] = index;
+				map.n_features = Math.max(map.n_features, index + 1);
+			}
+			
+			map.m_hashes[type] = new StringIntMinimalPerfectHashMap(hash.getHashes(), values, hash.size());
+			map.s_fingerprints[type] = s_fingerprints[type];
+		}
+		
+		return map;
+	}
+	
+	@Override
+	public int getTypeSize()
+	{
+		return m_hashes.length;
+	}
+	
+	@Override
+	public int size()
+	{
+		return n_features;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "perfect hash: "+n_features+" features";
+	}
+	
+//	====================================== TABLE ======================================
+	
+	/**
+	 * @return the table of this map consisting of the following integers for each feature type:
+	 * the number of keys, the number of hashes, the number of slots, hashes, values, and fingerprints (two per integer).
+	 */
+	public int[] toTable()
+	{
+		int type, i, position = 0, size = 0;
+		StringIntMinimalPerfectHashMap hash;
+		
+		for (type=0; type<m_hashes.length; type++)
+		{
+			size += 3;
+			if ((hash = m_hashes[type]) != null)
+				size += hash.getHashes().length + hash.getValues().length + (hash.getValues().length + 1) / 2;
+		}
+		
+		int[] table = new int[size];
+		
+		for (type=0; type<m_hashes.length; type++)
+		{
+			if ((hash = m_hashes[type]) == null)
+			{
+				position += 3;
+				continue;
+			}
+			
+			table[position++] = hash.size();
+			table[position++] = hash.getHashes().length;
+			table[position++] = hash.getValues().length;
+			
+			for (int h : hash.getHashes()) table[position++] = h;
+			for (int v : hash.getValues()) table[position++] = v;
+			for (i=0; i<hash.getValues().length; i+=2) table[position++] = getFingerprints(s_fingerprints[type], i);
+		}
+		
+		return table;
+	}
+	
+	/** @return the fingerprints at the specific index and the next index packed into an integer. */
+	static private int getFingerprints(short[] fingerprints, int index)
+	{
+		int lo = fingerprints[index] & 0xFFFF;
+		return (index + 1 < fingerprints.length) ? lo | (fingerprints[index+1] << 16) : lo;
+	}
+	
+	static private void setFingerprints(short[] fingerprints, int index, int packed)
+	{
+		fingerprints[index] = (short)packed;
+		if (index + 1 < fingerprints.length) fingerprints[index+1] = (short)(packed >>> 16);
+	}
+}
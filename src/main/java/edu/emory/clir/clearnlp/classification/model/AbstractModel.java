@@ -64,6 +64,12 @@ abstract public class AbstractModel<I extends AbstractInstance<F>, F extends Abs
 		m_labels = new LabelMap();
 	}
 	
+	public AbstractModel(AbstractWeightVector vector, LabelMap labels)
+	{
+		w_vector = vector;
+		m_labels = labels;
+	}
+	
 	public AbstractModel(ObjectInputStream in)
 	{
 		try
@@ -135,6 +141,15 @@ abstract public class AbstractModel<I extends AbstractInstance<F>, F extends Abs
 		return w_vector.isBinaryLabel();
 	}
 	
+	/**
+	 * Calls {@link MultiWeightVector#groupLabels(int[][])} if the weight vector is a multi-class vector.
+	 * @return the groups to be passed as the label indices to include, or the specific groups if they are not supported.
+	 */
+	public int[][] groupLabels(int[][] groups)
+	{
+		return (w_vector instanceof MultiWeightVector) ? ((MultiWeightVector)w_vector).groupLabels(groups) : groups;
+	}
+	
 	public void loadWeightVectorFromByteArray(byte[] array) throws Exception
 	{
 		ObjectInputStream ois = new ObjectInputStream(new XZInputStream(new BufferedInputStream(new ByteArrayInputStream(array))));
@@ -181,9 +196,80 @@ abstract public class AbstractModel<I extends AbstractInstance<F>, F extends Abs
 	abstract public double[] getScores(F x);
 	abstract public double[] getScores(F x, int[] include);
 	
+	/**
+	 * Puts the scores of all labels given the feature vector to the specific buffer without allocating any object.
+	 * @param scores the buffer whose length is at least {@link #getScoreSize()}.
+	 */
+	abstract public void getScores(F x, double[] scores);
+	
+	/**
+	 * Puts the scores of the specific labels given the feature vector to the specific buffer without allocating any object.
+	 * @param scores the buffer whose length is at least {@link #getScoreSize()}.
+	 */
+	abstract public void getScores(F x, int[] include, double[] scores);
+	
+	/** @return the number of scores given by {@link #getScores(AbstractFeatureVector)}. */
+	public int getScoreSize()
+	{
+		return w_vector.getScoreSize();
+	}
+	
+	public String getLabel(int labelIndex)
+	{
+		return m_labels.getLabel(labelIndex);
+	}
+	
 	public StringPrediction getPrediction(int labelIndex, double score)
 	{
-		return new StringPrediction(m_labels.getLabel(labelIndex), score);
+		return new StringPrediction(getLabel(labelIndex), score);
+	}
+	
+	/**
+	 * Same as {@link #predictBest(AbstractFeatureVector, int[])} but returns the index of the best label without allocating any object.
+	 * @param include the label indices to consider if not {@code null}.
+	 * @param scores the buffer for the scores whose length is at least {@link #getScoreSize()}.
+	 */
+	public int predictBestIndex(F x, int[] include, double[] scores)
+	{
+		if (isBinaryLabel())
+		{
+			getScores(x, scores);
+			return (scores[0] > 0) ? 0 : 1;
+		}
+		
+		if (include == null)
+		{
+			getScores(x, scores);
+			return DSUtils.maxIndex(scores, getLabelSize());
+		}
+		
+		getScores(x, include, scores);
+		return DSUtils.maxIndex(scores, include);
+	}
+	
+	/**
+	 * Puts the indices of the k best labels in descending order of their scores to {@code top} without allocating any object,
+	 * where k is the length of {@code top}; the scores are left in the specific buffer.
+	 * @param include the label indices to consider if not {@code null}.
+	 * @param scores the buffer for the scores whose length is at least {@link #getScoreSize()}.
+	 * @return the number of label indices put to {@code top}.
+	 */
+	public int predictTopIndices(F x, int[] include, double[] scores, int[] top)
+	{
+		if (isBinaryLabel())
+		{
+			int best = predictBestIndex(x, include, scores);
+			if (top.length > 0) top[0] = best;
+			if (top.length > 1) top[1] = 1 - best;
+			return Math.min(2, top.length);
+		}
+		
+		if (include == null)
+			getScores(x, scores);
+		else
+			getScores(x, include, scores);
+		
+		return DSUtils.top(scores, getLabelSize(), include, top);
 	}
 	
 	/** @return the best prediction given the specific feature vector. */
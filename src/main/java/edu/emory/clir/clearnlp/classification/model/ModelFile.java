@@ -0,0 +1,469 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import edu.emory.clir.clearnlp.classification.map.FeatureMap;
+import edu.emory.clir.clearnlp.classification.map.HashedFeatureMap;
+import edu.emory.clir.clearnlp.classification.map.LabelMap;
+import edu.emory.clir.clearnlp.classification.map.MappedFeatureMap;
+import edu.emory.clir.clearnlp.classification.map.PerfectHashFeatureMap;
+import edu.emory.clir.clearnlp.classification.vector.AbstractWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.MappedWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.QuantizedWeightVector;
+
+/**
+ * A versioned binary file of string models whose weights, labels, and feature indices are laid out as flat little-endian arrays
+ * so that they can be memory-mapped and used as they are (see {@link MappedWeightVector} and {@link MappedFeatureMap}).
+ * Processes mapping the same file share its pages through the page cache.
+ * <pre>
+ * file   : header, meta, model*, directory, directory offset (long)
+ * header : magic, version, number of models, 0 (int*4)
+ * meta   : bytes given by the caller (e.g., serialized feature extractors and lexicons)
+ * model  : binary, weight type, label size, feature size, number of labels, feature type size, feature map size,
+ *          table length, label bytes, string bytes, weight size, feature map type, hash bits, 0 (int*14),
+ *          labels (length and UTF-8 each), table (int*), strings (length and UTF-8 each), weights
+ * weights: float* (float), block scales (float*) and byte* (int8), or short* (fp16)
+ * directory: offset and length of the meta and each model (long*2)
+ * </pre>
+ * Every section, the table, and the weights start at multiples of 8 bytes.
+ * The table and the strings hold a {@link MappedFeatureMap} ({@link #FEATURE_TABLE}), nothing ({@link #FEATURE_HASHED}),
+ * or the table of a {@link PerfectHashFeatureMap} without strings ({@link #FEATURE_PERFECT}).
+ * Files of version 1 have no feature map type in their 48-byte model headers.
+ * Quantized weights (see {@link QuantizedWeightVector}) are copied to the heap instead of being mapped.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ModelFile
+{
+	/** The first 4 bytes of a model file ("CLPM"). */
+	static public final int MAGIC   = 0x4D504C43;
+	static public final int VERSION = 2;
+	/** The weight type of 32-bit floats. */
+	static public final int WEIGHT_FLOAT = 0;
+	/** The weight type of bytes with block scales ({@link QuantizedWeightVector.Precision#INT8}). */
+	static public final int WEIGHT_INT8  = 1;
+	/** The weight type of half-precision floats ({@link QuantizedWeightVector.Precision#FP16}). */
+	static public final int WEIGHT_FP16  = 2;
+	
+	/** The feature map type of an open-addressing table over UTF-8 features ({@link MappedFeatureMap}). */
+	static public final int FEATURE_TABLE   = 0;
+	/** The feature map type of the hashing trick ({@link HashedFeatureMap}). */
+	static public final int FEATURE_HASHED  = 1;
+	/** The feature map type of minimal perfect hash functions ({@link PerfectHashFeatureMap}). */
+	static public final int FEATURE_PERFECT = 2;
+	
+	static private final int HEADER_SIZE = 16;
+	static private final int MODEL_HEADER_SIZE = 56;
+	static private final int MODEL_HEADER_SIZE_V1 = 48;
+	
+	private byte[]        b_meta;
+	private StringModel[] s_models;
+	
+	private ModelFile(byte[] meta, StringModel[] models)
+	{
+		b_meta   = meta;
+		s_models = models;
+	}
+	
+	public byte[] getMeta()
+	{
+		return b_meta;
+	}
+	
+	public StringModel[] getModels()
+	{
+		return s_models;
+	}
+
+//	====================================== READ ======================================
+	
+	/** @return {@code true} if the stream starts with {@link #MAGIC}; the stream must support mark. */
+	static public boolean isModelFile(InputStream in) throws IOException
+	{
+		byte[] bytes = new byte[4];
+		in.mark(bytes.length);
+		int len = in.read(bytes);
+		in.reset();
+		return len == bytes.length && ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getInt() == MAGIC;
+	}
+	
+	/** Memory-maps the models in the specific file. */
+	static public ModelFile map(File file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			return read(channel.size(), (position, size) -> channel.map(MapMode.READ_ONLY, position, size));
+		}
+	}
+	
+	/**
+	 * Copies the specific stream (e.g., a resource in a jar) into a temporary file and memory-maps the models in it
+	 * so that the weights are not copied to the heap; the stream is closed afterwards.
+	 */
+	static public ModelFile map(InputStream in) throws IOException
+	{
+		Path tmp = Files.createTempFile("clearnlp", ".cnlpm");
+		
+		try
+		{
+			Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+			in.close();
+			return map(tmp.toFile());
+		}
+		finally
+		{
+			// the mapping stays valid after the file is deleted on most platforms
+			try {Files.delete(tmp);}
+			catch (IOException e) {tmp.toFile().deleteOnExit();}
+		}
+	}
+	
+	/** Reads the models from the specific stream into a direct buffer, which is closed afterwards. */
+	static public ModelFile read(InputStream in) throws IOException
+	{
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		byte[] buffer = new byte[1 << 16];
+		int len;
+		
+		while ((len = in.read(buffer)) >= 0) bos.write(buffer, 0, len);
+		in.close();
+		
+		ByteBuffer file = ByteBuffer.allocateDirect(bos.size());
+		file.put(bos.toByteArray());
+		return read(file.capacity(), (position, size) -> slice(file, (int)position, size));
+	}
+	
+	static private ModelFile read(long fileSize, SectionReader reader) throws IOException
+	{
+		if (fileSize < HEADER_SIZE + 8) throw new IOException("Not a model file.");
+		ByteBuffer header = order(reader.read(0, HEADER_SIZE));
+		
+		if (header.getInt(0) != MAGIC)   throw new IOException("Not a model file.");
+		int i, size = header.getInt(8), version = header.getInt(4);
+		if (version < 1 || version > VERSION) throw new IOException("Unsupported model file version: "+version);
+		
+		long offset = order(reader.read(fileSize - 8, 8)).getLong(0);
+		ByteBuffer directory = order(reader.read(offset, (size + 1) * 16));
+		StringModel[] models = new StringModel[size];
+		
+		byte[] meta = new byte[getSectionSize(directory, 0)];
+		reader.read(directory.getLong(0), meta.length).get(meta);
+		
+		for (i=0; i<size; i++)
+			models[i] = readModel(order(reader.read(directory.getLong((i+1)*16), getSectionSize(directory, i+1))), version);
+		
+		return new ModelFile(meta, models);
+	}
+	
+	static private StringModel readModel(ByteBuffer b, int version) throws IOException
+	{
+		boolean binary   = b.getInt(0) != 0;
+		int weightType   = b.getInt(4);
+		int labelSize    = b.getInt(8);
+		int featureSize  = b.getInt(12);
+		int numLabels    = b.getInt(16);
+		int typeSize     = b.getInt(20);
+		int mapSize      = b.getInt(24);
+		int tableLength  = b.getInt(28);
+		int labelBytes   = b.getInt(32);
+		int stringBytes  = b.getInt(36);
+		int weightSize   = b.getInt(40);
+		int headerSize   = (version == 1) ? MODEL_HEADER_SIZE_V1 : MODEL_HEADER_SIZE;
+		int hashBits     = (version == 1) ? b.getInt(44) : b.getInt(48);
+		int featureType  = (version == 1) ? (hashBits > 0 ? FEATURE_HASHED : FEATURE_TABLE) : b.getInt(44);
+		
+		int offset = headerSize;
+		String[] labels = new String[numLabels];
+		byte[] bytes;
+		
+		for (int i=0; i<numLabels; i++)
+		{
+			bytes = new byte[b.getInt(offset)];
+			slice(b, offset + 4, bytes.length).get(bytes);
+			labels[i] = new String(bytes, StandardCharsets.UTF_8);
+			offset += 4 + bytes.length;
+		}
+		
+		offset = align(headerSize + labelBytes);
+		IntBuffer table = order(slice(b, offset, tableLength * 4)).asIntBuffer();
+		FeatureMap features;
+		
+		switch (featureType)
+		{
+		case FEATURE_TABLE  : features = new MappedFeatureMap(table, order(slice(b, offset + tableLength * 4, stringBytes)), typeSize, mapSize); break;
+		case FEATURE_HASHED : features = new HashedFeatureMap(hashBits); break;
+		case FEATURE_PERFECT: features = new PerfectHashFeatureMap(table, typeSize, mapSize); break;
+		default: throw new IOException("Unsupported feature map type: "+featureType);
+		}
+		
+		offset = align(offset + tableLength * 4 + stringBytes);
+		AbstractWeightVector vector = readWeights(slice(b, offset, b.limit() - offset), weightType, binary, labelSize, featureSize, weightSize);
+		
+		return new StringModel(vector, new LabelMap(labels), features);
+	}
+	
+	static private AbstractWeightVector readWeights(ByteBuffer b, int weightType, boolean binary, int labelSize, int featureSize, int weightSize) throws IOException
+	{
+		switch (weightType)
+		{
+		case WEIGHT_FLOAT:
+			return new MappedWeightVector(order(slice(b, 0, weightSize * 4)).asFloatBuffer(), binary, labelSize, featureSize);
+		case WEIGHT_INT8:
+			float[] scales = new float[QuantizedWeightVector.getBlockCount(binary, labelSize, weightSize)];
+			byte[] weights = new byte[weightSize];
+			order(b).asFloatBuffer().get(scales);
+			slice(b, scales.length * 4, weightSize).get(weights);
+			return new QuantizedWeightVector(binary, labelSize, featureSize, scales, weights);
+		case WEIGHT_FP16:
+			short[] halves = new short[weightSize];
+			order(b).asShortBuffer().get(halves);
+			return new QuantizedWeightVector(binary, labelSize, featureSize, halves);
+		default:
+			throw new IOException("Unsupported weight type: "+weightType);
+		}
+	}
+	
+	static private int getSectionSize(ByteBuffer directory, int index) throws IOException
+	{
+		long size = directory.getLong(index * 16 + 8);
+		if (size > Integer.MAX_VALUE) throw new IOException("A section cannot exceed 2GB: "+size);
+		return (int)size;
+	}
+	
+	static private ByteBuffer slice(ByteBuffer buffer, int offset, int length)
+	{
+		ByteBuffer b = buffer.duplicate();
+		b.position(offset);
+		b.limit(offset + length);
+		return b.slice();
+	}
+	
+	static private ByteBuffer order(ByteBuffer buffer)
+	{
+		return buffer.order(ByteOrder.LITTLE_ENDIAN);
+	}
+	
+	static private int align(int offset)
+	{
+		return (offset + 7) & ~7;
+	}
+	
+	private interface SectionReader
+	{
+		ByteBuffer read(long position, int size) throws IOException;
+	}
+
+//	====================================== WRITE ======================================
+	
+	/** Writes the specific meta bytes and models to the stream, which is not closed. */
+	static public void write(OutputStream out, byte[] meta, StringModel[] models) throws IOException
+	{
+		Output fout = new Output(out);
+		long[] directory = new long[(models.length + 1) * 2];
+		int i;
+		
+		fout.writeInt(MAGIC);
+		fout.writeInt(VERSION);
+		fout.writeInt(models.length);
+		fout.writeInt(0);
+		
+		directory[0] = fout.position();
+		fout.write(meta);
+		directory[1] = fout.position() - directory[0];
+		
+		for (i=0; i<models.length; i++)
+		{
+			fout.align();
+			directory[(i+1)*2]   = fout.position();
+			writeModel(fout, models[i]);
+			directory[(i+1)*2+1] = fout.position() - directory[(i+1)*2];
+		}
+		
+		fout.align();
+		long offset = fout.position();
+		for (long l : directory) fout.writeLong(l);
+		fout.writeLong(offset);
+		fout.flush();
+	}
+	
+	static private void writeModel(Output fout, StringModel model) throws IOException
+	{
+		AbstractWeightVector vector = model.getWeightVector();
+		FeatureMap features = model.getFeatureMap();
+		ByteArrayOutputStream labels  = new ByteArrayOutputStream();
+		ByteArrayOutputStream strings = new ByteArrayOutputStream();
+		int i, size = vector.size(), featureType = getFeatureType(features);
+		byte[] bytes;
+		int[] table;
+		
+		switch (featureType)
+		{
+		case FEATURE_HASHED : table = new int[0]; break;
+		case FEATURE_PERFECT: table = ((PerfectHashFeatureMap)features).toTable(); break;
+		default:
+			// a mapped feature map keeps its features in buffers, so it is copied into a regular map to be rewritten
+			table = MappedFeatureMap.createTable((features instanceof MappedFeatureMap) ? ((MappedFeatureMap)features).toFeatureMap() : features, strings);
+		}
+		
+		for (String label : model.getLabels())
+		{
+			bytes = label.getBytes(StandardCharsets.UTF_8);
+			for (i=0; i<4; i++) labels.write(bytes.length >>> (i*8));
+			labels.write(bytes, 0, bytes.length);
+		}
+		
+		fout.writeInt(vector.isBinaryLabel() ? 1 : 0);
+		fout.writeInt(getWeightType(vector));
+		fout.writeInt(vector.getLabelSize());
+		fout.writeInt(vector.getFeatureSize());
+		fout.writeInt(model.getLabels().length);
+		fout.writeInt(features.getTypeSize());
+		fout.writeInt(features.size());
+		fout.writeInt(table.length);
+		fout.writeInt(labels.size());
+		fout.writeInt(strings.size());
+		fout.writeInt(size);
+		fout.writeInt(featureType);
+		fout.writeInt((featureType == FEATURE_HASHED) ? ((HashedFeatureMap)features).getBits() : 0);
+		fout.writeInt(0);
+		
+		fout.write(labels.toByteArray());
+		fout.align();
+		for (int t : table) fout.writeInt(t);
+		fout.write(strings.toByteArray());
+		fout.align();
+		writeWeights(fout, vector);
+	}
+	
+	static private int getFeatureType(FeatureMap features)
+	{
+		if (features instanceof HashedFeatureMap)		return FEATURE_HASHED;
+		if (features instanceof PerfectHashFeatureMap)	return FEATURE_PERFECT;
+		return FEATURE_TABLE;
+	}
+	
+	static private int getWeightType(AbstractWeightVector vector)
+	{
+		if (!(vector instanceof QuantizedWeightVector)) return WEIGHT_FLOAT;
+		return (((QuantizedWeightVector)vector).getPrecision() == QuantizedWeightVector.Precision.FP16) ? WEIGHT_FP16 : WEIGHT_INT8;
+	}
+	
+	static private void writeWeights(Output fout, AbstractWeightVector vector) throws IOException
+	{
+		int i, size = vector.size();
+		
+		switch (getWeightType(vector))
+		{
+		case WEIGHT_INT8:
+			QuantizedWeightVector q = (QuantizedWeightVector)vector;
+			for (float f : q.getScales()) fout.writeFloat(f);
+			fout.write(q.getByteWeights());
+			break;
+		case WEIGHT_FP16:
+			for (short h : ((QuantizedWeightVector)vector).getHalfWeights()) fout.writeShort(h);
+			break;
+		default:
+			for (i=0; i<size; i++) fout.writeFloat(vector.get(i));
+		}
+	}
+	
+	/** Writes little-endian values through a buffer while counting the number of bytes written. */
+	static private class Output
+	{
+		private OutputStream f_out;
+		private ByteBuffer   b_buffer;
+		private long         n_flushed;
+		
+		public Output(OutputStream out)
+		{
+			f_out    = out;
+			b_buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		
+		public long position()
+		{
+			return n_flushed + b_buffer.position();
+		}
+		
+		public void writeInt(int i) throws IOException
+		{
+			ensure(4);
+			b_buffer.putInt(i);
+		}
+		
+		public void writeLong(long l) throws IOException
+		{
+			ensure(8);
+			b_buffer.putLong(l);
+		}
+		
+		public void writeShort(short s) throws IOException
+		{
+			ensure(2);
+			b_buffer.putShort(s);
+		}
+		
+		public void writeFloat(float f) throws IOException
+		{
+			ensure(4);
+			b_buffer.putFloat(f);
+		}
+		
+		public void write(byte[] bytes) throws IOException
+		{
+			flush();
+			f_out.write(bytes);
+			n_flushed += bytes.length;
+		}
+		
+		/** Pads zeros to the next multiple of 8 bytes. */
+		public void align() throws IOException
+		{
+			int pad = (int)(-position() & 7);
+			ensure(pad);
+			for (int i=0; i<pad; i++) b_buffer.put((byte)0);
+		}
+		
+		private void ensure(int size) throws IOException
+		{
+			if (b_buffer.remaining() < size) flush();
+		}
+		
+		public void flush() throws IOException
+		{
+			f_out.write(b_buffer.array(), 0, b_buffer.position());
+			n_flushed += b_buffer.position();
+			b_buffer.clear();
+			f_out.flush();
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
+/**
+ * An object input stream over the meta section of a {@link ModelFile} that also carries its models,
+ * so that components constructed from object input streams can load model files as they are.
+ * It can also return objects that are already loaded so that components can share them (see {@code ModelRegistry}).
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ModelInputStream extends ObjectInputStream
+{
+	private StringModel[] s_models;
+	private Object[]      o_objects;
+	private int           n_index;
+	
+	public ModelInputStream(ModelFile file) throws IOException
+	{
+		super(new ByteArrayInputStream(file.getMeta()));
+		s_models = file.getModels();
+	}
+	
+	/** Creates a stream whose {@link #readObject()} returns the specific objects in order; nothing is deserialized. */
+	public ModelInputStream(StringModel[] models, Object... objects) throws IOException
+	{
+		super();
+		s_models  = models;
+		o_objects = objects;
+		n_index   = 0;
+	}
+	
+	@Override
+	protected Object readObjectOverride() throws IOException
+	{
+		if (n_index >= o_objects.length) throw new EOFException();
+		return o_objects[n_index++];
+	}
+	
+	public StringModel[] getModels()
+	{
+		return s_models;
+	}
+}
@@ -110,4 +110,16 @@ public class SparseModel extends AbstractModel<SparseInstance,SparseFeatureVecto
 	{
 		return w_vector.getScores(x);
 	}
+	
+	@Override
+	public void getScores(SparseFeatureVector x, double[] scores)
+	{
+		w_vector.getScores(x, scores);
+	}
+	
+	@Override
+	public void getScores(SparseFeatureVector x, int[] include, double[] scores)
+	{
+		w_vector.getScores(x, scores);
+	}
 }
\ No newline at end of file
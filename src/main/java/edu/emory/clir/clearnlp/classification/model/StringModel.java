@@ -15,19 +15,27 @@
  */
 package edu.emory.clir.clearnlp.classification.model;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.List;
 
 import edu.emory.clir.clearnlp.classification.instance.IntInstance;
+import edu.emory.clir.clearnlp.classification.instance.IntInstanceStore;
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
 import edu.emory.clir.clearnlp.classification.instance.StringInstanceCollector;
+import edu.emory.clir.clearnlp.classification.instance.StringInstanceStore;
 import edu.emory.clir.clearnlp.classification.map.FeatureMap;
+import edu.emory.clir.clearnlp.classification.map.HashedFeatureMap;
 import edu.emory.clir.clearnlp.classification.map.LabelMap;
+import edu.emory.clir.clearnlp.classification.map.PerfectHashFeatureMap;
 import edu.emory.clir.clearnlp.classification.vector.AbstractWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.BinaryWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.MultiWeightVector;
 import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
 import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
+import edu.emory.clir.clearnlp.util.BinUtils;
 
 /**
  * @since 3.0.0
@@ -38,6 +46,14 @@ public class StringModel extends AbstractModel<StringInstance,StringFeatureVecto
 	private static final long serialVersionUID = -5836424308513378097L;
 	protected StringInstanceCollector i_collector;
 	protected FeatureMap m_features;
+	/** Per-thread scratch vectors without and with feature weights reused by {@link #getScores(StringFeatureVector)}. */
+	private transient ThreadLocal<SparseFeatureVector> t_vector;
+	private transient ThreadLocal<SparseFeatureVector> t_weighted;
+	/** The directory where training instances are stored if they are kept on disk; otherwise, {@code null}. */
+	private transient File d_store;
+	private transient int  n_chunkSize;
+	private transient StringInstanceStore s_collected;
+	private transient IntInstanceStore    s_vectorized;
 
 	/** Initializes this model for training. */
 	public StringModel(boolean binary)
@@ -52,9 +68,52 @@ public class StringModel extends AbstractModel<StringInstance,StringFeatureVecto
 		super(in);
 	}
 	
+	/** Initializes this model for decoding with the specific components (e.g., read from a {@link ModelFile}). */
+	public StringModel(AbstractWeightVector vector, LabelMap labels, FeatureMap features)
+	{
+		super(vector, labels);
+		init();
+		m_features = features;
+	}
+	
 	private void init()
 	{
 		i_collector = new StringInstanceCollector();
+		t_vector   = ThreadLocal.withInitial(SparseFeatureVector::new);
+		t_weighted = ThreadLocal.withInitial(() -> new SparseFeatureVector(true));
+	}
+	
+	/**
+	 * Replaces the feature map with a {@link HashedFeatureMap} of the specific number of bits; must be called before training.
+	 * Feature vectors of a hashed model are converted into weighted vectors whose features carry their hash signs.
+	 */
+	public void setFeatureHashing(int bits)
+	{
+		m_features = new HashedFeatureMap(bits);
+	}
+	
+	/** @return {@code true} if this model uses a {@link HashedFeatureMap}. */
+	public boolean isFeatureHashing()
+	{
+		return m_features instanceof HashedFeatureMap;
+	}
+	
+	/**
+	 * Keeps the training instances of this model in chunk files under the specific directory instead of heap;
+	 * must be called before instances are added. Only the label and feature counts are kept in memory during collection,
+	 * and {@link #initializeStoreForTraining(int, int)} must be used instead of {@link #initializeForTraining(int, int)}.
+	 * @param chunkSize the maximum number of instances in each chunk file.
+	 */
+	public void setInstanceStore(File directory, int chunkSize)
+	{
+		d_store     = directory;
+		n_chunkSize = chunkSize;
+	}
+	
+	/** @return {@code true} if the training instances of this model are kept on disk. */
+	public boolean isInstanceStore()
+	{
+		return d_store != null;
 	}
 	
 	/** Reinitializes the label map, the feature map, and the weight vector of this model. */
@@ -87,22 +146,114 @@ public class StringModel extends AbstractModel<StringInstance,StringFeatureVecto
 	@Override
 	public void addInstance(StringInstance instance)
 	{
-		i_collector.addInstance(instance);
+		if (d_store == null)
+		{
+			i_collector.addInstance(instance);
+			return;
+		}
+		
+		if (s_collected == null) s_collected = new StringInstanceStore(d_store, n_chunkSize);
+		i_collector.addLexica(instance);
+		s_collected.add(instance);
 	}
 
 	/** Initializes this model with the collected list of training instances. */
 	public List<IntInstance> initializeForTraining(int labelCutoff, int featureCutoff)
 	{
-		int labelSize   = m_labels  .expand(i_collector.getLabelMap()  , labelCutoff);
-		int featureSize = m_features.expand(i_collector.getFeatureMap(), featureCutoff);
-		w_vector.expand(labelSize, featureSize);
-		
+		expand(labelCutoff, featureCutoff);
 		List<IntInstance> instances = toIntInstanceList(i_collector.getInstances());
 		i_collector.init();
 		
 		return instances;
 	}
+	
+	/**
+	 * Initializes this model with the training instances collected on disk by {@link #setInstanceStore(File, int)}.
+	 * The collected instances are vectorized into a new store, which replaces (and deletes) the one created by the previous call.
+	 */
+	public IntInstanceStore initializeStoreForTraining(int labelCutoff, int featureCutoff)
+	{
+		if (d_store == null) throw new IllegalStateException("The instance store is not set.");
+		expand(labelCutoff, featureCutoff);
+		
+		if (s_vectorized != null) s_vectorized.delete();
+		s_vectorized = new IntInstanceStore(d_store, n_chunkSize);
+		IntInstance iInstance;
+		
+		if (s_collected != null)
+		{
+			s_collected.close();
+			BinUtils.LOG.info("Vectorizing: "+s_collected.size()+"\n");
+			
+			for (StringInstance instance : s_collected)
+			{
+				iInstance = toIntInstance(instance);
+				if (iInstance != null) s_vectorized.add(iInstance);
+			}
+			
+			s_collected.delete();
+			s_collected = null;
+		}
+		
+		s_vectorized.close();
+		i_collector.init();
+		return s_vectorized;
+	}
+	
+	private void expand(int labelCutoff, int featureCutoff)
+	{
+		int labelSize   = m_labels  .expand(i_collector.getLabelMap()  , labelCutoff);
+		int featureSize = m_features.expand(i_collector.getFeatureMap(), featureCutoff);
+		w_vector.expand(labelSize, featureSize);
+	}
 
+// =============================== Compaction ===============================
+	
+	/**
+	 * Removes the features whose weights across all labels have L2-norms less than or equal to the specific threshold,
+	 * and renumbers the remaining features densely; the weight vector is rebuilt as a regular weight vector.
+	 * @return the number of removed features.
+	 * @throws IllegalArgumentException if this model uses feature hashing, whose features cannot be renumbered.
+	 */
+	public int compact(double threshold)
+	{
+		if (isFeatureHashing()) throw new IllegalArgumentException("A model with feature hashing cannot be compacted.");
+		AbstractWeightVector vector = w_vector;
+		int i, j, featureSize = vector.getFeatureSize(), size = 1;
+		int labelSize = vector.isBinaryLabel() ? 1 : vector.getLabelSize();
+		int[] indices = new int[featureSize];
+		double norm, w;
+		
+		for (i=1; i<featureSize; i++)
+		{
+			norm = 0;
+			
+			for (j=0; j<labelSize; j++)
+			{
+				w = vector.get(vector.getWeightIndex(j, i));
+				norm += w * w;
+			}
+			
+			if (Math.sqrt(norm) > threshold)
+				indices[i] = size++;
+		}
+		
+		AbstractWeightVector compact = vector.isBinaryLabel() ? new BinaryWeightVector() : new MultiWeightVector();
+		compact.expand(vector.getLabelSize(), size);
+		
+		for (i=0; i<featureSize; i++)
+		{
+			if (i > 0 && indices[i] == 0) continue;
+			
+			for (j=0; j<labelSize; j++)
+				compact.set(compact.getWeightIndex(j, indices[i]), vector.get(vector.getWeightIndex(j, i)));
+		}
+		
+		m_features = m_features.renumber(indices);
+		w_vector   = compact;
+		return featureSize - size;
+	}
+	
 // =============================== Conversion ===============================
 
 	@Override
@@ -112,6 +263,8 @@ public class StringModel extends AbstractModel<StringInstance,StringFeatureVecto
 		if (label < 0) return null;
 		
 		SparseFeatureVector vector = toSparseFeatureVector(instance.getFeatureVector());
+		// colliding features are merged so that trainers see their combined values (e.g., for sums of squares)
+		if (isFeatureHashing()) vector.mergeDuplicates();
 		if (vector.isEmpty()) return null;
 		
 		return new IntInstance(label, vector);
@@ -119,9 +272,23 @@ public class StringModel extends AbstractModel<StringInstance,StringFeatureVecto
 	
 	public SparseFeatureVector toSparseFeatureVector(StringFeatureVector vector)
 	{
-		SparseFeatureVector x = new SparseFeatureVector(vector.hasWeight());
+		SparseFeatureVector x = new SparseFeatureVector(vector.hasWeight() || isFeatureHashing());
+		toSparseFeatureVector(vector, x);
+		x.trimToSize();
+		return x;
+	}
+	
+	/** Adds the indices of the features in {@code vector} to {@code x}. */
+	private void toSparseFeatureVector(StringFeatureVector vector, SparseFeatureVector x)
+	{
 		int i, index, size = vector.size();
 		
+		if (m_features instanceof HashedFeatureMap)
+		{
+			toHashedFeatureVector(vector, x, (HashedFeatureMap)m_features);
+			return;
+		}
+		
 		for (i=0; i<size; i++)
 		{
 			index = getFeatureIndex(vector, i);
@@ -134,11 +301,45 @@ public class StringModel extends AbstractModel<StringInstance,StringFeatureVecto
 					x.addFeature(index);
 			}
 		}
+	}
+	
+	/** Adds the signed hash indices of the features in {@code vector} to {@code x}, which must have weights. */
+	private void toHashedFeatureVector(StringFeatureVector vector, SparseFeatureVector x, HashedFeatureMap map)
+	{
+		int i, index, size = vector.size();
 		
-		x.trimToSize();
+		for (i=0; i<size; i++)
+		{
+			index = map.getSignedFeatureIndex(vector.getType(i), vector.getValue(i));
+			
+			if (index > 0)	x.addFeature( index,  vector.getWeight(i));
+			else			x.addFeature(-index, -vector.getWeight(i));
+		}
+	}
+	
+	/**
+	 * Converts {@code vector} into the calling thread's scratch vector without allocating any object once the scratch vector is large enough.
+	 * The returned vector is valid until the next call from the same thread.
+	 */
+	private SparseFeatureVector toScratchFeatureVector(StringFeatureVector vector)
+	{
+		SparseFeatureVector x = (vector.hasWeight() || isFeatureHashing()) ? t_weighted.get() : t_vector.get();
+		x.clear();
+		toSparseFeatureVector(vector, x);
 		return x;
 	}
 	
+	public FeatureMap getFeatureMap()
+	{
+		return m_features;
+	}
+	
+	/** Replaces the feature map of this model (e.g., with a frozen {@link PerfectHashFeatureMap} for decoding). */
+	public void setFeatureMap(FeatureMap map)
+	{
+		m_features = map;
+	}
+	
 	public int getFeatureIndex(StringFeatureVector x, int i)
 	{
 		return m_features.getFeatureIndex(x.getType(i), x.getValue(i));
@@ -149,11 +350,23 @@ public class StringModel extends AbstractModel<StringInstance,StringFeatureVecto
 	@Override
 	public double[] getScores(StringFeatureVector x)
 	{
-		return w_vector.getScores(toSparseFeatureVector(x));
+		return w_vector.getScores(toScratchFeatureVector(x));
 	}
 	
 	public double[] getScores(StringFeatureVector x, int[] include)
 	{
-		return w_vector.getScores(toSparseFeatureVector(x), include);
+		return w_vector.getScores(toScratchFeatureVector(x), include);
+	}
+	
+	@Override
+	public void getScores(StringFeatureVector x, double[] scores)
+	{
+		w_vector.getScores(toScratchFeatureVector(x), scores);
+	}
+	
+	@Override
+	public void getScores(StringFeatureVector x, int[] include, double[] scores)
+	{
+		w_vector.getScores(toScratchFeatureVector(x), include, scores);
 	}
 }
\ No newline at end of file
@@ -24,7 +24,7 @@ import edu.emory.clir.clearnlp.classification.model.StringModel;
  */
 abstract public class AbstractAdaGrad extends AbstractOnlineTrainer
 {
-	protected double[] d_gradients;
+	protected AccumulatorArray a_gradients;
 	protected double   d_alpha;
 	protected double   d_rho;
 	protected double   d_bias;
@@ -51,26 +51,66 @@ abstract public class AbstractAdaGrad extends AbstractOnlineTrainer
 	
 	private void init(double alpha, double rho, double bias)
 	{
-		d_gradients = new double[w_vector.size()];
+		a_gradients = new AccumulatorArray(w_vector.size(), false);
 		d_alpha     = alpha;
 		d_rho       = rho;
 		d_bias      = bias;
 	}
 	
+	@Override
+	public void setSinglePrecision(boolean singlePrecision)
+	{
+		super.setSinglePrecision(singlePrecision);
+		a_gradients = new AccumulatorArray(w_vector.size(), singlePrecision);
+	}
+	
+	@Override
+	protected AbstractOnlineTrainer copy()
+	{
+		AbstractAdaGrad trainer = (AbstractAdaGrad)super.copy();
+		trainer.a_gradients = a_gradients.copy();
+		return trainer;
+	}
+	
+	/** Also adds the gradients accumulated by all shards so that the learning rates decay as if the epoch were trained sequentially. */
+	@Override
+	protected void mix(AbstractOnlineTrainer[] shards)
+	{
+		super.mix(shards);
+		AccumulatorArray g, gradients = a_gradients.copy();
+		int i, p, end;
+		
+		for (AbstractOnlineTrainer shard : shards)
+		{
+			g = ((AbstractAdaGrad)shard).a_gradients;
+			
+			for (p=0; p<g.getPageSize(); p++)
+			{
+				if (g.isAllocated(p))
+				{
+					for (i=g.getBeginIndex(p), end=g.getEndIndex(p); i<end; i++)
+						gradients.add(i, g.get(i) - a_gradients.get(i));
+				}
+			}
+		}
+		
+		a_gradients = gradients;
+	}
+	
 	protected void updateWeight(int weightIndex, double v, int averageCount)
 	{
 		double cost = getCost(weightIndex) * v;
 		w_vector.add(weightIndex, (float)cost);
-		if (average()) d_average[weightIndex] += cost * averageCount;
+		if (average()) a_average.add(weightIndex, cost * averageCount);
 	}
 	
 	private double getCost(int weightIndex)
 	{
-		return d_alpha / (d_rho + Math.sqrt(d_gradients[weightIndex]));
+		return d_alpha / (d_rho + Math.sqrt(a_gradients.get(weightIndex)));
 	}
 
 	protected String getTrainerInfo(String type)
 	{
-		return String.format("AdaGrad-%s: alpha = %4.3f, rho = %4.3f, rho = %4.3f, average = %b", type, d_alpha, d_rho, d_bias, average());
+		return String.format("AdaGrad-%s: alpha = %4.3f, rho = %4.3f, rho = %4.3f, average = %b, threads = %d, shards = %d, single precision = %b", type, d_alpha, d_rho, d_bias, average(), n_threads, n_shards, a_gradients.isSinglePrecision());
 	}
 }
\ No newline at end of file
@@ -52,6 +52,6 @@ abstract public class AbstractLiblinear extends AbstractOneVsAllTrainer
 	
 	public String trainerInfo(String type)
 	{
-		return String.format("Liblinear-%s: cost = %4.3f, eps = %4.3f, bias = %b", type, d_cost, d_eps, d_bias);
+		return String.format("Liblinear-%s: cost = %4.3f, eps = %4.3f, bias = %4.3f, threads = %d", type, d_cost, d_eps, d_bias, n_threads);
 	}
 }
\ No newline at end of file
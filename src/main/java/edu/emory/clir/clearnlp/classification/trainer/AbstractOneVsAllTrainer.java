@@ -41,10 +41,14 @@ abstract public class AbstractOneVsAllTrainer extends AbstractTrainer
 		setNumberOfThreads(numThreads);
 	}
 	
-	/** @param numThreads the number of threads. */
+	/**
+	 * @param numThreads the number of threads.
+	 * @throws UnsupportedOperationException if the model keeps its instances in an instance store, which one-vs-all trainers cannot access by index.
+	 */
 	public AbstractOneVsAllTrainer(StringModel model, int labelCutoff, int featureCutoff, int numThreads)
 	{
 		super(TrainerType.ONE_VS_ALL, model, labelCutoff, featureCutoff);
+		if (s_store != null) throw new UnsupportedOperationException("One-vs-all trainers do not support instance stores.");
 		setNumberOfThreads(numThreads);
 	}
 	
@@ -15,9 +15,14 @@
  */
 package edu.emory.clir.clearnlp.classification.trainer;
 
-import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import edu.emory.clir.clearnlp.classification.instance.AbstractInstanceStore;
 import edu.emory.clir.clearnlp.classification.instance.IntInstance;
 import edu.emory.clir.clearnlp.classification.model.SparseModel;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
@@ -28,10 +33,13 @@ import edu.emory.clir.clearnlp.util.MathUtils;
  * @since 3.0.0
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
-abstract public class AbstractOnlineTrainer extends AbstractTrainer
+abstract public class AbstractOnlineTrainer extends AbstractTrainer implements Cloneable
 {
-	protected double[] d_average;
+	protected AccumulatorArray a_average;
 	protected Random   r_rand;
+	protected int      n_threads;
+	protected int      n_shards;
+	protected int      n_bufferSize;
 	
 	/** @param average if {@code true}, weights are averaged. */
 	public AbstractOnlineTrainer(SparseModel model, boolean average)
@@ -49,35 +57,280 @@ abstract public class AbstractOnlineTrainer extends AbstractTrainer
 
 	private void init(boolean average)
 	{
-		d_average = average ? new double[w_vector.size()] : null;
+		a_average = average ? new AccumulatorArray(w_vector.size(), false) : null;
 		r_rand = new Random(RANDOM_SEED);
+		n_threads = 1;
+		n_shards  = 1;
+		n_bufferSize = AbstractInstanceStore.DEFAULT_BUFFER_SIZE;
+	}
+	
+	/**
+	 * If the number of threads is greater than 1, each epoch is trained in parallel (Hogwild!):
+	 * the shuffled instances are split into disjoint shards, one per thread, and all threads update
+	 * the shared weights, gradients, and averages without locks so that concurrent updates can be lost.
+	 * For averaging, updates are counted by a shared step counter in the order they are applied.
+	 * Otherwise, instances are updated sequentially in the same order as before so that the results are reproducible.
+	 */
+	public void setNumberOfThreads(int numThreads)
+	{
+		n_threads = numThreads;
+	}
+	
+	public int getNumberOfThreads()
+	{
+		return n_threads;
+	}
+
+	/**
+	 * If the number of shards is greater than 1, each epoch is trained by iterative parameter mixing:
+	 * the shuffled instances are split into the shards, each shard is trained in parallel on its own copy of
+	 * the weights and trainer states, and their updates are mixed by {@link #mix(AbstractOnlineTrainer[])} after the epoch.
+	 * Unlike {@link #setNumberOfThreads(int)}, the results are deterministic, but each shard takes as much memory as the weights and states.
+	 */
+	public void setNumberOfShards(int numShards)
+	{
+		n_shards = numShards;
+	}
+	
+	public int getNumberOfShards()
+	{
+		return n_shards;
+	}
+	
+	/**
+	 * Sets the number of instances buffered to shuffle the instances streamed from an instance store;
+	 * the larger the buffer, the closer the order is to a full shuffle.
+	 */
+	public void setShuffleBufferSize(int bufferSize)
+	{
+		n_bufferSize = bufferSize;
+	}
+	
+	/** If {@code true}, the accumulators of this trainer are stored as floats, which takes half the memory; must be called before training. */
+	public void setSinglePrecision(boolean singlePrecision)
+	{
+		if (average()) a_average = new AccumulatorArray(w_vector.size(), singlePrecision);
 	}
 
 	public void train()
 	{	
-		if (average()) Arrays.fill(d_average, 0);
+		if (s_store != null)
+		{
+			trainStore();
+			return;
+		}
+		
 		DSUtils.shuffle(l_instances, r_rand);
-		int i, size = getInstanceSize();
+		int size = getInstanceSize();
 		
-		for (i=0; i<size; i++)
-			update(getInstance(i), i+1);
+		if (n_shards > 1 && size > n_shards)
+			trainMixed(size);
+		else
+			train(0, size);
+	}
+	
+	/** Trains an epoch over the instances in {@code [beginIndex, endIndex)} of the shuffled list. */
+	private void train(int beginIndex, int endIndex)
+	{
+		if (average()) a_average.clear();
+		
+		if (n_threads > 1 && endIndex - beginIndex > n_threads)
+			trainParallel(beginIndex, endIndex);
+		else
+			update(beginIndex, endIndex, new AtomicInteger());
 		
 		if (average())
-			setAverageWeights(size+1);
+			setAverageWeights(endIndex - beginIndex + 1);
+	}
+	
+	/**
+	 * Updates the instances in {@code [beginIndex, endIndex)} of the shuffled list.
+	 * @param steps the number of updates applied so far in the epoch, shared by all threads to count updates for averaging.
+	 */
+	private void update(int beginIndex, int endIndex, AtomicInteger steps)
+	{
+		for (int i=beginIndex; i<endIndex; i++)
+			update(getInstance(i), steps.incrementAndGet());
+	}
+	
+	private void trainParallel(int beginIndex, int endIndex)
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(n_threads);
+		int i, shard = (endIndex - beginIndex + n_threads - 1) / n_threads;
+		AtomicInteger steps = new AtomicInteger();
+		
+		for (i=beginIndex; i<endIndex; i+=shard)
+		{
+			final int b = i, e = Math.min(i+shard, endIndex);
+			executor.execute(() -> update(b, e, steps));
+		}
+		
+		awaitTermination(executor);
+	}
+	
+	private void trainMixed(int size)
+	{
+		AbstractOnlineTrainer[] shards = new AbstractOnlineTrainer[n_shards];
+		ExecutorService executor = Executors.newFixedThreadPool(n_shards);
+		int k, shard = (size + n_shards - 1) / n_shards;
+		
+		for (k=0; k<n_shards; k++)
+		{
+			final AbstractOnlineTrainer trainer = shards[k] = copy();
+			final int b = Math.min(k*shard, size), e = Math.min(b+shard, size);
+			executor.execute(() -> trainer.train(b, e));
+		}
+		
+		awaitTermination(executor);
+		mix(shards);
+	}
+	
+	private void awaitTermination(ExecutorService executor)
+	{
+		executor.shutdown();
+		
+		try
+		{
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+		catch (InterruptedException e) {e.printStackTrace();}
+	}
+	
+	/**
+	 * Trains an epoch by streaming the instance store in a shuffled order.
+	 * For threads and shards, the chunks of the store rather than instances are split round-robin.
+	 */
+	private void trainStore()
+	{
+		int size = s_store.getChunkSize();
+		int[] chunks = DSUtils.range(size);
+		
+		if (n_shards > 1 && size > 1)
+			trainStoreMixed(chunks, Math.min(n_shards, size));
+		else
+			trainStore(chunks, r_rand);
+	}
+	
+	private void trainStore(int[] chunks, Random rand)
+	{
+		if (average()) a_average.clear();
+		int count;
+		
+		if (n_threads > 1 && chunks.length > 1)
+			count = trainStoreParallel(chunks, rand, Math.min(n_threads, chunks.length));
+		else
+			count = update(s_store.iterator(chunks, rand, n_bufferSize), new AtomicInteger());
+		
+		if (average())
+			setAverageWeights(count + 1);
+	}
+	
+	/**
+	 * Updates the instances from the specific iterator.
+	 * @param steps the number of updates applied so far in the epoch, shared by all threads to count updates for averaging.
+	 * @return the number of updates applied in the epoch.
+	 */
+	private int update(Iterator<IntInstance> it, AtomicInteger steps)
+	{
+		while (it.hasNext())
+			update(it.next(), steps.incrementAndGet());
+		
+		return steps.get();
+	}
+	
+	private int trainStoreParallel(int[] chunks, Random rand, int numThreads)
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		AtomicInteger steps = new AtomicInteger();
+		
+		for (int t=0; t<numThreads; t++)
+		{
+			final int[] c = getChunks(chunks, t, numThreads);
+			final Random r = new Random(rand.nextLong());
+			executor.execute(() -> update(s_store.iterator(c, r, n_bufferSize / numThreads), steps));
+		}
+		
+		awaitTermination(executor);
+		return steps.get();
+	}
+	
+	private void trainStoreMixed(int[] chunks, int numShards)
+	{
+		AbstractOnlineTrainer[] shards = new AbstractOnlineTrainer[numShards];
+		ExecutorService executor = Executors.newFixedThreadPool(numShards);
+		
+		for (int k=0; k<numShards; k++)
+		{
+			final AbstractOnlineTrainer trainer = shards[k] = copy();
+			final int[] c = getChunks(chunks, k, numShards);
+			final Random rand = new Random(r_rand.nextLong());
+			trainer.n_bufferSize = n_bufferSize / numShards;
+			executor.execute(() -> trainer.trainStore(c, rand));
+		}
+		
+		awaitTermination(executor);
+		mix(shards);
+	}
+	
+	/** @return every {@code gap}'th chunk starting from the {@code beginIndex}'th one. */
+	private int[] getChunks(int[] chunks, int beginIndex, int gap)
+	{
+		int[] indices = DSUtils.range(beginIndex, chunks.length, gap);
+		for (int i=0; i<indices.length; i++) indices[i] = chunks[indices[i]];
+		return indices;
+	}
+	
+	/** @return a copy of this trainer that shares the instances but has its own weights, averages, and states, and trains sequentially. */
+	protected AbstractOnlineTrainer copy()
+	{
+		try
+		{
+			AbstractOnlineTrainer trainer = (AbstractOnlineTrainer)clone();
+			trainer.w_vector  = w_vector.copy();
+			trainer.a_average = average() ? new AccumulatorArray(a_average.size(), a_average.isSinglePrecision()) : null;
+			trainer.n_threads = 1;
+			trainer.n_shards  = 1;
+			return trainer;
+		}
+		catch (CloneNotSupportedException e) {throw new IllegalStateException(e);}
+	}
+	
+	/**
+	 * Adds the updates made by the specific shards in their order to the weights of this trainer.
+	 * Summing instead of averaging the weights of the shards keeps the step size of an epoch independent of the number of shards.
+	 */
+	protected void mix(AbstractOnlineTrainer[] shards)
+	{
+		int i, size = w_vector.size();
+		double w, sum;
+		
+		for (i=0; i<size; i++)
+		{
+			sum = w = w_vector.get(i);
+			for (AbstractOnlineTrainer shard : shards) sum += shard.w_vector.get(i) - w;
+			w_vector.set(i, (float)sum);
+		}
 	}
 	
 	protected boolean average()
 	{
-		return d_average != null;
+		return a_average != null;
 	}
 	
+	/** Subtracts the count-weighted sums of the updates from the weights, visiting only the weights that have been updated. */
 	private void setAverageWeights(int count)
 	{
 		double c = -MathUtils.reciprocal(count);
-		int i, size = w_vector.size();
+		int i, p, end, size = a_average.getPageSize();
 		
-		for (i=0; i<size; i++)
-			w_vector.add(i, (float)(c*d_average[i]));
+		for (p=0; p<size; p++)
+		{
+			if (a_average.isAllocated(p))
+			{
+				for (i=a_average.getBeginIndex(p), end=a_average.getEndIndex(p); i<end; i++)
+					w_vector.add(i, (float)(c*a_average.get(i)));
+			}
+		}
 	}
 	
 	abstract protected boolean update(IntInstance instance, int averageCount);
@@ -18,6 +18,8 @@ package edu.emory.clir.clearnlp.classification.trainer;
 import java.util.List;
 
 import edu.emory.clir.clearnlp.classification.instance.IntInstance;
+import edu.emory.clir.clearnlp.classification.instance.IntInstanceStore;
+import edu.emory.clir.clearnlp.classification.map.HashedFeatureMap;
 import edu.emory.clir.clearnlp.classification.model.SparseModel;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
 import edu.emory.clir.clearnlp.classification.vector.AbstractWeightVector;
@@ -31,7 +33,11 @@ abstract public class AbstractTrainer
 	protected final int RANDOM_SEED = 5; 
 	protected final TrainerType t_type;
 	protected List<IntInstance> l_instances;
+	/** The instances on disk if the model keeps them in an instance store; otherwise, {@code null}. */
+	protected IntInstanceStore  s_store;
 	volatile protected AbstractWeightVector w_vector;
+	/** The number of colliding features if the model uses feature hashing; otherwise, {@code -1}. */
+	protected int n_collisions = -1;
 
 	public AbstractTrainer(TrainerType type, SparseModel model)
 	{
@@ -42,9 +48,14 @@ abstract public class AbstractTrainer
 	
 	public AbstractTrainer(TrainerType type, StringModel model, int labelCutoff, int featureCutoff)
 	{
-		l_instances = model.initializeForTraining(labelCutoff, featureCutoff);
+		if (model.isInstanceStore())
+			s_store = model.initializeStoreForTraining(labelCutoff, featureCutoff);
+		else
+			l_instances = model.initializeForTraining(labelCutoff, featureCutoff);
+		
 		w_vector    = model.getWeightVector();
 		t_type      = type;
+		if (model.isFeatureHashing()) n_collisions = ((HashedFeatureMap)model.getFeatureMap()).getCollisionSize();
 	}
 	
 	public String trainerInfoFull()
@@ -54,6 +65,7 @@ abstract public class AbstractTrainer
 		build.append(trainerInfo());	build.append("\n");
 		build.append("- Labels   : ");	build.append(getLabelSize());		build.append("\n");
 		build.append("- Features : ");	build.append(getFeatureSize());		build.append("\n");
+		if (n_collisions >= 0) {build.append("- Collisions: ");	build.append(n_collisions);	build.append("\n");}
 		build.append("- Instances: ");	build.append(getInstanceSize());
 		
 		return build.toString();
@@ -74,11 +86,13 @@ abstract public class AbstractTrainer
 	
 	public int getInstanceSize()
 	{
-		return l_instances.size();
+		return (s_store != null) ? s_store.size() : l_instances.size();
 	}
 	
+	/** @throws UnsupportedOperationException if the instances are in an instance store, which can only be streamed. */
 	public IntInstance getInstance(int index)
 	{
+		if (s_store != null) throw new UnsupportedOperationException("Instances in an instance store cannot be accessed by index.");
 		return l_instances.get(index);
 	}
 	
@@ -0,0 +1,176 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.trainer;
+
+import java.util.Arrays;
+
+/**
+ * An array of accumulators parallel to a weight vector whose pages are allocated when they are first updated,
+ * so that its memory and sweeps scale with the weights that have been updated rather than the whole label-by-feature matrix.
+ * Accumulators are stored in either double or single precision; the latter takes half the memory.
+ * Pages are allocated under a lock so that no update is lost by concurrent allocations.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class AccumulatorArray
+{
+	static public final int PAGE_BITS = 10;
+	static public final int PAGE_SIZE = 1 << PAGE_BITS;
+	static private final int PAGE_MASK = PAGE_SIZE - 1;
+	
+	private double[][] d_pages;
+	private float [][] f_pages;
+	private int n_size;
+	
+	/**
+	 * @param size the number of accumulators.
+	 * @param singlePrecision if {@code true}, accumulators are stored as floats.
+	 */
+	public AccumulatorArray(int size, boolean singlePrecision)
+	{
+		int pages = (size + PAGE_MASK) >>> PAGE_BITS;
+		n_size = size;
+		
+		if (singlePrecision)	f_pages = new float [pages][];
+		else					d_pages = new double[pages][];
+	}
+	
+	public double get(int index)
+	{
+		int p = index >>> PAGE_BITS;
+		
+		if (d_pages != null)
+		{
+			double[] page = d_pages[p];
+			return (page != null) ? page[index & PAGE_MASK] : 0;
+		}
+		else
+		{
+			float[] page = f_pages[p];
+			return (page != null) ? page[index & PAGE_MASK] : 0;
+		}
+	}
+	
+	public void add(int index, double value)
+	{
+		int p = index >>> PAGE_BITS;
+		
+		if (d_pages != null)
+		{
+			double[] page = d_pages[p];
+			if (page == null) page = allocateDoublePage(p);
+			page[index & PAGE_MASK] += value;
+		}
+		else
+		{
+			float[] page = f_pages[p];
+			if (page == null) page = allocateFloatPage(p);
+			page[index & PAGE_MASK] += value;
+		}
+	}
+	
+	private synchronized double[] allocateDoublePage(int p)
+	{
+		if (d_pages[p] == null) d_pages[p] = new double[PAGE_SIZE];
+		return d_pages[p];
+	}
+	
+	private synchronized float[] allocateFloatPage(int p)
+	{
+		if (f_pages[p] == null) f_pages[p] = new float[PAGE_SIZE];
+		return f_pages[p];
+	}
+	
+	/** Sets all accumulators to 0, keeping the allocated pages for reuse. */
+	public void clear()
+	{
+		if (d_pages != null)
+		{
+			for (double[] page : d_pages)
+				if (page != null) Arrays.fill(page, 0);
+		}
+		else
+		{
+			for (float[] page : f_pages)
+				if (page != null) Arrays.fill(page, 0);
+		}
+	}
+	
+	/** @return {@code true} if the specific page has been allocated. */
+	public boolean isAllocated(int page)
+	{
+		return (d_pages != null) ? d_pages[page] != null : f_pages[page] != null;
+	}
+	
+	/** @return the index of the first accumulator in the specific page. */
+	public int getBeginIndex(int page)
+	{
+		return page << PAGE_BITS;
+	}
+	
+	/** @return the index after the last accumulator in the specific page. */
+	public int getEndIndex(int page)
+	{
+		return Math.min((page + 1) << PAGE_BITS, n_size);
+	}
+	
+	public int getPageSize()
+	{
+		return (d_pages != null) ? d_pages.length : f_pages.length;
+	}
+	
+	/** @return the number of allocated pages. */
+	public int getAllocatedPageSize()
+	{
+		int p, count = 0;
+		
+		for (p=getPageSize()-1; p>=0; p--)
+			if (isAllocated(p)) count++;
+		
+		return count;
+	}
+	
+	public int size()
+	{
+		return n_size;
+	}
+	
+	public boolean isSinglePrecision()
+	{
+		return d_pages == null;
+	}
+	
+	/** @return a deep copy of this array. */
+	public AccumulatorArray copy()
+	{
+		AccumulatorArray array = new AccumulatorArray(n_size, isSinglePrecision());
+		int p, size = getPageSize();
+		
+		for (p=0; p<size; p++)
+		{
+			if (d_pages != null)
+			{
+				if (d_pages[p] != null) array.d_pages[p] = d_pages[p].clone();
+			}
+			else
+			{
+				if (f_pages[p] != null) array.f_pages[p] = f_pages[p].clone();
+			}
+		}
+		
+		return array;
+	}
+}
@@ -97,7 +97,7 @@ public class AdaGradLR extends AbstractAdaGrad
 		int j, lsize = w_vector.getLabelSize();
 		
 		for (j=0; j<lsize; j++)
-			d_gradients[w_vector.getWeightIndex(j, xi)] += vi * g[j];
+			a_gradients.add(w_vector.getWeightIndex(j, xi), vi * g[j]);
 	}
 	
 	private void updateWeights(IntInstance instance, double[] gradients, int averageCount)
@@ -90,12 +90,12 @@ public class RRM extends AbstractAdaGrad
 	{
 		if (w_vector.isBinaryLabel())
 		{
-			d_gradients[xi] += vi;
+			a_gradients.add(xi, vi);
 		}
 		else
 		{
-			d_gradients[w_vector.getWeightIndex(yp, xi)] += vi;
-			d_gradients[w_vector.getWeightIndex(yn, xi)] += vi;
+			a_gradients.add(w_vector.getWeightIndex(yp, xi), vi);
+			a_gradients.add(w_vector.getWeightIndex(yn, xi), vi);
 		}
 	}
 	
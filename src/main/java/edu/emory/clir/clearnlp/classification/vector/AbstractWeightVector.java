@@ -48,13 +48,17 @@ abstract public class AbstractWeightVector implements Serializable
 	
 	/** Expands the weight vector size with more labels and features. */
 	abstract public void expand(int labelSize, int featureSize);
-	/** @return the array of scores of all labels given the feature vector. */
-	abstract public double[] getScores(SparseFeatureVector x);
 	/**
-	 * @param include get scores for only these indices.
-	 * @return the array of scores of all labels given the feature vector.
+	 * Puts the scores of all labels given the feature vector to the specific buffer without allocating any object.
+	 * @param scores the buffer whose length is at least {@link #getScoreSize()}.
 	 */
-	abstract public double[] getScores(SparseFeatureVector x, int[] include);
+	abstract public void getScores(SparseFeatureVector x, double[] scores);
+	/**
+	 * Puts the scores of all labels given the feature vector to the specific buffer without allocating any object.
+	 * @param include get scores for only these indices; the scores of the others are unspecified.
+	 * @param scores the buffer whose length is at least {@link #getScoreSize()}.
+	 */
+	abstract public void getScores(SparseFeatureVector x, int[] include, double[] scores);
 	/**
 	 * @return the index of the weight vector given the label and feature indices.
 	 * If this is a binary model, returns the {@code featureIndex}.
@@ -65,6 +69,31 @@ abstract public class AbstractWeightVector implements Serializable
 	/** Sets the weight vector of the specific label. */
 	abstract public void setWeights(int labelIndex, float[] weights);
 	
+	/** @return the array of scores of all labels given the feature vector. */
+	public double[] getScores(SparseFeatureVector x)
+	{
+		double[] scores = new double[getScoreSize()];
+		getScores(x, scores);
+		return scores;
+	}
+	
+	/**
+	 * @param include get scores for only these indices.
+	 * @return the array of scores of all labels given the feature vector.
+	 */
+	public double[] getScores(SparseFeatureVector x, int[] include)
+	{
+		double[] scores = new double[getScoreSize()];
+		getScores(x, include, scores);
+		return scores;
+	}
+	
+	/** @return the number of scores given by {@link #getScores(SparseFeatureVector)}; 2 if this is a binary model. */
+	public int getScoreSize()
+	{
+		return b_binary ? 2 : n_labels;
+	}
+	
 	public int getLabelSize()
 	{
 		return n_labels;
@@ -97,12 +126,12 @@ abstract public class AbstractWeightVector implements Serializable
 	
 	public void add(int weightIndex, float value)
 	{
-		f_weights.set(weightIndex, f_weights.get(weightIndex)+value);
+		f_weights.buffer[weightIndex] += value;
 	}
 	
 	public void multiply(int weightIndex, float value)
 	{
-		f_weights.set(weightIndex, f_weights.get(weightIndex)*value);
+		f_weights.buffer[weightIndex] *= value;
 	}
 	
 	public void add(int labelIndex, int featureIndex, float value)
@@ -140,6 +169,54 @@ abstract public class AbstractWeightVector implements Serializable
 		f_weights = weights;
 	}
 	
+	/** @return a copy of this vector as a regular weight vector whose weights are not shared with this vector. */
+	public AbstractWeightVector copy()
+	{
+		AbstractWeightVector vector = b_binary ? new BinaryWeightVector() : new MultiWeightVector();
+		vector.setWeights(cloneWeights());
+		vector.n_labels   = n_labels;
+		vector.n_features = n_features;
+		return vector;
+	}
+	
+//	====================================== KERNELS ======================================
+	
+	/**
+	 * @return the backing array of the weights, whose length can be greater than {@link #size()};
+	 * the array is replaced whenever the weight vector grows, so it should not be kept across calls.
+	 */
+	protected float[] getWeightArray()
+	{
+		return f_weights.buffer;
+	}
+	
+	/**
+	 * Adds the specific row of weights, {@code weights[offset, offset+size)}, multiplied by {@code x} to {@code scores[0, size)}.
+	 * The loops are kept free of calls and branches so that the JIT can unroll and vectorize them.
+	 */
+	static protected void addScores(float[] weights, int offset, double x, double[] scores, int size)
+	{
+		int j;
+		
+		if (x == 1)
+		{
+			for (j=0; j<size; j++)
+				scores[j] += weights[offset+j];
+		}
+		else
+		{
+			for (j=0; j<size; j++)
+				scores[j] += weights[offset+j] * x;
+		}
+	}
+	
+	/** Adds the weights of the included labels in the specific row multiplied by {@code x} to their scores. */
+	static protected void addScores(float[] weights, int offset, double x, double[] scores, int[] include)
+	{
+		for (int j : include)
+			scores[j] += weights[offset+j] * x;
+	}
+	
 	public double[] getScores(SparseFeatureVector x, boolean normalize)
 	{
 		double[] scores = getScores(x);
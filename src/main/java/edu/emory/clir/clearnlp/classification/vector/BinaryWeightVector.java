@@ -50,29 +50,28 @@ public class BinaryWeightVector extends AbstractWeightVector implements Serializ
 	}
 	
 	@Override
-	public double[] getScores(SparseFeatureVector x)
+	public void getScores(SparseFeatureVector x, double[] scores)
 	{
 		int i, index, len = x.size();
-		double score = get(0);
+		float[] weights = getWeightArray();
+		double score = weights[0];
 		
 		for (i=0; i<len; i++)
 		{
 			index = x.getIndex(i);
 			
 			if (isValidFeatureIndex(index))
-				score += get(index) * x.getWeight(i);
+				score += weights[index] * x.getWeight(i);
 		}
 		
-		double[]  scores = new double[2];
 		scores[POSITIVE] =  score;
 		scores[NEGATIVE] = -score;
-		return scores;
 	}
 	
 	@Override
-	public double[] getScores(SparseFeatureVector x, int[] include)
+	public void getScores(SparseFeatureVector x, int[] include, double[] scores)
 	{
-		return getScores(x);
+		getScores(x, scores);
 	}
 	
 	@Override
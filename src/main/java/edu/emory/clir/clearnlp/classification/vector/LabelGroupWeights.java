@@ -0,0 +1,189 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.vector;
+
+import java.util.Arrays;
+
+/**
+ * A read-only copy of the weights of {@link MultiWeightVector} whose labels are permuted so that the labels of each group
+ * occupy a few contiguous ranges in every feature row; scoring a group reads only the weights of its labels.
+ * Labels that belong to the same groups are placed next to each other, so each group spans at most as many ranges
+ * as there are distinct combinations of group memberships.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class LabelGroupWeights
+{
+	static public final int MAX_GROUPS = 32;
+	
+	private int[][] g_groups;
+	/** The pairs of [begin, end) positions of the labels in each group. */
+	private int[][] g_ranges;
+	/** The label index of each position in a row. */
+	private int[]   p_labels;
+	private float[] f_weights;
+	private int     n_labels;
+	private int     n_features;
+	/** The scores of the labels in the order of their positions. */
+	private ThreadLocal<double[]> t_scores;
+	
+	/**
+	 * @param weights the weights in the layout of {@link MultiWeightVector}, [feature][label].
+	 * @param groups the label indices of each group.
+	 */
+	public LabelGroupWeights(float[] weights, int labelSize, int featureSize, int[][] groups)
+	{
+		if (groups.length > MAX_GROUPS) throw new IllegalArgumentException("Too many label groups: "+groups.length);
+		g_groups   = groups;
+		n_labels   = labelSize;
+		n_features = featureSize;
+		p_labels   = initPositions(groups);
+		g_ranges   = initRanges(groups);
+		f_weights  = new float[labelSize * featureSize];
+		t_scores   = ThreadLocal.withInitial(() -> new double[labelSize]);
+		
+		int i, p, offset;
+		
+		for (i=0; i<featureSize; i++)
+		{
+			offset = i * labelSize;
+			
+			for (p=0; p<labelSize; p++)
+				f_weights[offset+p] = weights[offset+p_labels[p]];
+		}
+	}
+	
+	/** @return the label indices sorted by their group memberships. */
+	private int[] initPositions(int[][] groups)
+	{
+		int[] members = new int[n_labels];
+		long[] keys = new long[n_labels];
+		int i, g;
+		
+		for (g=0; g<groups.length; g++)
+			for (int label : groups[g]) members[label] |= 1 << g;
+		
+		// the memberships in the top 32 bits, the label index in the bottom 32 bits
+		for (i=0; i<n_labels; i++)
+			keys[i] = ((long)members[i] << 32) | i;
+		
+		Arrays.sort(keys);
+		int[] labels = new int[n_labels];
+		for (i=0; i<n_labels; i++) labels[i] = (int)keys[i];
+		return labels;
+	}
+	
+	private int[][] initRanges(int[][] groups)
+	{
+		int[][] ranges = new int[groups.length][];
+		boolean[] member = new boolean[n_labels];
+		int g, p, n, begin;
+		
+		for (g=0; g<groups.length; g++)
+		{
+			Arrays.fill(member, false);
+			for (int label : groups[g]) member[label] = true;
+			int[] r = new int[n_labels + 1];
+			
+			for (p=n=0; p<n_labels; p++)
+			{
+				if (!member[p_labels[p]]) continue;
+				for (begin=p; p+1<n_labels && member[p_labels[p+1]]; p++);
+				r[n++] = begin;
+				r[n++] = p + 1;
+			}
+			
+			ranges[g] = Arrays.copyOf(r, n);
+		}
+		
+		return ranges;
+	}
+	
+	/** @return the index of the group that is the specific array, or -1 if none. */
+	public int getGroupIndex(int[] include)
+	{
+		for (int g=0; g<g_groups.length; g++)
+			if (g_groups[g] == include) return g;
+		
+		return -1;
+	}
+	
+	public int[][] getGroups()
+	{
+		return g_groups;
+	}
+	
+	/** @return the number of contiguous ranges that the labels of the specific group occupy in each row. */
+	public int getRangeSize(int group)
+	{
+		return g_ranges[group].length / 2;
+	}
+	
+	/** Puts the scores of the labels in the specific group to the buffer; the scores of the other labels are not touched. */
+	public void getScores(SparseFeatureVector x, int group, double[] scores)
+	{
+		double[] buffer = t_scores.get();
+		float[] weights = f_weights;
+		int[] ranges = g_ranges[group];
+		int i, j, p, end, index, len = x.size();
+		double d;
+		
+		for (j=0; j<ranges.length; j+=2)
+			for (p=ranges[j], end=ranges[j+1]; p<end; p++)
+				buffer[p] = weights[p];
+		
+		for (i=0; i<len; i++)
+		{
+			index = x.getIndex(i);
+			
+			if (0 < index && index < n_features)
+			{
+				index *= n_labels;
+				d = x.getWeight(i);
+				
+				// most groups occupy a single range
+				if (ranges.length == 2)
+					addScores(weights, index, d, buffer, ranges[0], ranges[1]);
+				else
+				{
+					for (j=0; j<ranges.length; j+=2)
+						addScores(weights, index, d, buffer, ranges[j], ranges[j+1]);
+				}
+			}
+		}
+		
+		for (j=0; j<ranges.length; j+=2)
+			for (p=ranges[j], end=ranges[j+1]; p<end; p++)
+				scores[p_labels[p]] = buffer[p];
+	}
+	
+	/** Adds {@code weights[offset+begin, offset+end)} multiplied by {@code x} to {@code scores[begin, end)}. */
+	static private void addScores(float[] weights, int offset, double x, double[] scores, int begin, int end)
+	{
+		int p;
+		
+		if (x == 1)
+		{
+			for (p=begin; p<end; p++)
+				scores[p] += weights[offset+p];
+		}
+		else
+		{
+			for (p=begin; p<end; p++)
+				scores[p] += weights[offset+p] * x;
+		}
+	}
+}
@@ -0,0 +1,229 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.vector;
+
+import java.nio.FloatBuffer;
+
+import edu.emory.clir.clearnlp.collection.list.FloatArrayList;
+
+/**
+ * A read-only weight vector over a float buffer (e.g., memory-mapped from a model file) with the same layout as
+ * {@link MultiWeightVector} or {@link BinaryWeightVector}, which gives the same scores without copying the weights.
+ * This vector is serialized as a regular weight vector.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class MappedWeightVector extends AbstractWeightVector
+{
+	private static final long serialVersionUID = 4419163460580125519L;
+	private transient FloatBuffer b_weights;
+	/** Per-thread views of the weights and buffers into which the weights of each feature are read at once. */
+	private transient ThreadLocal<FloatBuffer> t_weights;
+	private transient ThreadLocal<float[]> t_row;
+	
+	public MappedWeightVector(FloatBuffer weights, boolean binary, int labelSize, int featureSize)
+	{
+		super(binary);
+		b_weights  = weights;
+		n_labels   = labelSize;
+		n_features = featureSize;
+		t_weights  = ThreadLocal.withInitial(() -> b_weights.duplicate());
+		t_row      = ThreadLocal.withInitial(() -> new float[n_labels]);
+	}
+	
+	@Override
+	public void expand(int labelSize, int featureSize)
+	{
+		throw new UnsupportedOperationException("A mapped weight vector is read-only.");
+	}
+
+//	====================================== SCORES ======================================
+	
+	@Override
+	public void getScores(SparseFeatureVector x, double[] scores)
+	{
+		getScores(x, null, scores);
+	}
+	
+	@Override
+	public void getScores(SparseFeatureVector x, int[] include, double[] scores)
+	{
+		if (b_binary)
+		{
+			getBinaryScores(x, scores);
+			return;
+		}
+		
+		FloatBuffer weights = t_weights.get();
+		float[] row = t_row.get();
+		int i, j, index, len = x.size();
+		double weight;
+		
+		readRow(weights, 0, row);
+		
+		for (j=0; j<n_labels; j++)
+			scores[j] = row[j];
+		
+		for (i=0; i<len; i++)
+		{
+			index = x.getIndex(i);
+			
+			if (isValidFeatureIndex(index))
+			{
+				readRow(weights, index, row);
+				weight = x.getWeight(i);
+				
+				if (include == null)
+				{
+					for (j=0; j<n_labels; j++)
+						scores[j] += row[j] * weight;
+				}
+				else
+				{
+					for (int k : include)
+						scores[k] += row[k] * weight;
+				}
+			}
+		}
+	}
+	
+	/** Reads the weights of all labels for the specific feature into the specific row with one bulk copy. */
+	private void readRow(FloatBuffer weights, int featureIndex, float[] row)
+	{
+		weights.position(featureIndex * n_labels);
+		weights.get(row, 0, n_labels);
+	}
+	
+	/** Same as {@link BinaryWeightVector#getScores(SparseFeatureVector)}. */
+	private void getBinaryScores(SparseFeatureVector x, double[] scores)
+	{
+		int i, index, len = x.size();
+		double score = b_weights.get(0);
+		
+		for (i=0; i<len; i++)
+		{
+			index = x.getIndex(i);
+			
+			if (isValidFeatureIndex(index))
+				score += b_weights.get(index) * x.getWeight(i);
+		}
+		
+		scores[BinaryWeightVector.POSITIVE] =  score;
+		scores[BinaryWeightVector.NEGATIVE] = -score;
+	}
+
+//	====================================== WEIGHTS ======================================
+	
+	@Override
+	public int getWeightIndex(int labelIndex, int featureIndex)
+	{
+		return b_binary ? featureIndex : featureIndex * n_labels + labelIndex;
+	}
+	
+	@Override
+	public float[] getWeights(int labelIndex)
+	{
+		float inv = (b_binary && labelIndex == BinaryWeightVector.NEGATIVE) ? -1 : 1;
+		float[] weights = new float[n_features];
+		
+		for (int i=0; i<n_features; i++)
+			weights[i] = get(getWeightIndex(labelIndex, i)) * inv;
+		
+		return weights;
+	}
+	
+	@Override
+	public void setWeights(int labelIndex, float[] weights)
+	{
+		throw new UnsupportedOperationException("A mapped weight vector is read-only.");
+	}
+	
+	@Override
+	public void setWeights(FloatArrayList weights)
+	{
+		throw new UnsupportedOperationException("A mapped weight vector is read-only.");
+	}
+	
+	@Override
+	public float get(int weightIndex)
+	{
+		return b_weights.get(weightIndex);
+	}
+	
+	@Override
+	public void set(int weightIndex, float value)
+	{
+		throw new UnsupportedOperationException("A mapped weight vector is read-only.");
+	}
+	
+	@Override
+	public void set(double[] array)
+	{
+		throw new UnsupportedOperationException("A mapped weight vector is read-only.");
+	}
+	
+	@Override
+	public void add(int weightIndex, float value)
+	{
+		throw new UnsupportedOperationException("A mapped weight vector is read-only.");
+	}
+	
+	@Override
+	public void multiply(int weightIndex, float value)
+	{
+		throw new UnsupportedOperationException("A mapped weight vector is read-only.");
+	}
+	
+	@Override
+	public int size()
+	{
+		return b_weights.capacity();
+	}
+	
+	@Override
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+	
+	@Override
+	public void trimToSize() {}
+	
+	@Override
+	public FloatArrayList cloneWeights()
+	{
+		FloatArrayList list = new FloatArrayList(size());
+		list.buffer = new float[size()];
+		b_weights.duplicate().get(list.buffer);
+		list.elementsCount = list.buffer.length;
+		return list;
+	}
+	
+	/** @return a copy of this vector as a regular weight vector. */
+	public AbstractWeightVector toWeightVector()
+	{
+		AbstractWeightVector vector = b_binary ? new BinaryWeightVector() : new MultiWeightVector();
+		vector.setWeights(cloneWeights());
+		vector.n_labels   = n_labels;
+		vector.n_features = n_features;
+		return vector;
+	}
+	
+	private Object writeReplace()
+	{
+		return toWeightVector();
+	}
+}
@@ -16,6 +16,7 @@
 package edu.emory.clir.clearnlp.classification.vector;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 import edu.emory.clir.clearnlp.collection.list.FloatArrayList;
 import edu.emory.clir.clearnlp.util.DSUtils;
@@ -28,12 +29,20 @@ import edu.emory.clir.clearnlp.util.DSUtils;
 public class MultiWeightVector extends AbstractWeightVector implements Serializable
 {
 	private static final long serialVersionUID = 7255272201058803937L;
+	private transient volatile LabelGroupWeights g_weights;
 	
 	public MultiWeightVector()
 	{
 		super(false);
 	}
 	
+	@Override
+	public void reset()
+	{
+		super.reset();
+		g_weights = null;
+	}
+	
 	@Override
 	public void expand(int labelSize, int featureSize)
 	{
@@ -51,6 +60,7 @@ public class MultiWeightVector extends AbstractWeightVector implements Serializa
 		}
 		
 		trimToSize();
+		g_weights = null;
 		
 		n_labels   = labelSize;
 		n_features = featureSize;
@@ -74,60 +84,77 @@ public class MultiWeightVector extends AbstractWeightVector implements Serializa
 	}
 	
 	@Override
-	public double[] getScores(SparseFeatureVector x)
+	public void getScores(SparseFeatureVector x, double[] scores)
 	{
-		double[] scores = f_weights.toDoubleArray(0, n_labels);
-		int i, j, index, len = x.size();
-		double weight;
+		int i, j, index, len = x.size(), size = n_labels;
+		float[] weights = getWeightArray();
+		
+		for (j=0; j<size; j++)
+			scores[j] = weights[j];
 		
 		for (i=0; i<len; i++)
 		{
 			index = x.getIndex(i);
 			
 			if (isValidFeatureIndex(index))
-			{
-				index  = getWeightIndex(index);
-				weight = x.getWeight(i);
-				
-				for (j=0; j<n_labels; j++)
-					scores[j] += get(index+j) * weight;
-			}
+				addScores(weights, getWeightIndex(index), x.getWeight(i), scores, size);
 		}
-		
-		return scores;
 	}
 	
 	@Override
-	public double[] getScores(SparseFeatureVector x, int[] indices)
+	public void getScores(SparseFeatureVector x, int[] indices, double[] scores)
 	{
-		double[] scores = f_weights.toDoubleArray(0, n_labels);
-		int i = 0, index, len = x.size();
-		double weight;
+		LabelGroupWeights groups = g_weights;
+		int i, index, len = x.size();
 		
-//		for (int j : include)
-//		{
-//			for (; i<j; i++) scores[i] = MathUtils.DOUBLE_NEGATIVE_MIN;
-//			i = j+1;
-//		}
-//		
-//		for (; i<n_labels; i++)
-//			scores[i] = MathUtils.DOUBLE_NEGATIVE_MIN;
+		if (groups != null && (i = groups.getGroupIndex(indices)) >= 0)
+		{
+			groups.getScores(x, i, scores);
+			return;
+		}
+		
+		float[] weights = getWeightArray();
+		
+		for (int j : indices)
+			scores[j] = weights[j];
 		
 		for (i=0; i<len; i++)
 		{
 			index = x.getIndex(i);
 			
 			if (isValidFeatureIndex(index))
-			{
-				index  = getWeightIndex(index);
-				weight = x.getWeight(i);
-				
-				for (int j : indices)
-					scores[j] += get(index+j) * weight;
-			}
+				addScores(weights, getWeightIndex(index), x.getWeight(i), scores, indices);
 		}
+	}
+	
+	/**
+	 * Copies the weights into a layout where the labels of each group are contiguous so that {@link #getScores(SparseFeatureVector, int[], double[])}
+	 * given one of the groups reads only the weights of its labels; the copy takes as much memory as this vector.
+	 * The copy is dropped when this vector is expanded or reset, and must be made again if the weights are updated.
+	 * @param groups the sorted label indices of each group.
+	 * @return the groups to be passed to {@link #getScores(SparseFeatureVector, int[], double[])}, which are the existing ones if equal.
+	 */
+	public synchronized int[][] groupLabels(int[][] groups)
+	{
+		LabelGroupWeights g = g_weights;
+		
+		if (g != null && Arrays.deepEquals(g.getGroups(), groups))
+			return g.getGroups();
 		
-		return scores;
+		g_weights = new LabelGroupWeights(getWeightArray(), n_labels, n_features, groups);
+		return groups;
+	}
+	
+	public boolean isLabelGrouped()
+	{
+		return g_weights != null;
+	}
+	
+	@Override
+	public void setWeights(FloatArrayList weights)
+	{
+		super.setWeights(weights);
+		g_weights = null;
 	}
 	
 	@Override
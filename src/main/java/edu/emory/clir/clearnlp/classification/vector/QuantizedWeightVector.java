@@ -0,0 +1,408 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.vector;
+
+import edu.emory.clir.clearnlp.collection.list.FloatArrayList;
+
+/**
+ * A read-only weight vector whose weights are quantized for decoding, with the same layout as
+ * {@link MultiWeightVector} or {@link BinaryWeightVector}.
+ * {@link Precision#INT8} stores each weight in a byte with one scale per block of weights,
+ * where a block is the row of all labels for a feature (multi-class) or {@link #BINARY_BLOCK_SIZE} features (binary);
+ * {@link Precision#FP16} stores each weight as a half-precision float.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class QuantizedWeightVector extends AbstractWeightVector
+{
+	private static final long serialVersionUID = -3362410528473907412L;
+	static public final int BINARY_BLOCK_SIZE = 64;
+	
+	/** The floats of all bytes and half-precision bit patterns, which are faster to look up than to convert in the scoring loops. */
+	static private final float[] BYTE_TO_FLOAT = new float[1 <<  8];
+	static private final float[] HALF_TO_FLOAT = new float[1 << 16];
+	
+	static
+	{
+		for (int i=0; i<BYTE_TO_FLOAT.length; i++)
+			BYTE_TO_FLOAT[i] = (byte)i;
+		
+		for (int i=0; i<HALF_TO_FLOAT.length; i++)
+			HALF_TO_FLOAT[i] = toFloat((short)i);
+	}
+	
+	public enum Precision {INT8, FP16}
+	
+	private Precision e_precision;
+	private int       n_blockSize;
+	/** The scales of the blocks (INT8). */
+	private float[]   f_scales;
+	/** The quantized weights (INT8). */
+	private byte[]    b_weights;
+	/** The half-precision weights (FP16). */
+	private short[]   h_weights;
+	
+	/** Quantizes the weights of the specific vector. */
+	public QuantizedWeightVector(AbstractWeightVector vector, Precision precision)
+	{
+		this(precision, vector.isBinaryLabel(), vector.getLabelSize(), vector.getFeatureSize());
+		int i, size = vector.size();
+		
+		if (precision == Precision.FP16)
+		{
+			h_weights = new short[size];
+			
+			for (i=0; i<size; i++)
+				h_weights[i] = toHalf(vector.get(i));
+		}
+		else
+		{
+			f_scales  = new float[getBlockCount(b_binary, n_labels, size)];
+			b_weights = new byte[size];
+			quantize(vector);
+		}
+	}
+	
+	/** Creates an {@link Precision#INT8} vector from the specific scales and weights, which are not copied. */
+	public QuantizedWeightVector(boolean binary, int labelSize, int featureSize, float[] scales, byte[] weights)
+	{
+		this(Precision.INT8, binary, labelSize, featureSize);
+		f_scales  = scales;
+		b_weights = weights;
+	}
+	
+	/** Creates an {@link Precision#FP16} vector from the specific half-precision weights, which are not copied. */
+	public QuantizedWeightVector(boolean binary, int labelSize, int featureSize, short[] weights)
+	{
+		this(Precision.FP16, binary, labelSize, featureSize);
+		h_weights = weights;
+	}
+	
+	private QuantizedWeightVector(Precision precision, boolean binary, int labelSize, int featureSize)
+	{
+		super(binary);
+		e_precision = precision;
+		n_labels    = labelSize;
+		n_features  = featureSize;
+		n_blockSize = getBlockSize(binary, labelSize);
+	}
+	
+	/** Called by {@link #QuantizedWeightVector(AbstractWeightVector, Precision)}. */
+	private void quantize(AbstractWeightVector vector)
+	{
+		int i, j, begin, end, size = vector.size();
+		float max, scale;
+		
+		for (i=0; i<f_scales.length; i++)
+		{
+			begin = i * n_blockSize;
+			end   = Math.min(begin + n_blockSize, size);
+			max   = 0;
+			
+			for (j=begin; j<end; j++)
+				max = Math.max(max, Math.abs(vector.get(j)));
+			
+			scale = max / Byte.MAX_VALUE;
+			f_scales[i] = scale;
+			if (scale == 0) continue;
+			
+			for (j=begin; j<end; j++)
+				b_weights[j] = (byte)Math.round(vector.get(j) / scale);
+		}
+	}
+	
+	@Override
+	public void expand(int labelSize, int featureSize)
+	{
+		throw new UnsupportedOperationException("A quantized weight vector is read-only.");
+	}
+	
+	public Precision getPrecision()
+	{
+		return e_precision;
+	}
+	
+	/** @return the number of weights per block. */
+	static public int getBlockSize(boolean binary, int labelSize)
+	{
+		return binary ? BINARY_BLOCK_SIZE : Math.max(1, labelSize);
+	}
+	
+	/** @return the number of blocks given the number of weights. */
+	static public int getBlockCount(boolean binary, int labelSize, int size)
+	{
+		int blockSize = getBlockSize(binary, labelSize);
+		return (size + blockSize - 1) / blockSize;
+	}
+	
+	/** @return the scales of the blocks if {@link Precision#INT8}; otherwise, {@code null}. */
+	public float[] getScales()
+	{
+		return f_scales;
+	}
+	
+	/** @return the quantized weights if {@link Precision#INT8}; otherwise, {@code null}. */
+	public byte[] getByteWeights()
+	{
+		return b_weights;
+	}
+	
+	/** @return the half-precision weights if {@link Precision#FP16}; otherwise, {@code null}. */
+	public short[] getHalfWeights()
+	{
+		return h_weights;
+	}
+	
+	/** @return the number of bytes taken by the weights and the scales. */
+	public long getByteSize()
+	{
+		return (e_precision == Precision.FP16) ? 2L * h_weights.length : b_weights.length + 4L * f_scales.length;
+	}
+
+//	====================================== SCORES ======================================
+	
+	@Override
+	public void getScores(SparseFeatureVector x, double[] scores)
+	{
+		getScores(x, null, scores);
+	}
+	
+	@Override
+	public void getScores(SparseFeatureVector x, int[] include, double[] scores)
+	{
+		if (b_binary)
+		{
+			getBinaryScores(x, scores);
+			return;
+		}
+		
+		for (int j=0; j<n_labels; j++)
+			scores[j] = get(j);
+		
+		if (e_precision == Precision.FP16)
+			addHalfScores(x, include, scores);
+		else
+			addByteScores(x, include, scores);
+	}
+	
+	private void addByteScores(SparseFeatureVector x, int[] include, double[] scores)
+	{
+		int i, j, index, len = x.size();
+		double weight;
+		
+		for (i=0; i<len; i++)
+		{
+			index = x.getIndex(i);
+			if (!isValidFeatureIndex(index)) continue;
+			// each row of a feature is a block, so the scale is applied once per feature
+			weight = x.getWeight(i) * f_scales[index];
+			index *= n_labels;
+			
+			if (include == null)
+			{
+				for (j=0; j<n_labels; j++)
+					scores[j] += BYTE_TO_FLOAT[b_weights[index+j] & 0xff] * weight;
+			}
+			else
+			{
+				for (int k : include)
+					scores[k] += BYTE_TO_FLOAT[b_weights[index+k] & 0xff] * weight;
+			}
+		}
+	}
+	
+	private void addHalfScores(SparseFeatureVector x, int[] include, double[] scores)
+	{
+		int i, j, index, len = x.size();
+		double weight;
+		
+		for (i=0; i<len; i++)
+		{
+			index = x.getIndex(i);
+			if (!isValidFeatureIndex(index)) continue;
+			weight = x.getWeight(i);
+			index *= n_labels;
+			
+			if (include == null)
+			{
+				for (j=0; j<n_labels; j++)
+					scores[j] += HALF_TO_FLOAT[h_weights[index+j] & 0xffff] * weight;
+			}
+			else
+			{
+				for (int k : include)
+					scores[k] += HALF_TO_FLOAT[h_weights[index+k] & 0xffff] * weight;
+			}
+		}
+	}
+	
+	/** Same as {@link BinaryWeightVector#getScores(SparseFeatureVector)}. */
+	private void getBinaryScores(SparseFeatureVector x, double[] scores)
+	{
+		int i, index, len = x.size();
+		double score = get(0);
+		
+		for (i=0; i<len; i++)
+		{
+			index = x.getIndex(i);
+			
+			if (isValidFeatureIndex(index))
+				score += get(index) * x.getWeight(i);
+		}
+		
+		scores[BinaryWeightVector.POSITIVE] =  score;
+		scores[BinaryWeightVector.NEGATIVE] = -score;
+	}
+
+//	====================================== WEIGHTS ======================================
+	
+	@Override
+	public int getWeightIndex(int labelIndex, int featureIndex)
+	{
+		return b_binary ? featureIndex : featureIndex * n_labels + labelIndex;
+	}
+	
+	@Override
+	public float[] getWeights(int labelIndex)
+	{
+		float inv = (b_binary && labelIndex == BinaryWeightVector.NEGATIVE) ? -1 : 1;
+		float[] weights = new float[n_features];
+		
+		for (int i=0; i<n_features; i++)
+			weights[i] = get(getWeightIndex(labelIndex, i)) * inv;
+		
+		return weights;
+	}
+	
+	@Override
+	public void setWeights(int labelIndex, float[] weights)
+	{
+		throw new UnsupportedOperationException("A quantized weight vector is read-only.");
+	}
+	
+	@Override
+	public void setWeights(FloatArrayList weights)
+	{
+		throw new UnsupportedOperationException("A quantized weight vector is read-only.");
+	}
+	
+	/** @return the dequantized weight. */
+	@Override
+	public float get(int weightIndex)
+	{
+		return (e_precision == Precision.FP16) ? toFloat(h_weights[weightIndex]) : b_weights[weightIndex] * f_scales[weightIndex / n_blockSize];
+	}
+	
+	@Override
+	public void set(int weightIndex, float value)
+	{
+		throw new UnsupportedOperationException("A quantized weight vector is read-only.");
+	}
+	
+	@Override
+	public void set(double[] array)
+	{
+		throw new UnsupportedOperationException("A quantized weight vector is read-only.");
+	}
+	
+	@Override
+	public void add(int weightIndex, float value)
+	{
+		throw new UnsupportedOperationException("A quantized weight vector is read-only.");
+	}
+	
+	@Override
+	public void multiply(int weightIndex, float value)
+	{
+		throw new UnsupportedOperationException("A quantized weight vector is read-only.");
+	}
+	
+	@Override
+	public int size()
+	{
+		return (e_precision == Precision.FP16) ? h_weights.length : b_weights.length;
+	}
+	
+	@Override
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+	
+	@Override
+	public void trimToSize() {}
+	
+	/** @return the dequantized weights. */
+	@Override
+	public FloatArrayList cloneWeights()
+	{
+		int i, size = size();
+		FloatArrayList list = new FloatArrayList(size);
+		list.buffer = new float[size];
+		for (i=0; i<size; i++) list.buffer[i] = get(i);
+		list.elementsCount = size;
+		return list;
+	}
+	
+	/** @return a dequantized copy of this vector as a regular weight vector. */
+	public AbstractWeightVector toWeightVector()
+	{
+		AbstractWeightVector vector = b_binary ? new BinaryWeightVector() : new MultiWeightVector();
+		vector.setWeights(cloneWeights());
+		vector.n_labels   = n_labels;
+		vector.n_features = n_features;
+		return vector;
+	}
+
+//	====================================== HALF-PRECISION ======================================
+	
+	/** @return the half-precision float closest to the specific value (rounding half up). */
+	static public short toHalf(float f)
+	{
+		int bits = Float.floatToIntBits(f);
+		int sign = (bits >>> 16) & 0x8000;
+		int abs  = bits & 0x7fffffff;
+		int val  = abs + 0x1000;
+		
+		if (val >= 0x47800000)
+		{
+			if (abs < 0x47800000) return (short)(sign | 0x7bff);	// rounds up to the maximum
+			if (abs < 0x7f800000) return (short)(sign | 0x7c00);	// overflows to infinity
+			return (short)(sign | 0x7c00 | ((bits & 0x007fffff) >>> 13));
+		}
+		
+		if (val >= 0x38800000) return (short)(sign | ((val - 0x38000000) >>> 13));
+		if (val <  0x33000000) return (short)sign;
+		int exp = abs >>> 23;
+		return (short)(sign | ((((bits & 0x007fffff) | 0x00800000) + (0x00800000 >>> (exp - 102))) >>> (126 - exp)));
+	}
+	
+	static public float toFloat(short h)
+	{
+		int sign = (h & 0x8000) << 16;
+		int exp  = (h >>> 10) & 0x1f;
+		int mant = h & 0x03ff;
+		
+		if (exp == 0)
+		{
+			float f = mant * 0x1p-24f;
+			return (sign != 0) ? -f : f;
+		}
+		
+		if (exp == 0x1f) return Float.intBitsToFloat(sign | 0x7f800000 | (mant << 13));
+		return Float.intBitsToFloat(sign | ((exp + 112) << 23) | (mant << 13));
+	}
+}
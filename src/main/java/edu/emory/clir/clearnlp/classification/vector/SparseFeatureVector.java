@@ -89,6 +89,59 @@ public class SparseFeatureVector extends AbstractFeatureVector
 		return size();
 	}
 	
+	/**
+	 * Merges features with the same index into their first occurrences by summing their weights,
+	 * and removes features whose weights become 0; this vector must have weights.
+	 */
+	public void mergeDuplicates()
+	{
+		if (!hasWeight()) throw new IllegalStateException("Only weighted vectors can be merged.");
+		int i, j, index, n = 0, size = size();
+		double weight;
+		
+		for (i=0; i<size; i++)
+		{
+			index = i_indices.get(i);
+			weight = d_weights.get(i);
+			
+			for (j=0; j<n; j++)
+			{
+				if (i_indices.get(j) == index)
+				{
+					d_weights.set(j, d_weights.get(j) + weight);
+					break;
+				}
+			}
+			
+			if (j == n)
+			{
+				i_indices.set(n, index);
+				d_weights.set(n, weight);
+				n++;
+			}
+		}
+		
+		for (i=j=0; i<n; i++)
+		{
+			if (d_weights.get(i) != 0)
+			{
+				i_indices.set(j, i_indices.get(i));
+				d_weights.set(j, d_weights.get(i));
+				j++;
+			}
+		}
+		
+		i_indices.resize(j);
+		d_weights.resize(j);
+	}
+	
+	/** Removes all features from this vector so it can be reused. */
+	public void clear()
+	{
+		i_indices.clear();
+		if (hasWeight()) d_weights.clear();
+	}
+	
 	@Override
 	public int size()
 	{
@@ -15,6 +15,7 @@
  */
 package edu.emory.clir.clearnlp.collection.map;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -27,11 +28,15 @@ import edu.emory.clir.clearnlp.util.HashUtils;
 import edu.emory.clir.clearnlp.util.MathUtils;
 
 /**
+ * Keys are added by {@link #addkey(String)} and indexed in the order of their first additions, or added with non-negative values by {@link #put(String, int)};
+ * once {@link #initHashFunction()} is called, {@link #lookup(String)} returns the value of a key through the hash function.
+ * The lookup of a key that has not been added returns either {@code -1} or the value of an arbitrary key.
  * @since 3.0.0
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
-public class StringIntMinimalPerfectHashMap
+public class StringIntMinimalPerfectHashMap implements Serializable
 {
+	private static final long serialVersionUID = 3795626781398340937L;
 	private ObjectIntHashMap<String> m_key;
 	private int   n_index;
 	private int[] g_hashes;
@@ -43,16 +48,31 @@ public class StringIntMinimalPerfectHashMap
 		n_index = 0;
 	}
 	
+	/** Creates a map from the specific hash function (see {@link #getHashes()} and {@link #getValues()}); no key can be added. */
+	public StringIntMinimalPerfectHashMap(int[] hashes, int[] values, int size)
+	{
+		g_hashes = hashes;
+		g_values = values;
+		n_index  = size;
+	}
+	
 	public void addkey(String key)
 	{
 		if (!m_key.containsKey(key))
 			m_key.put(key, n_index++);
 	}
 	
+	/** Adds the specific key with the specific non-negative value instead of its index. */
+	public void put(String key, int value)
+	{
+		if (!m_key.containsKey(key)) n_index++;
+		m_key.put(key, value);
+	}
+	
 	public void initHashFunction()
 	{
 		int vsize = (int)MathUtils.nextPrimeNumber((int)(1.25 * m_key.size()));
-		int hsize = vsize / 5;
+		int hsize = Math.max(1, vsize / 5);
 		
 		StringList[] patterns = getEmptyList(hsize);
 		int[] hashes = new int[hsize];
@@ -131,17 +151,54 @@ public class StringIntMinimalPerfectHashMap
 		g_values = values;
 	}
 	
+	/** Removes the added keys so that only the hash function is kept; must be called after {@link #initHashFunction()}. */
+	public void clearKeys()
+	{
+		m_key = null;
+	}
+	
+	/** @return the number of keys. */
+	public int size()
+	{
+		return n_index;
+	}
+	
+	public int[] getHashes()
+	{
+		return g_hashes;
+	}
+	
+	public int[] getValues()
+	{
+		return g_values;
+	}
+	
 	public int lookup(String key)
 	{
-		int d = g_hashes[hash(key, 0, g_hashes.length)];
-		d = (d < 0) ? -d-1 : hash(key, d, g_values.length);
-		return g_values[d];
+		return g_values[getSlot(key)];
+	}
+	
+	/** @return the index of the specific key in {@link #getValues()}. */
+	public int getSlot(String key)
+	{
+		int h = HashUtils.fnv1aHash32(key), d = g_hashes[MathUtils.divisor(h, g_hashes.length)];
+		return (d < 0) ? -d-1 : hash(h, key, d, g_values.length);
 	}
 	
 	/** Called by {@link #initHashFunction()}. */
 	private int hash(String key, int basis, int size)
 	{
-		int h = (basis == 0) ? HashUtils.fnv1aHash32(key) : HashUtils.fnv1aHash32(key, basis);
+		return hash(HashUtils.fnv1aHash32(key), key, basis, size);
+	}
+	
+	/**
+	 * The displacement {@code basis} is mixed with a second hash of the key; seeding FNV with small displacements
+	 * gives slots whose parities never differ for some keys, which makes the search for a displacement endless.
+	 * @param h the FNV hash of the key.
+	 */
+	private int hash(int h, String key, int basis, int size)
+	{
+		if (basis != 0) h = HashUtils.mix32(h + basis * (key.hashCode() | 1));
 		return MathUtils.divisor(h, size);
 	}
 	
@@ -15,6 +15,9 @@
  */
 package edu.emory.clir.clearnlp.component;
 
+import java.util.List;
+
+import edu.emory.clir.clearnlp.component.metrics.ComponentMetrics;
 import edu.emory.clir.clearnlp.dependency.DEPTree;
 
 /**
@@ -23,5 +26,29 @@ import edu.emory.clir.clearnlp.dependency.DEPTree;
  */
 abstract public class AbstractComponent
 {
+	private final ComponentMetrics c_metrics = new ComponentMetrics(getClass().getSimpleName());
+	
 	abstract public void process(DEPTree tree);
+	
+	/** Processes the trees as a batch; by default, calls {@link #process(DEPTree)} on each tree. */
+	public void process(List<DEPTree> trees)
+	{
+		for (DEPTree tree : trees)
+			process(tree);
+	}
+	
+	/** Makes this component read-only so that it can be shared across threads; see {@link #isThreadSafe()}. */
+	public void freeze() {}
+	
+	/** @return {@code true} if {@link #process(DEPTree)} can be called by multiple threads at the same time. */
+	public boolean isThreadSafe()
+	{
+		return false;
+	}
+	
+	/** @return the metrics of this component, shared by all threads using it. */
+	public ComponentMetrics getMetrics()
+	{
+		return c_metrics;
+	}
 }
\ No newline at end of file
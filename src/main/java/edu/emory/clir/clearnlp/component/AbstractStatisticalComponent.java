@@ -22,6 +22,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -30,6 +31,8 @@ import org.tukaani.xz.XZInputStream;
 import org.tukaani.xz.XZOutputStream;
 
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
+import edu.emory.clir.clearnlp.classification.model.ModelFile;
+import edu.emory.clir.clearnlp.classification.model.ModelInputStream;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
 import edu.emory.clir.clearnlp.classification.trainer.AbstractOnlineTrainer;
 import edu.emory.clir.clearnlp.classification.trainer.AdaGradSVM;
@@ -54,6 +57,11 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	protected StringModel[] s_models;
 	protected EvalType      c_eval;
 	protected CFlag         c_flag;
+	private volatile boolean b_frozen;
+	/** Per-thread score buffers reused by {@link #getScoreBuffer(StringModel)}. */
+	private final ThreadLocal<double[]> t_scores = ThreadLocal.withInitial(() -> new double[0]);
+	/** Per-thread buffers for the indices of the top 2 labels reused by {@link #getTop2Buffer()}. */
+	private final ThreadLocal<int[]> t_top2 = ThreadLocal.withInitial(() -> new int[2]);
 	
 	public AbstractStatisticalComponent() {}
 	
@@ -114,11 +122,13 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 		for (i=0; i<modelSize; i++)
 			models[i] = new StringModel(binary);
 		
+		if (t_configuration != null) t_configuration.setInstanceStores(models);
 		return models;
 	}
 	
 	protected void initDecode(ObjectInputStream in)
 	{
+		checkFrozen();
 		setFlag(CFlag.DECODE);
 		
 		try
@@ -142,6 +152,7 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	public void setConfiguration(ConfigurationType configuration)
 	{
+		checkFrozen();
 		t_configuration = configuration;
 	}
 	
@@ -170,8 +181,26 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 		saveModels(out);
 	}
 	
+	/**
+	 * Saves all models and objects of this component in the binary format of {@link ModelFile},
+	 * which can be loaded through {@link #load(ObjectInputStream)} with a {@link ModelInputStream}.
+	 * @throws Exception
+	 */
+	public void saveBinary(OutputStream out) throws Exception
+	{
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bos);
+		oos.writeObject(f_extractors);
+		oos.writeObject(getLexicons());
+		oos.close();
+		ModelFile.write(out, bos.toByteArray(), s_models);
+	}
+	
 	private StringModel[] loadModels(ObjectInputStream in) throws Exception
 	{
+		if (in instanceof ModelInputStream)
+			return ((ModelInputStream)in).getModels();
+		
 		int i, len = in.readInt();
 		StringModel[] models = new StringModel[len];
 		
@@ -231,6 +260,7 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	public void setFeatureExtractors(FeatureType[] features)
 	{
+		checkFrozen();
 		f_extractors = features;
 	}
 	
@@ -248,9 +278,33 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	public void setModels(StringModel[] models)
 	{
+		checkFrozen();
 		s_models = models;
 	}
 	
+	/**
+	 * @return the calling thread's buffer for the scores of the specific model (see {@link StringModel#predictBestIndex}),
+	 * which is valid until the next call from the same thread.
+	 */
+	protected double[] getScoreBuffer(StringModel model)
+	{
+		double[] scores = t_scores.get();
+		
+		if (scores.length < model.getScoreSize())
+			t_scores.set(scores = new double[model.getScoreSize()]);
+		
+		return scores;
+	}
+	
+	/**
+	 * @return the calling thread's buffer for the indices of the top 2 labels (see {@link StringModel#predictTopIndices}),
+	 * which is valid until the next call from the same thread.
+	 */
+	protected int[] getTop2Buffer()
+	{
+		return t_top2.get();
+	}
+	
 //	====================================== PROCESS ======================================
 
 	protected List<StringInstance> process(StateType state)
@@ -291,8 +345,39 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	protected LabelType decode(StateType state)
 	{
+		if (!getMetrics().isDetailed()) return getAutoLabel(state, createStringFeatureVector(state));
+		long st = System.nanoTime();
 		StringFeatureVector vector = createStringFeatureVector(state);
-		return getAutoLabel(state, vector);
+		long mt = System.nanoTime();
+		LabelType label = getAutoLabel(state, vector);
+		getMetrics().addTransition(mt - st, System.nanoTime() - mt);
+		return label;
+	}
+	
+	/**
+	 * Makes one transition of every state at a time until all states terminate so that the same model
+	 * is applied to many sentences in a row.  Called by {@link #process(List)} in the decode mode.
+	 */
+	protected void decode(List<StateType> states)
+	{
+		List<StateType> active = new ArrayList<>(states);
+		int i, j, size;
+		StateType state;
+		
+		while (!active.isEmpty())
+		{
+			size = active.size();
+			
+			for (i=0, j=0; i<size; i++)
+			{
+				state = active.get(i);
+				if (state.isTerminate()) continue;
+				state.next(decode(state));
+				active.set(j++, state);
+			}
+			
+			active.subList(j, size).clear();
+		}
 	}
 	
 	abstract protected StringFeatureVector createStringFeatureVector(StateType state);
@@ -316,6 +401,7 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	public void setFlag(CFlag flag)
 	{
+		checkFrozen();
 		c_flag = flag;
 	}
 	
@@ -354,6 +440,38 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 		return isDecode() || isEvaluate();
 	}
 	
+//	====================================== THREAD-SAFETY ======================================
+	
+	/**
+	 * Makes this decoding component read-only so a single instance can be shared by multiple threads.
+	 * Once frozen, the flag, configuration, feature extractors, lexicons, and models cannot be changed,
+	 * and online training is disabled; all per-sentence state is kept in states and per-thread scratch vectors.
+	 * @throws IllegalStateException if this component is not in the decode mode.
+	 */
+	@Override
+	public void freeze()
+	{
+		if (!isDecode()) throw new IllegalStateException("Only decoding components can be frozen: "+c_flag);
+		b_frozen = true;
+	}
+	
+	public boolean isFrozen()
+	{
+		return b_frozen;
+	}
+	
+	@Override
+	public boolean isThreadSafe()
+	{
+		return b_frozen;
+	}
+	
+	/** @throws IllegalStateException if this component is frozen. */
+	protected void checkFrozen()
+	{
+		if (b_frozen) throw new IllegalStateException("This component is frozen for decoding.");
+	}
+	
 //	====================================== ONLINE TRAIN ======================================
 	
 	abstract public void onlineTrain(List<DEPTree> trees);
@@ -391,6 +509,7 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	protected double onlineScore(List<DEPTree> trees)
 	{
+		checkFrozen();
 		CFlag originalFlag = c_flag;
 		c_flag = CFlag.EVALUATE;
 		initEval();
@@ -404,6 +523,7 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	protected void onlineBootstrap(List<DEPTree> trees)
 	{
+		checkFrozen();
 		CFlag originalFlag = c_flag;
 		c_flag = CFlag.BOOTSTRAP;
 		
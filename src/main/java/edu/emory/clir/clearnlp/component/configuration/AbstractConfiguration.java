@@ -15,12 +15,14 @@
  */
 package edu.emory.clir.clearnlp.component.configuration;
 
+import java.io.File;
 import java.io.InputStream;
 
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import edu.emory.clir.clearnlp.classification.instance.AbstractInstanceStore;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
 import edu.emory.clir.clearnlp.classification.trainer.AbstractAdaGrad;
 import edu.emory.clir.clearnlp.classification.trainer.AbstractLiblinear;
@@ -195,6 +197,28 @@ public class AbstractConfiguration implements ConfigurationXML
 		return getTrainers(models, true);
 	}
 	
+	/**
+	 * Keeps the training instances of each model on disk if its trainer has the instance store attribute,
+	 * which is the directory of the chunk files; must be called before instances are collected.
+	 */
+	public void setInstanceStores(StringModel[] models)
+	{
+		if (n_mode == null) return;
+		Element eMode = getModeElement();
+		if (eMode == null) return;
+		Element eTrainer;
+		String store, chunkSize;
+		
+		for (int i=0; i<models.length; i++)
+		{
+			if ((eTrainer = XmlUtils.getElementByTagName(eMode, E_TRAINER, i)) == null) continue;
+			store = XmlUtils.getTrimmedAttribute(eTrainer, A_INSTANCE_STORE);
+			if (store.isEmpty()) continue;
+			chunkSize = XmlUtils.getTrimmedAttribute(eTrainer, A_CHUNK_SIZE);
+			models[i].setInstanceStore(new File(store), chunkSize.isEmpty() ? AbstractInstanceStore.DEFAULT_CHUNK_SIZE : Integer.parseInt(chunkSize));
+		}
+	}
+	
 	public AbstractTrainer[] getTrainers(StringModel[] models, boolean reset)
 	{
 		AbstractTrainer[] trainers = new AbstractTrainer[models.length];
@@ -213,6 +237,9 @@ public class AbstractConfiguration implements ConfigurationXML
 		StringModel model = models[index];
 		if (reset) model.reset();
 		
+		String hashBits = XmlUtils.getTrimmedAttribute(eTrainer, A_HASH_BITS);
+		if (reset && !hashBits.isEmpty()) model.setFeatureHashing(Integer.parseInt(hashBits));
+		
 		switch (algorithm)
 		{
 		case ALG_ADAGRAD  : return getTrainerAdaGrad  (eTrainer, model);
@@ -232,21 +259,31 @@ public class AbstractConfiguration implements ConfigurationXML
 		double  alpha   = XmlUtils.getDoubleAttribute (eTrainer, "alpha");
 		double  rho     = XmlUtils.getDoubleAttribute (eTrainer, "rho");
 		double  bias    = XmlUtils.getDoubleAttribute (eTrainer, "bias");
+		String threads  = XmlUtils.getTrimmedAttribute(eTrainer, A_NUMBER_OF_THREADS);
+		String shards   = XmlUtils.getTrimmedAttribute(eTrainer, A_NUMBER_OF_SHARDS);
+		String buffer   = XmlUtils.getTrimmedAttribute(eTrainer, A_SHUFFLE_BUFFER);
+		AbstractAdaGrad trainer;
 		
 		switch (type)
 		{
-		case V_SUPPORT_VECTOR_MACHINE: return new AdaGradSVM(model, labelCutoff, featureCutoff, average, alpha, rho, bias);
-		case V_LOGISTIC_REGRESSION   : return new AdaGradLR (model, labelCutoff, featureCutoff, average, alpha, rho, bias);
+		case V_SUPPORT_VECTOR_MACHINE: trainer = new AdaGradSVM(model, labelCutoff, featureCutoff, average, alpha, rho, bias); break;
+		case V_LOGISTIC_REGRESSION   : trainer = new AdaGradLR (model, labelCutoff, featureCutoff, average, alpha, rho, bias); break;
+		default: throw new IllegalArgumentException(type+" is not a valid algorithm type.");
 		}
 		
-		throw new IllegalArgumentException(type+" is not a valid algorithm type.");
+		if (!threads.isEmpty()) trainer.setNumberOfThreads(Integer.parseInt(threads));
+		if (!shards .isEmpty()) trainer.setNumberOfShards (Integer.parseInt(shards));
+		if (!buffer .isEmpty()) trainer.setShuffleBufferSize(Integer.parseInt(buffer));
+		trainer.setSinglePrecision(XmlUtils.getBooleanAttribute(eTrainer, "floatAccumulators"));
+		return trainer;
 	}
 	
 	private AbstractLiblinear getTrainerLiblinear(Element eTrainer, StringModel model)
 	{
 		int labelCutoff   = XmlUtils.getIntegerAttribute(eTrainer, A_LABEL_CUTOFF);
 		int featureCutoff = XmlUtils.getIntegerAttribute(eTrainer, A_FEATURE_CUTOFF);
-		int numThreads    = XmlUtils.getIntegerAttribute(eTrainer, A_NUMBER_OF_THREADS);
+		String threads    = XmlUtils.getTrimmedAttribute(eTrainer, A_NUMBER_OF_THREADS);
+		int numThreads    = threads.isEmpty() ? 1 : Integer.parseInt(threads);
 		String type       = XmlUtils.getTrimmedAttribute(eTrainer, A_TYPE);
 		
 		double cost = XmlUtils.getDoubleAttribute(eTrainer, "cost");
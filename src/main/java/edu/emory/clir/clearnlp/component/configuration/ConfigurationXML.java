@@ -55,6 +55,11 @@ public interface ConfigurationXML
 	String A_LABEL_CUTOFF		= "labelCutoff";
 	String A_FEATURE_CUTOFF		= "featureCutoff";
 	String A_NUMBER_OF_THREADS	= "threads";
+	String A_NUMBER_OF_SHARDS	= "shards";
+	String A_HASH_BITS			= "hashBits";
+	String A_INSTANCE_STORE		= "instanceStore";
+	String A_CHUNK_SIZE			= "chunkSize";
+	String A_SHUFFLE_BUFFER		= "shuffleBuffer";
 	String ALG_ADAGRAD			= "adagrad";
 	String ALG_LIBLINEAR		= "liblinear";
 	String E_THREAD_SIZE  		= "thread_size";
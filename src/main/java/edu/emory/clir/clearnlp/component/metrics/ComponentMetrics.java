@@ -0,0 +1,242 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Thread-safe counters and a per-sentence latency histogram of a component.
+ * Sentences, tokens, and latencies are added by whoever calls the component (e.g., {@code NLPDecode}, {@code NLPPipeline});
+ * transitions, classifications, and the time spent in feature extraction and scoring are added by statistical components
+ * only if {@link #isDetailed()}, which is off by default because it takes clock reads and counter updates per classification.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ComponentMetrics implements ComponentMetricsMXBean
+{
+	/** The JMX domain under which metrics are registered (e.g., {@code edu.emory.clir.clearnlp:type=ComponentMetrics,name="EnglishPOSTagger"}). */
+	static public final String DOMAIN = "edu.emory.clir.clearnlp";
+	
+	private String s_name;
+	private LongAdder n_sentences       = new LongAdder();
+	private LongAdder n_tokens          = new LongAdder();
+	private LongAdder n_transitions     = new LongAdder();
+	private LongAdder n_classifications = new LongAdder();
+	private LongAdder n_processNanos    = new LongAdder();
+	private LongAdder n_featureNanos    = new LongAdder();
+	private LongAdder n_scoringNanos    = new LongAdder();
+	private LatencyHistogram h_latency  = new LatencyHistogram();
+	private volatile boolean b_detailed;
+	
+	public ComponentMetrics(String name)
+	{
+		s_name = name;
+	}
+	
+	@Override
+	public String getName()
+	{
+		return s_name;
+	}
+
+//	====================================== ADD ======================================
+	
+	/** Adds a sentence with the specific number of tokens that took the specific time to process. */
+	public void addSentence(int tokens, long nanos)
+	{
+		n_sentences.increment();
+		n_tokens.add(tokens);
+		n_processNanos.add(nanos);
+		h_latency.add(nanos);
+	}
+	
+	/**
+	 * Adds sentences processed together that took the specific time in total.
+	 * Each sentence is added to the latency histogram with the average time.
+	 */
+	public void addBatch(int sentences, int tokens, long nanos)
+	{
+		long avg = nanos / sentences;
+		n_sentences.add(sentences);
+		n_tokens.add(tokens);
+		n_processNanos.add(nanos);
+		for (int i=0; i<sentences; i++) h_latency.add(avg);
+	}
+	
+	/** @return {@code true} if statistical components add their transitions and classifications. */
+	@Override
+	public boolean isDetailed()
+	{
+		return b_detailed;
+	}
+	
+	@Override
+	public void setDetailed(boolean detailed)
+	{
+		b_detailed = detailed;
+	}
+	
+	/** Adds a transition decided by one classification. */
+	public void addTransition(long featureNanos, long scoringNanos)
+	{
+		n_transitions.increment();
+		addClassification(featureNanos, scoringNanos);
+	}
+	
+	/** Adds a classification that does not make a transition (e.g., post-processing). */
+	public void addClassification(long featureNanos, long scoringNanos)
+	{
+		n_classifications.increment();
+		n_featureNanos.add(featureNanos);
+		n_scoringNanos.add(scoringNanos);
+	}
+
+//	====================================== GET ======================================
+	
+	@Override
+	public long getSentenceCount()
+	{
+		return n_sentences.sum();
+	}
+	
+	@Override
+	public long getTokenCount()
+	{
+		return n_tokens.sum();
+	}
+	
+	@Override
+	public long getTransitionCount()
+	{
+		return n_transitions.sum();
+	}
+	
+	@Override
+	public long getClassificationCount()
+	{
+		return n_classifications.sum();
+	}
+	
+	/** @return the total time spent in this component summed across threads. */
+	@Override
+	public long getProcessMillis()
+	{
+		return n_processNanos.sum() / 1000000;
+	}
+	
+	@Override
+	public long getFeatureExtractionMillis()
+	{
+		return n_featureNanos.sum() / 1000000;
+	}
+	
+	@Override
+	public long getScoringMillis()
+	{
+		return n_scoringNanos.sum() / 1000000;
+	}
+	
+	/** @return the number of tokens per second of {@link #getProcessMillis()}, that is, per thread. */
+	@Override
+	public double getTokensPerSecond()
+	{
+		long nanos = n_processNanos.sum();
+		return (nanos > 0) ? 1e9 * getTokenCount() / nanos : 0;
+	}
+	
+	/** @return the number of sentences per second of {@link #getProcessMillis()}, that is, per thread. */
+	@Override
+	public double getSentencesPerSecond()
+	{
+		long nanos = n_processNanos.sum();
+		return (nanos > 0) ? 1e9 * getSentenceCount() / nanos : 0;
+	}
+	
+	public LatencyHistogram getLatencyHistogram()
+	{
+		return h_latency;
+	}
+	
+	@Override
+	public long getMedianLatencyMicros()
+	{
+		return h_latency.getPercentile(50) / 1000;
+	}
+	
+	@Override
+	public long getP90LatencyMicros()
+	{
+		return h_latency.getPercentile(90) / 1000;
+	}
+	
+	@Override
+	public long getP99LatencyMicros()
+	{
+		return h_latency.getPercentile(99) / 1000;
+	}
+	
+	@Override
+	public long getMaxLatencyMicros()
+	{
+		return h_latency.getMax() / 1000;
+	}
+	
+	@Override
+	public void reset()
+	{
+		n_sentences      .reset();
+		n_tokens         .reset();
+		n_transitions    .reset();
+		n_classifications.reset();
+		n_processNanos   .reset();
+		n_featureNanos   .reset();
+		n_scoringNanos   .reset();
+		h_latency        .reset();
+	}
+
+//	====================================== JMX ======================================
+	
+	/** Registers this object to the platform MBean server, replacing any metrics registered under the same name. */
+	public void register()
+	{
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(DOMAIN+":type=ComponentMetrics,name="+ObjectName.quote(s_name));
+			if (server.isRegistered(name)) server.unregisterMBean(name);
+			server.registerMBean(this, name);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+
+//	====================================== SUMMARY ======================================
+	
+	/** @return the header of {@link #toString()}. */
+	static public String getHeader()
+	{
+		return String.format("%-20s %9s %11s %12s %12s %10s %10s %10s %10s %8s %8s %8s", "component", "sentences", "tokens", "transitions", "classify", "busy(ms)", "feat(ms)", "score(ms)", "tokens/s", "p50(us)", "p99(us)", "max(us)");
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("%-20s %9d %11d %12d %12d %10d %10d %10d %10.0f %8d %8d %8d", s_name, getSentenceCount(), getTokenCount(), getTransitionCount(), getClassificationCount(), getProcessMillis(), getFeatureExtractionMillis(), getScoringMillis(), getTokensPerSecond(), getMedianLatencyMicros(), getP99LatencyMicros(), getMaxLatencyMicros());
+	}
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.metrics;
+
+/**
+ * The management interface of {@link ComponentMetrics}, registered under {@link ComponentMetrics#DOMAIN}.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public interface ComponentMetricsMXBean
+{
+	String getName();
+	
+	boolean isDetailed();
+	void setDetailed(boolean detailed);
+	
+	long getSentenceCount();
+	long getTokenCount();
+	long getTransitionCount();
+	long getClassificationCount();
+	
+	long getProcessMillis();
+	long getFeatureExtractionMillis();
+	long getScoringMillis();
+	
+	double getTokensPerSecond();
+	double getSentencesPerSecond();
+	
+	long getMedianLatencyMicros();
+	long getP90LatencyMicros();
+	long getP99LatencyMicros();
+	long getMaxLatencyMicros();
+	
+	void reset();
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe histogram of non-negative values (e.g., latencies in nanoseconds) with log-linear buckets:
+ * each power of 2 is split into {@link #SUB_BUCKETS} buckets so that percentiles are off by at most 12.5%.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class LatencyHistogram
+{
+	static public final int SUB_BITS    = 3;
+	static public final int SUB_BUCKETS = 1 << SUB_BITS;
+	static private final int BUCKETS    = (64 - SUB_BITS) * SUB_BUCKETS;
+	
+	private AtomicLongArray n_counts;
+	private LongAccumulator n_max;
+	private LongAdder       n_total;
+	
+	public LatencyHistogram()
+	{
+		n_counts = new AtomicLongArray(BUCKETS);
+		n_max    = new LongAccumulator(Math::max, 0);
+		n_total  = new LongAdder();
+	}
+	
+	/** Adds the specific value; negative values are counted as 0. */
+	public void add(long value)
+	{
+		if (value < 0) value = 0;
+		n_counts.incrementAndGet(getBucket(value));
+		n_max.accumulate(value);
+		n_total.increment();
+	}
+	
+	public long getCount()
+	{
+		return n_total.sum();
+	}
+	
+	public long getMax()
+	{
+		return n_max.get();
+	}
+	
+	/**
+	 * @param percentile (0, 100].
+	 * @return the upper bound of the bucket containing the specific percentile, capped by the maximum value; 0 if empty.
+	 */
+	public long getPercentile(double percentile)
+	{
+		long count = getCount();
+		if (count == 0) return 0;
+		long rank = Math.max(1, (long)Math.ceil(count * percentile / 100)), sum = 0;
+		int i;
+		
+		for (i=0; i<BUCKETS; i++)
+		{
+			sum += n_counts.get(i);
+			if (sum >= rank) return Math.min(getUpperBound(i), getMax());
+		}
+		
+		return getMax();
+	}
+	
+	public void reset()
+	{
+		for (int i=0; i<BUCKETS; i++) n_counts.set(i, 0);
+		n_max.reset();
+		n_total.reset();
+	}
+
+//	====================================== BUCKETS ======================================
+	
+	/** Values below {@link #SUB_BUCKETS} get their own buckets; the rest are split by the top {@link #SUB_BITS}+1 bits. */
+	static int getBucket(long value)
+	{
+		if (value < SUB_BUCKETS) return (int)value;
+		int exp = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int)(value >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return ((exp - SUB_BITS + 1) << SUB_BITS) + sub;
+	}
+	
+	/** @return the largest value that falls into the specific bucket. */
+	static long getUpperBound(int bucket)
+	{
+		if (bucket < SUB_BUCKETS) return bucket;
+		int  exp   = (bucket >> SUB_BITS) + SUB_BITS - 1;
+		long sub   = bucket & (SUB_BUCKETS - 1);
+		long width = 1L << (exp - SUB_BITS);
+		return ((SUB_BUCKETS + sub) << (exp - SUB_BITS)) + width - 1;
+	}
+}
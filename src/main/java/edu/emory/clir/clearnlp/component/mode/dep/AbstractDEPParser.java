@@ -16,6 +16,7 @@
 package edu.emory.clir.clearnlp.component.mode.dep;
 
 import java.io.ObjectInputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
@@ -24,6 +25,7 @@ import edu.emory.clir.clearnlp.classification.prediction.StringPrediction;
 import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
 import edu.emory.clir.clearnlp.collection.pair.ObjectIntPair;
 import edu.emory.clir.clearnlp.component.AbstractStatisticalComponent;
+import edu.emory.clir.clearnlp.component.metrics.ComponentMetrics;
 import edu.emory.clir.clearnlp.component.mode.dep.state.AbstractDEPState;
 import edu.emory.clir.clearnlp.component.mode.dep.state.DEPStateBranch;
 import edu.emory.clir.clearnlp.dependency.DEPNode;
@@ -36,6 +38,8 @@ import edu.emory.clir.clearnlp.dependency.DEPTree;
 public abstract class AbstractDEPParser extends AbstractStatisticalComponent<DEPLabel, AbstractDEPState, DEPEval, DEPFeatureExtractor, DEPConfiguration> implements DEPTransition
 {
 	private int[][] label_indices;
+	/** Per-thread predictions reused by {@link #getPredictions(AbstractDEPState, StringFeatureVector)}. */
+	private final ThreadLocal<StringPrediction[]> t_predictions = ThreadLocal.withInitial(() -> new StringPrediction[]{new StringPrediction(null, 0), new StringPrediction(null, 0)});
 	
 	/** Creates a dependency parser for train. */
 	public AbstractDEPParser(DEPConfiguration configuration, DEPFeatureExtractor[] extractors, Object lexicons)
@@ -68,6 +72,7 @@ public abstract class AbstractDEPParser extends AbstractStatisticalComponent<DEP
 	private void init()
 	{
 		label_indices = AbstractDEPState.initLabelIndices(s_models[0].getLabels());
+		if (isDecode() && t_configuration.useLabelGroups()) label_indices = s_models[0].groupLabels(label_indices);
 	}
 	
 //	====================================== LEXICONS ======================================
@@ -109,6 +114,38 @@ public abstract class AbstractDEPParser extends AbstractStatisticalComponent<DEP
 		}
 	}
 
+	/** The greedy pass is decoded as a batch; branching and headless attachment are done per tree. */
+	@Override
+	public void process(List<DEPTree> trees)
+	{
+		if (!isDecode())
+		{
+			super.process(trees);
+			return;
+		}
+		
+		List<AbstractDEPState> states = new ArrayList<>(trees.size());
+		
+		for (DEPTree tree : trees)
+			states.add(new DEPStateBranch(tree, c_flag, t_configuration));
+		
+		decode(states);
+		
+		for (AbstractDEPState state : states)
+		{
+			// the time of the greedy pass is shared by all trees in the batch
+			((DEPStateBranch)state).startClock();
+			
+			if (state.startBranching())
+			{
+				while (state.nextBranch()) state.saveBest(process(state));
+				state.setBest();
+			}
+			
+			processHeadless(state);
+		}
+	}
+	
 	@Override
 	protected StringFeatureVector createStringFeatureVector(AbstractDEPState state)
 	{
@@ -125,11 +162,23 @@ public abstract class AbstractDEPParser extends AbstractStatisticalComponent<DEP
 		return autoLabel;
 	}
 	
+	/**
+	 * @return the top 2 predictions whose scores are squashed by the sigmoid function; the predictions are the calling thread's
+	 * buffer, which is valid until the next call from the same thread, so they must be copied to be kept.
+	 */
 	protected StringPrediction[] getPredictions(AbstractDEPState state, StringFeatureVector vector)
 	{
-		int[] indices = state.getLabelIndices(label_indices);		
-		StringPrediction[] ps = (indices != null) ? s_models[0].predictTop2(vector, indices) : s_models[0].predictTop2(vector);
-		for (StringPrediction p : ps) p.setScore(1/(1+Math.exp(-p.getScore())));
+		int[] indices = state.getLabelIndices(label_indices);
+		StringModel model = s_models[0];
+		double[] scores = getScoreBuffer(model);
+		int[] top = getTop2Buffer();
+		StringPrediction[] ps = t_predictions.get();
+		
+		model.predictTopIndices(vector, indices, scores, top);
+		
+		for (int i=0; i<ps.length; i++)
+			ps[i].set(model.getLabel(top[i]), 1/(1+Math.exp(-scores[top[i]])));
+		
 		return ps;
 	}
 	
@@ -137,34 +186,40 @@ public abstract class AbstractDEPParser extends AbstractStatisticalComponent<DEP
 	
 	private void processHeadless(AbstractDEPState state)
 	{
-		ObjectIntPair<StringPrediction> max;
 		int i, size = state.getTreeSize();
 		DEPNode node;
 		
 		for (i=1; i<size; i++)
 		{
 			node = state.getNode(i);
-			
-			if (!node.hasHead() && !state.find2ndHead(node))
-			{
-				max = new ObjectIntPair<StringPrediction>(null, -1000);
-				processHeadlessAll(state, node, max, label_indices[AbstractDEPState.RIGHT_ARC], -1);
-				processHeadlessAll(state, node, max, label_indices[AbstractDEPState. LEFT_ARC] ,  1);
-				
-				if (max.o == null)
-					node.setHead(state.getNode(0), t_configuration.getRootLabel());
-				else
-					node.setHead(state.getNode(max.i), new DEPLabel(max.o).getDeprel());
-			}
+			if (!node.hasHead() && !state.find2ndHead(node)) processHeadless(state, node);
 		}
 	}
 	
+	/** Attaches the specific node to its best scored candidate head (package-private for testing). */
+	void processHeadless(AbstractDEPState state, DEPNode node)
+	{
+		ObjectIntPair<StringPrediction> max = new ObjectIntPair<StringPrediction>(null, -1000);
+		processHeadlessAll(state, node, max, label_indices[AbstractDEPState.RIGHT_ARC], -1);
+		processHeadlessAll(state, node, max, label_indices[AbstractDEPState. LEFT_ARC] ,  1);
+		
+		if (max.o == null)
+			node.setHead(state.getNode(0), t_configuration.getRootLabel());
+		else
+			node.setHead(state.getNode(max.i), new DEPLabel(max.o).getDeprel());
+	}
+	
+	/** Scores at most {@link DEPConfiguration#getHeadlessCandidates()} nearest candidates in the specific direction if it is positive. */
 	private void processHeadlessAll(AbstractDEPState state, DEPNode node, ObjectIntPair<StringPrediction> max, int[] indices, int dir)
 	{
-		int i, currID = node.getID(), size = state.getTreeSize();
+		int i, currID = node.getID(), size = state.getTreeSize(), limit = t_configuration.getHeadlessCandidates(), count = 0;
+		ComponentMetrics metrics = getMetrics().isDetailed() ? getMetrics() : null;
+		StringModel model = s_models[0];
+		double[] scores = getScoreBuffer(model);
 		StringFeatureVector vector;
-		StringPrediction p;
 		DEPNode head;
+		int label;
+		long st, mt;
 		
 		for (i=currID+dir; 0 <= i&&i < size; i+=dir)
 		{
@@ -172,11 +227,22 @@ public abstract class AbstractDEPParser extends AbstractStatisticalComponent<DEP
 
 			if (!head.isDescendantOf(node))
 			{
+				if (limit > 0 && count++ == limit) break;
 				if (dir < 0)	state.reset(i, currID);
 				else			state.reset(currID, i);
-				vector = createStringFeatureVector(state);
-				p = s_models[0].predictBest(vector, indices);
-				if (max.o == null || max.o.compareTo(p) < 0) max.set(p, i);	
+				
+				if (metrics != null)
+				{
+					st = System.nanoTime();
+					vector = createStringFeatureVector(state);
+					mt = System.nanoTime();
+					label = model.predictBestIndex(vector, indices, scores);
+					metrics.addClassification(mt - st, System.nanoTime() - mt);
+				}
+				else
+					label = model.predictBestIndex(createStringFeatureVector(state), indices, scores);
+				
+				if (max.o == null || max.o.getScore() < scores[label]) max.set(model.getPrediction(label, scores[label]), i);
 			}
 		}
 	}
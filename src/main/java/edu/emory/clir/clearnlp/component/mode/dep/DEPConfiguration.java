@@ -32,6 +32,10 @@ public class DEPConfiguration extends AbstractConfiguration
 	private boolean eval_punct;
 	private String root_label;
 	private int beam_size;
+	private int time_budget;
+	private int transition_budget;
+	private int headless_candidates;
+	private boolean label_groups;
 	
 //	============================== Initialization ==============================
 	
@@ -54,10 +58,18 @@ public class DEPConfiguration extends AbstractConfiguration
 		boolean evalPunct = XmlUtils.getBooleanTextContent(XmlUtils.getFirstElementByTagName(eMode, "evaluate_punctuation"));
 		String rootLabel  = XmlUtils.getTrimmedTextContent(XmlUtils.getFirstElementByTagName(eMode, "root_label"));
 		int beamSize = XmlUtils.getIntegerTextContent(XmlUtils.getFirstElementByTagName(eMode, "beam_size"));
+		int timeBudget = XmlUtils.getIntegerTextContent(XmlUtils.getFirstElementByTagName(eMode, "time_budget"));
+		int transitionBudget = XmlUtils.getIntegerTextContent(XmlUtils.getFirstElementByTagName(eMode, "transition_budget"));
+		int headlessCandidates = XmlUtils.getIntegerTextContent(XmlUtils.getFirstElementByTagName(eMode, "headless_candidates"));
+		boolean labelGroups = XmlUtils.getBooleanTextContent(XmlUtils.getFirstElementByTagName(eMode, "label_groups"));
 		
 		setEvaluatePunctuation(evalPunct);
 		setRootLabel(rootLabel);
 		setBeamSize(beamSize);
+		setTimeBudget(timeBudget);
+		setTransitionBudget(transitionBudget);
+		setHeadlessCandidates(headlessCandidates);
+		setLabelGroups(labelGroups);
 	}
 	
 	public int getBeamSize()
@@ -70,6 +82,50 @@ public class DEPConfiguration extends AbstractConfiguration
 		beam_size = size;
 	}
 	
+	/** @return the maximum time in milliseconds to decode each sentence before falling back to greedy decisions; 0 if unlimited. */
+	public int getTimeBudget()
+	{
+		return time_budget;
+	}
+	
+	public void setTimeBudget(int milliseconds)
+	{
+		time_budget = milliseconds;
+	}
+	
+	/** @return the maximum number of transitions, including the ones in branches, for each sentence before falling back to greedy decisions; 0 if unlimited. */
+	public int getTransitionBudget()
+	{
+		return transition_budget;
+	}
+	
+	public void setTransitionBudget(int transitions)
+	{
+		transition_budget = transitions;
+	}
+	
+	/** @return the maximum number of candidate heads scored on each side of a node left without a head; 0 if unlimited. */
+	public int getHeadlessCandidates()
+	{
+		return headless_candidates;
+	}
+	
+	public void setHeadlessCandidates(int candidates)
+	{
+		headless_candidates = candidates;
+	}
+	
+	/** @return {@code true} if the weights are copied per label group for decoding so that restricted transitions read only the weights of their labels. */
+	public boolean useLabelGroups()
+	{
+		return label_groups;
+	}
+	
+	public void setLabelGroups(boolean use)
+	{
+		label_groups = use;
+	}
+	
 	public String getRootLabel()
 	{
 		return root_label;
@@ -39,6 +39,10 @@ public class DEPStateBranch extends AbstractDEPState implements DEPTransition
 	private ObjectObjectDoubleTriple<DEPArc[],List<StringInstance>> best_tree;
 	private PriorityQueue<DEPBranch> q_branches;
 	private boolean save_branch;
+	private boolean is_branching;
+	private boolean over_budget;
+	private long time_deadline;
+	private int num_steps;
 	private int beam_size;
 	private int max_heads;
 	
@@ -57,23 +61,71 @@ public class DEPStateBranch extends AbstractDEPState implements DEPTransition
 		beam_size = t_configuration.getBeamSize();
 		save_branch = beam_size > 1;
 		if (save_branch) q_branches = new PriorityQueue<>(Collections.reverseOrder());
+		startClock();
+	}
+	
+//	====================================== BUDGET ======================================
+	
+	/**
+	 * Starts measuring the time budget of this sentence from now (see {@link DEPConfiguration#getTimeBudget()}).
+	 * Called when this state is created, and again before branching when sentences are decoded as a batch.
+	 */
+	public void startClock()
+	{
+		int budget = t_configuration.getTimeBudget();
+		time_deadline = (budget > 0) ? System.nanoTime() + budget * 1000000L : 0;
+	}
+	
+	/** @return {@code true} if the time or the transition budget of this sentence is exceeded; budgets apply to decode and evaluate only. */
+	public boolean isOverBudget()
+	{
+		return over_budget;
+	}
+	
+	private boolean checkBudget()
+	{
+		if (c_flag != CFlag.DECODE && c_flag != CFlag.EVALUATE) return false;
+		int maxSteps = t_configuration.getTransitionBudget();
+		if (maxSteps > 0 && num_steps >= maxSteps) return true;
+		return time_deadline != 0 && System.nanoTime() > time_deadline;
+	}
+	
+	/** Once the budget is exceeded, no more branch is saved or taken, and the current branch is terminated. */
+	@Override
+	public void next(DEPLabel label)
+	{
+		super.next(label);
+		num_steps++;
+		
+		if (!over_budget && checkBudget())
+		{
+			over_budget = true;
+			save_branch = false;
+		}
+	}
+	
+	@Override
+	public boolean isTerminate()
+	{
+		return super.isTerminate() || (is_branching && over_budget);
 	}
 	
 //	====================================== BRANCH ======================================
 	
 	public boolean startBranching()
 	{
-		if (q_branches == null || q_branches.isEmpty()) return false;
-		best_tree   = new ObjectObjectDoubleTriple<>(d_tree.getHeads(), null, getScore());
-		beam_size   = Math.min(beam_size - 1, q_branches.size());
-		max_heads   = d_tree.countHeaded();
-		save_branch = false;
+		if (q_branches == null || q_branches.isEmpty() || over_budget) return false;
+		best_tree    = new ObjectObjectDoubleTriple<>(d_tree.getHeads(), null, getScore());
+		beam_size    = Math.min(beam_size - 1, q_branches.size());
+		max_heads    = d_tree.countHeaded();
+		save_branch  = false;
+		is_branching = true;
 		return true;
 	}
 	
 	public boolean nextBranch()
 	{
-		if (0 < beam_size--)
+		if (!over_budget && 0 < beam_size--)
 		{
 			q_branches.poll().reset();
 			return true;
@@ -84,6 +136,7 @@ public class DEPStateBranch extends AbstractDEPState implements DEPTransition
 	
 	public void saveBest(List<StringInstance> instances)
 	{
+		if (!super.isTerminate()) return;	// terminated by the budget
 		int heads = d_tree.countHeaded();
 		double score = getScore();
 		
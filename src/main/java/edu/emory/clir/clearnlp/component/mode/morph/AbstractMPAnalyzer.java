@@ -33,5 +33,12 @@ abstract public class AbstractMPAnalyzer extends AbstractComponent
 			analyze(node);
 	}
 	
+	/** Morphological rules are read-only once loaded. */
+	@Override
+	public boolean isThreadSafe()
+	{
+		return true;
+	}
+	
 	abstract public void analyze(DEPNode node);
 }
\ No newline at end of file
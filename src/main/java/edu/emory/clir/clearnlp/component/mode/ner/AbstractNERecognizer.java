@@ -16,6 +16,7 @@
 package edu.emory.clir.clearnlp.component.mode.ner;
 
 import java.io.ObjectInputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
@@ -78,6 +79,7 @@ public abstract class AbstractNERecognizer extends AbstractStatisticalComponent<
 	@Override
 	public void setLexicons(Object lexicons)
 	{
+		checkFrozen();
 		ner_lexicon = (NERLexicon)lexicons;
 	}
 	
@@ -114,6 +116,26 @@ public abstract class AbstractNERecognizer extends AbstractStatisticalComponent<
 		}
 	}
 
+	@Override
+	public void process(List<DEPTree> trees)
+	{
+		if (!isDecode())
+		{
+			super.process(trees);
+			return;
+		}
+		
+		List<NERState> states = new ArrayList<>(trees.size());
+		
+		for (DEPTree tree : trees)
+			states.add(new NERState(tree, c_flag, GlobalLexica.getNamedEntityDictionary()));
+		
+		decode(states);
+		
+		for (NERState state : states)
+			state.postProcess();
+	}
+	
 	@Override
 	protected StringFeatureVector createStringFeatureVector(NERState state)
 	{
@@ -123,7 +145,8 @@ public abstract class AbstractNERecognizer extends AbstractStatisticalComponent<
 	@Override
 	protected String getAutoLabel(NERState state, StringFeatureVector vector)
 	{
-		return s_models[0].predictBest(vector).getLabel();
+		StringModel model = s_models[0];
+		return model.getLabel(model.predictBestIndex(vector, null, getScoreBuffer(model)));
 	}
 	
 //	====================================== ONLINE TRAIN ======================================
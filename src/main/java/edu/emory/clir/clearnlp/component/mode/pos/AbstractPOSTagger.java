@@ -16,11 +16,11 @@
 package edu.emory.clir.clearnlp.component.mode.pos;
 
 import java.io.ObjectInputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
-import edu.emory.clir.clearnlp.classification.prediction.StringPrediction;
 import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
 import edu.emory.clir.clearnlp.component.AbstractStatisticalComponent;
 import edu.emory.clir.clearnlp.dependency.DEPLib;
@@ -78,6 +78,7 @@ public abstract class AbstractPOSTagger extends AbstractStatisticalComponent<Str
 	@Override
 	public void setLexicons(Object lexicons)
 	{
+		checkFrozen();
 		pos_lexicon = (POSLexicon)lexicons;
 	}
 	
@@ -114,6 +115,26 @@ public abstract class AbstractPOSTagger extends AbstractStatisticalComponent<Str
 		}
 	}
 
+	@Override
+	public void process(List<DEPTree> trees)
+	{
+		if (!isDecode())
+		{
+			super.process(trees);
+			return;
+		}
+		
+		List<POSState> states = new ArrayList<>(trees.size());
+		
+		for (DEPTree tree : trees)
+			states.add(new POSState(tree, c_flag, pos_lexicon));
+		
+		decode(states);
+		
+		for (POSState state : states)
+			postProcess(state);
+	}
+	
 	@Override
 	protected StringFeatureVector createStringFeatureVector(POSState state)
 	{
@@ -123,9 +144,13 @@ public abstract class AbstractPOSTagger extends AbstractStatisticalComponent<Str
 	@Override
 	protected String getAutoLabel(POSState state, StringFeatureVector vector)
 	{
-		StringPrediction[] ps = s_models[0].predictTop2(vector);
-		state.save2ndLabel(ps, DEPLib.FEAT_POS2);
-		return ps[0].getLabel();
+		StringModel model = s_models[0];
+		double[] scores = getScoreBuffer(model);
+		int[] top = getTop2Buffer();
+		
+		model.predictTopIndices(vector, null, scores, top);
+		state.save2ndLabel(scores[top[0]], model.getLabel(top[1]), scores[top[1]], DEPLib.FEAT_POS2);
+		return model.getLabel(top[0]);
 	}
 	
 	abstract void postProcess(POSState state);
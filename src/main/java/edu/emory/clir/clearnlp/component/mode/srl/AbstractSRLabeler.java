@@ -16,11 +16,11 @@
 package edu.emory.clir.clearnlp.component.mode.srl;
 
 import java.io.ObjectInputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
-import edu.emory.clir.clearnlp.classification.prediction.StringPrediction;
 import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
 import edu.emory.clir.clearnlp.component.AbstractStatisticalComponent;
 import edu.emory.clir.clearnlp.component.mode.srl.state.AbstractSRLState;
@@ -86,6 +86,23 @@ public abstract class AbstractSRLabeler extends AbstractStatisticalComponent<Str
 			c_eval.countCorrect(tree, state.getOracle());
 	}
 	
+	@Override
+	public void process(List<DEPTree> trees)
+	{
+		if (!isDecode())
+		{
+			super.process(trees);
+			return;
+		}
+		
+		List<AbstractSRLState> states = new ArrayList<>(trees.size());
+		
+		for (DEPTree tree : trees)
+			states.add(getState(tree));
+		
+		decode(states);
+	}
+	
 	protected abstract AbstractSRLState getState(DEPTree tree);
 	
 	private void addInstances(AbstractSRLState state, List<StringInstance> instances)
@@ -105,8 +122,8 @@ public abstract class AbstractSRLabeler extends AbstractStatisticalComponent<Str
 	@Override
 	protected String getAutoLabel(AbstractSRLState state, StringFeatureVector vector)
 	{
-		StringPrediction p = s_models[state.getModelIndex()].predictBest(vector);
-		return p.getLabel();
+		StringModel model = s_models[state.getModelIndex()];
+		return model.getLabel(model.predictBestIndex(vector, null, getScoreBuffer(model)));
 	}
 
 //	====================================== ONLINE TRAIN ======================================
@@ -0,0 +1,262 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.pipeline;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import edu.emory.clir.clearnlp.component.AbstractComponent;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.util.constant.StringConst;
+
+/**
+ * Runs components as separate stages connected by bounded queues (e.g., POS &rarr; morph &rarr; DEP &rarr; SRL &rarr; NER).
+ * Each stage has its own number of workers so that slower stages can be given more threads.
+ * The source (e.g., reading and tokenizing) runs on its own thread and the sink is called on the calling thread in the input order.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class NLPPipeline
+{
+	private final Item END = new Item(-1, null);
+	
+	private List<PipelineStage> l_stages;
+	private int n_queueSize;
+	
+	/**
+	 * @param components components in the processing order.
+	 * @param workers the number of workers for each component; missing entries use 1.
+	 * @param queueSize the capacity of the queue in front of each stage.
+	 */
+	public NLPPipeline(AbstractComponent[] components, int[] workers, int queueSize)
+	{
+		if (queueSize < 1) throw new IllegalArgumentException("The queue size must be positive: "+queueSize);
+		int i, size = components.length;
+		l_stages = new ArrayList<>(size);
+		n_queueSize = queueSize;
+		
+		for (i=0; i<size; i++)
+			l_stages.add(new PipelineStage(components[i], i < workers.length ? workers[i] : 1));
+	}
+	
+	public List<PipelineStage> getStages()
+	{
+		return l_stages;
+	}
+	
+	/** @return the metrics of all stages, one stage per line. */
+	public String getSummary()
+	{
+		StringBuilder build = new StringBuilder();
+		
+		for (PipelineStage stage : l_stages)
+		{
+			build.append(stage.toString());
+			build.append(StringConst.NEW_LINE);
+		}
+		
+		return build.toString();
+	}
+
+//	====================================== RUN ======================================
+	
+	/**
+	 * Processes all trees from the source through every stage, then passes them to the sink in the order they were supplied.
+	 * Blocks until the source returns {@code null} and all trees are passed to the sink.
+	 * @param source returns {@code null} when there is no more tree.
+	 */
+	public void run(Supplier<DEPTree> source, Consumer<DEPTree> sink)
+	{
+		int i, size = l_stages.size(), threads = 1;
+		List<BlockingQueue<Item>> queues = new ArrayList<>(size+1);
+		
+		for (i=0; i<=size; i++) queues.add(new ArrayBlockingQueue<>(n_queueSize));
+		for (PipelineStage stage : l_stages) threads += stage.getWorkerSize();
+		
+		// bounds the number of trees in flight, including the ones waiting to be reordered for the sink
+		Semaphore inFlight = new Semaphore((size+1) * n_queueSize);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		executor.execute(new SourceTask(source, queues.get(0), inFlight));
+		
+		for (i=0; i<size; i++)
+		{
+			PipelineStage stage = l_stages.get(i);
+			AtomicInteger alive = new AtomicInteger(stage.getWorkerSize());
+			
+			for (int j=stage.getWorkerSize(); j>0; j--)
+				executor.execute(new StageTask(stage, queues.get(i), queues.get(i+1), alive));
+		}
+		
+		try
+		{
+			drain(queues.get(size), sink, inFlight);
+		}
+		catch (InterruptedException e) {e.printStackTrace();}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		
+		try
+		{
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		catch (InterruptedException e) {e.printStackTrace();}
+	}
+	
+	/** Passes trees to the sink in the input order. */
+	private void drain(BlockingQueue<Item> queue, Consumer<DEPTree> sink, Semaphore inFlight) throws InterruptedException
+	{
+		Map<Long,DEPTree> pending = new HashMap<>();
+		long next = 0;
+		DEPTree tree;
+		Item item;
+		
+		while ((item = queue.take()) != END)
+		{
+			pending.put(item.index, item.tree);
+			
+			while ((tree = pending.remove(next)) != null)
+			{
+				sink.accept(tree);
+				inFlight.release();
+				next++;
+			}
+		}
+	}
+	
+	private void put(BlockingQueue<Item> queue, Item item)
+	{
+		try
+		{
+			queue.put(item);
+		}
+		catch (InterruptedException e) {Thread.currentThread().interrupt();}
+	}
+	
+	private class SourceTask implements Runnable
+	{
+		private Supplier<DEPTree> t_source;
+		private BlockingQueue<Item> q_output;
+		private Semaphore s_inFlight;
+		
+		public SourceTask(Supplier<DEPTree> source, BlockingQueue<Item> output, Semaphore inFlight)
+		{
+			t_source   = source;
+			q_output   = output;
+			s_inFlight = inFlight;
+		}
+		
+		@Override
+		public void run()
+		{
+			DEPTree tree;
+			long index;
+			
+			try
+			{
+				for (index=0; (tree = t_source.get()) != null; index++)
+				{
+					s_inFlight.acquire();
+					q_output.put(new Item(index, tree));
+				}
+			}
+			catch (InterruptedException e) {Thread.currentThread().interrupt();}
+			catch (Exception e) {e.printStackTrace();}
+			
+			put(q_output, END);
+		}
+	}
+	
+	private class StageTask implements Runnable
+	{
+		private PipelineStage p_stage;
+		private BlockingQueue<Item> q_input;
+		private BlockingQueue<Item> q_output;
+		private AtomicInteger n_alive;
+		
+		public StageTask(PipelineStage stage, BlockingQueue<Item> input, BlockingQueue<Item> output, AtomicInteger alive)
+		{
+			p_stage  = stage;
+			q_input  = input;
+			q_output = output;
+			n_alive  = alive;
+		}
+		
+		@Override
+		public void run()
+		{
+			AbstractComponent component = p_stage.getComponent();
+			long time;
+			Item item;
+			int depth;
+			
+			try
+			{
+				while (true)
+				{
+					depth = q_input.size();
+					if ((item = q_input.take()) == END) break;
+					p_stage.sampleQueueDepth(depth);
+					time = System.nanoTime();
+					
+					try
+					{
+						component.process(item.tree);
+					}
+					catch (Exception e) {e.printStackTrace();}
+					
+					time = System.nanoTime() - time;
+					p_stage.addSentence(time);
+					component.getMetrics().addSentence(item.tree.size()-1, time);
+					q_output.put(item);
+				}
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return;
+			}
+			
+			// lets the other workers of this stage see the end, and the last one passes it on
+			put(q_input, END);
+			if (n_alive.decrementAndGet() == 0) put(q_output, END);
+		}
+	}
+	
+	private class Item
+	{
+		private long    index;
+		private DEPTree tree;
+		
+		public Item(long index, DEPTree tree)
+		{
+			this.index = index;
+			this.tree  = tree;
+		}
+	}
+}
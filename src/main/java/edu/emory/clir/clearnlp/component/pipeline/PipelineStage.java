@@ -0,0 +1,120 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.pipeline;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.emory.clir.clearnlp.component.AbstractComponent;
+
+/**
+ * A stage of {@link NLPPipeline} that runs one component with its own number of workers.
+ * Keeps the number of processed sentences, the busy time, and the depth of the input queue sampled on every take.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class PipelineStage
+{
+	private AbstractComponent c_component;
+	private int n_workers;
+	
+	private AtomicLong    n_sentences = new AtomicLong();
+	private AtomicLong    n_busyNanos = new AtomicLong();
+	private AtomicLong    n_depthSum  = new AtomicLong();
+	private AtomicInteger n_depthMax  = new AtomicInteger();
+	
+	/**
+	 * @param workers the number of threads running this stage; reset to 1 if the component is not thread-safe.
+	 * @throws IllegalArgumentException if {@code workers < 1}.
+	 */
+	public PipelineStage(AbstractComponent component, int workers)
+	{
+		if (workers < 1) throw new IllegalArgumentException("The number of workers must be positive: "+workers);
+		c_component = component;
+		n_workers   = component.isThreadSafe() ? workers : 1;
+	}
+	
+	public AbstractComponent getComponent()
+	{
+		return c_component;
+	}
+	
+	public String getName()
+	{
+		return c_component.getClass().getSimpleName();
+	}
+	
+	public int getWorkerSize()
+	{
+		return n_workers;
+	}
+
+//	====================================== METRICS ======================================
+	
+	/** Called by the workers of {@link NLPPipeline} before taking a sentence from the input queue. */
+	void sampleQueueDepth(int depth)
+	{
+		n_depthSum.addAndGet(depth);
+		n_depthMax.accumulateAndGet(depth, Math::max);
+	}
+	
+	/** Called by the workers of {@link NLPPipeline} after processing a sentence. */
+	void addSentence(long nanos)
+	{
+		n_sentences.incrementAndGet();
+		n_busyNanos.addAndGet(nanos);
+	}
+	
+	/** @return the number of sentences processed by this stage. */
+	public long getSentenceCount()
+	{
+		return n_sentences.get();
+	}
+	
+	/** @return the total time in milliseconds spent by all workers in this stage. */
+	public long getBusyMillis()
+	{
+		return n_busyNanos.get() / 1000000;
+	}
+	
+	/** @return the average depth of the input queue observed by the workers. */
+	public double getAverageQueueDepth()
+	{
+		long count = n_sentences.get();
+		return (count > 0) ? (double)n_depthSum.get() / count : 0;
+	}
+	
+	/** @return the maximum depth of the input queue observed by the workers. */
+	public int getMaxQueueDepth()
+	{
+		return n_depthMax.get();
+	}
+	
+	/** Resets all metrics of this stage. */
+	public void resetMetrics()
+	{
+		n_sentences.set(0);
+		n_busyNanos.set(0);
+		n_depthSum .set(0);
+		n_depthMax .set(0);
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("%-20s workers: %3d, sentences: %8d, busy: %8d ms, queue (avg/max): %6.1f/%d", getName(), n_workers, getSentenceCount(), getBusyMillis(), getAverageQueueDepth(), getMaxQueueDepth());
+	}
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+
+/**
+ * Decodes sentences in parallel by windows: the sentences in each window are sorted by their lengths,
+ * split into buckets of similar lengths with about the same estimated cost (see {@link #getCost(DEPTree)}),
+ * and the buckets are submitted longest first so that long sentences do not stall the end of the window.
+ * The next window is submitted before the current one is passed to the sink so that threads do not wait between windows,
+ * and the sink is called on the calling thread in the input order.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class SentenceScheduler
+{
+	/** The number of buckets per thread in each window. */
+	static private final int BUCKETS_PER_THREAD = 4;
+	
+	private ExecutorService e_executor;
+	private int n_threads;
+	private int n_windowSize;
+	
+	/**
+	 * @param threads the number of threads in the executor.
+	 * @param windowSize the number of sentences sorted together; at most twice as many sentences are in memory at once.
+	 */
+	public SentenceScheduler(ExecutorService executor, int threads, int windowSize)
+	{
+		if (threads    < 1) throw new IllegalArgumentException("The number of threads must be positive: "+threads);
+		if (windowSize < 1) throw new IllegalArgumentException("The window size must be positive: "+windowSize);
+		
+		e_executor   = executor;
+		n_threads    = threads;
+		n_windowSize = windowSize;
+	}
+	
+	/**
+	 * Processes all trees from the source, then passes them to the sink in the order they were supplied.
+	 * @param source returns {@code null} when there is no more tree; it is not called again afterwards.
+	 * @param processor called by the executor threads for each tree.
+	 */
+	public void run(Supplier<DEPTree> source, Consumer<DEPTree> processor, Consumer<DEPTree> sink)
+	{
+		Window prev = null, curr;
+		List<DEPTree> trees;
+		
+		do
+		{
+			trees = read(source);
+			curr  = submit(trees, processor);
+			if (prev != null) prev.drain(sink);
+			prev = curr;
+		}
+		while (trees.size() == n_windowSize);
+		
+		if (prev != null) prev.drain(sink);
+	}
+	
+	/** @return the estimated cost of decoding the specific tree, which grows super-linearly with its length. */
+	static public double getCost(DEPTree tree)
+	{
+		double n = tree.size();
+		return n * Math.sqrt(n);
+	}
+	
+	private List<DEPTree> read(Supplier<DEPTree> source)
+	{
+		List<DEPTree> trees = new ArrayList<>();
+		DEPTree tree;
+		
+		while (trees.size() < n_windowSize && (tree = source.get()) != null)
+			trees.add(tree);
+		
+		return trees;
+	}
+	
+	/** @return the window of the submitted trees, or {@code null} if there is no tree. */
+	private Window submit(List<DEPTree> trees, Consumer<DEPTree> processor)
+	{
+		if (trees.isEmpty()) return null;
+		List<DEPTree> sorted = new ArrayList<>(trees);
+		sorted.sort((t1, t2) -> t2.size() - t1.size());
+		
+		List<Future<?>> futures = new ArrayList<>();
+		List<DEPTree> bucket = new ArrayList<>();
+		double total = 0, cost = 0, target;
+		
+		for (DEPTree tree : sorted) total += getCost(tree);
+		target = total / (n_threads * BUCKETS_PER_THREAD);
+		
+		for (DEPTree tree : sorted)
+		{
+			bucket.add(tree);
+			cost += getCost(tree);
+			
+			if (cost >= target)
+			{
+				futures.add(e_executor.submit(new BucketTask(bucket, processor)));
+				bucket = new ArrayList<>();
+				cost = 0;
+			}
+		}
+		
+		if (!bucket.isEmpty()) futures.add(e_executor.submit(new BucketTask(bucket, processor)));
+		return new Window(trees, futures);
+	}
+	
+	private class Window
+	{
+		private List<DEPTree>   trees;
+		private List<Future<?>> futures;
+		
+		public Window(List<DEPTree> trees, List<Future<?>> futures)
+		{
+			this.trees   = trees;
+			this.futures = futures;
+		}
+		
+		/** Waits for all buckets in this window, then passes the trees to the sink in the input order. */
+		public void drain(Consumer<DEPTree> sink)
+		{
+			for (Future<?> future : futures)
+			{
+				try
+				{
+					future.get();
+				}
+				catch (InterruptedException | ExecutionException e) {e.printStackTrace();}
+			}
+			
+			for (DEPTree tree : trees)
+				sink.accept(tree);
+		}
+	}
+	
+	private class BucketTask implements Runnable
+	{
+		private List<DEPTree>     trees;
+		private Consumer<DEPTree> processor;
+		
+		public BucketTask(List<DEPTree> trees, Consumer<DEPTree> processor)
+		{
+			this.trees     = trees;
+			this.processor = processor;
+		}
+		
+		@Override
+		public void run()
+		{
+			for (DEPTree tree : trees)
+			{
+				try
+				{
+					processor.accept(tree);
+				}
+				catch (Exception e) {e.printStackTrace();}
+			}
+		}
+	}
+}
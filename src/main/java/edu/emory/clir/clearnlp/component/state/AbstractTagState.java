@@ -99,11 +99,14 @@ public abstract class AbstractTagState extends AbstractState<String,String>
 	
 	public void save2ndLabel(StringPrediction[] ps, String featKey)
 	{
-		StringPrediction fst = ps[0];
-		StringPrediction snd = ps[1];
-		
-		if (fst.getScore() - snd.getScore() < 1)
-			getInput().putFeat(featKey, snd.getLabel());
+		save2ndLabel(ps[0].getScore(), ps[1].getLabel(), ps[1].getScore(), featKey);
+	}
+	
+	/** Same as {@link #save2ndLabel(StringPrediction[], String)} given the score of the best label and the 2nd best label with its score. */
+	public void save2ndLabel(double fstScore, String sndLabel, double sndScore, String featKey)
+	{
+		if (fstScore - sndScore < 1)
+			getInput().putFeat(featKey, sndLabel);
 	}
 	
 	protected abstract void setLabel(DEPNode node, String label);
@@ -111,6 +111,18 @@ public abstract class AbstractNLPTrainer
 		return new ObjectDoublePair<AbstractStatisticalComponent<?,?,?,?,?>>(component, score); 
 	}
 	
+	/** @return the score of the component with the specific lexicons and models on the development files. */
+	public double evaluate(Object lexicons, StringModel[] models, List<String> developFiles)
+	{
+		AbstractStatisticalComponent<?,?,?,?,?> component = createComponentForEvaluate(lexicons, models);
+		AbstractEval<?> eval = component.getEval();
+		
+		eval.clear();
+		process(component, developFiles, false);
+		BinUtils.LOG.info(eval.toString()+"\n");
+		return eval.getScore();
+	}
+	
 	/** Initializes the training configuration. */
 	protected abstract AbstractConfiguration createConfiguration(InputStream in);
 	
@@ -129,7 +141,8 @@ public abstract class AbstractNLPTrainer
 	/** Creates an NLP component for decode. */
 	protected abstract AbstractStatisticalComponent<?,?,?,?,?> createComponentForDecode(byte[] models);
 	
-	private double trainPipeline(AbstractStatisticalComponent<?,?,?,?,?> component, AbstractTrainer[] trainers, List<String> developFiles)
+	/** Trains the models of the specific component by the specific trainers; package-private for testing. */
+	double trainPipeline(AbstractStatisticalComponent<?,?,?,?,?> component, AbstractTrainer[] trainers, List<String> developFiles)
 	{
 		AbstractTrainer trainer;
 		double score = 0;
@@ -196,15 +209,26 @@ public abstract class AbstractNLPTrainer
 		return prevScore;
 	}
 	
+	/**
+	 * Trains each model once, where the labels of a multi-class model are trained in parallel by its one-vs-all trainer.
+	 * Unlike {@link #trainOnline}, there is no earlier trained model to fall back on, so the trained weights are always kept.
+	 * @return the score on the development files after the last model is trained.
+	 */
 	private double trainOneVsAll(AbstractStatisticalComponent<?,?,?,?,?> component, AbstractTrainer[] trainers, List<String> developFiles)
 	{
-//		AbstractEval<?> eval = component.getEval();
-//		trainer.train();
-//		process(component, developFiles, false);
-//		double currScore = eval.getScore();
-//		BinUtils.LOG.info(eval.toString());
-//		return currScore;
-		return 0;
+		AbstractEval<?> eval = component.getEval();
+		double score = 0;
+		
+		for (int i=0; i<trainers.length; i++)
+		{
+			trainers[i].train();
+			eval.clear();
+			process(component, developFiles, false);
+			score = eval.getScore();
+			BinUtils.LOG.info(String.format("%3d: %s\n", i, eval.toString()));
+		}
+		
+		return score;
 	}
 	
 //	private double trainPipeline(AbstractStatisticalComponent<?,?,?,?,?> component, AbstractTrainer[] trainers, List<String> developFiles)
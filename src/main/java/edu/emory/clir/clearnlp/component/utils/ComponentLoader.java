@@ -0,0 +1,113 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.utils;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import edu.emory.clir.clearnlp.component.AbstractComponent;
+
+/**
+ * Loads components and global lexica concurrently so that the startup time is about that of the largest model.
+ * Each component has its own readiness future; {@link #getComponents()} waits for all of them including the global lexica.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ComponentLoader
+{
+	private Map<NLPMode,CompletableFuture<AbstractComponent>> m_components;
+	private CompletableFuture<Void> f_lexica;
+	private ExecutorService e_executor;
+	private boolean b_shutdown;
+	
+	/** Loads on a new pool of the specific number of threads, which is shut down by {@link #getComponents()}. */
+	public ComponentLoader(int threads)
+	{
+		this(Executors.newFixedThreadPool(Math.max(1, threads)));
+		b_shutdown = true;
+	}
+	
+	/** Loads on the specific executor, which is not shut down by this loader. */
+	public ComponentLoader(ExecutorService executor)
+	{
+		m_components = new LinkedHashMap<>();
+		f_lexica     = CompletableFuture.completedFuture(null);
+		e_executor   = executor;
+		b_shutdown   = false;
+	}
+	
+	/** Loads the global lexica in the specific configuration (see {@link GlobalLexica#init(InputStream, java.util.concurrent.Executor)}). */
+	public CompletableFuture<Void> loadGlobalLexica(InputStream configuration)
+	{
+		return f_lexica = GlobalLexica.init(configuration, e_executor);
+	}
+	
+	/**
+	 * Loads the component of the specific mode using the supplier.
+	 * @return the future completed when the component is loaded.
+	 */
+	public CompletableFuture<AbstractComponent> load(NLPMode mode, Supplier<AbstractComponent> supplier)
+	{
+		CompletableFuture<AbstractComponent> future = CompletableFuture.supplyAsync(supplier, e_executor);
+		m_components.put(mode, future);
+		return future;
+	}
+	
+	/** @return the future of the component of the specific mode if it is being loaded; otherwise, {@code null}. */
+	public CompletableFuture<AbstractComponent> getFuture(NLPMode mode)
+	{
+		return m_components.get(mode);
+	}
+	
+	public CompletableFuture<Void> getGlobalLexicaFuture()
+	{
+		return f_lexica;
+	}
+	
+	/**
+	 * Waits for the global lexica and all components.
+	 * @return the components in the order they were added to this loader.
+	 * @throws IllegalStateException if any of them failed to load.
+	 */
+	public List<AbstractComponent> getComponents()
+	{
+		List<AbstractComponent> list = new ArrayList<>();
+		
+		try
+		{
+			f_lexica.join();
+			for (CompletableFuture<AbstractComponent> future : m_components.values()) list.add(future.join());
+		}
+		catch (CompletionException e)
+		{
+			throw new IllegalStateException("Failed to load components.", e.getCause());
+		}
+		finally
+		{
+			if (b_shutdown) e_executor.shutdown();
+		}
+		
+		return list;
+	}
+}
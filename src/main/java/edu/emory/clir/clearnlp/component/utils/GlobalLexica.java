@@ -20,6 +20,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import org.w3c.dom.Element;
@@ -39,13 +41,27 @@ public class GlobalLexica
 	static private PrefixTree<String,NERInfoSet> named_entity_dictionary;
 	
 	static public void init(InputStream in)
+	{
+		init(in, Runnable::run).join();
+	}
+	
+	/**
+	 * Loads the distributional semantics and the named entity dictionary in parallel using the specific executor.
+	 * @return the future completed when all lexica are loaded.
+	 */
+	static public CompletableFuture<Void> init(InputStream in, Executor executor)
 	{
 		Element doc = XmlUtils.getDocumentElement(in);
 		Element eLexica = XmlUtils.getFirstElementByTagName(doc, "global");
-		if (eLexica == null) return;
+		if (eLexica == null) return CompletableFuture.completedFuture(null);
+		
+		List<String> paths = XmlUtils.getTrimmedTextContents(eLexica, "distributional_semantics");
+		String path = XmlUtils.getTrimmedTextContent(eLexica, "named_entity_dictionary");
 		
-		initDistributionalSemanticsWords(XmlUtils.getTrimmedTextContents(eLexica, "distributional_semantics"));
-		initNamedEntityDictionary(XmlUtils.getTrimmedTextContent(eLexica, "named_entity_dictionary"));
+		List<CompletableFuture<Map<String,Set<String>>>> ds = paths.stream().map(p -> CompletableFuture.supplyAsync(() -> NLPUtils.getDistributionalSemantics(p), executor)).collect(Collectors.toList());
+		CompletableFuture<Void> fDS  = CompletableFuture.allOf(ds.toArray(new CompletableFuture<?>[ds.size()])).thenRun(() -> distributional_semantics_words = ds.stream().map(CompletableFuture::join).collect(Collectors.toCollection(ArrayList::new)));
+		CompletableFuture<Void> fNER = CompletableFuture.runAsync(() -> initNamedEntityDictionary(path), executor);
+		return CompletableFuture.allOf(fDS, fNER);
 	}
 	
 	static public void initNamedEntityDictionary(String path)
@@ -0,0 +1,310 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.utils;
+
+import java.io.ObjectInputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import edu.emory.clir.clearnlp.classification.model.ModelInputStream;
+import edu.emory.clir.clearnlp.classification.model.StringModel;
+import edu.emory.clir.clearnlp.component.AbstractComponent;
+
+/**
+ * A reference-counted cache of the feature extractors, lexicons, and models loaded from model paths so that
+ * components created from the same path share one copy regardless of their configurations.
+ * Components created by this registry are frozen; each of them holds a reference until it is either
+ * {@link #release(AbstractComponent) released} or garbage collected.
+ * Models no longer referenced are kept or evicted by the {@link Eviction} policy.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ModelRegistry
+{
+	static private final ModelRegistry INSTANCE = new ModelRegistry(Eviction.NONE, 0);
+	
+	public enum Eviction
+	{
+		/** Keeps unreferenced models until {@link ModelRegistry#clear()}. */
+		NONE,
+		/** Keeps up to the capacity number of unreferenced models, evicting the least recently released first. */
+		LRU,
+		/** Keeps unreferenced models through soft references so that they are reclaimed under memory pressure. */
+		SOFT;
+	}
+	
+	private Function<String,ObjectInputStream> f_opener;
+	private Map<String,Entry> m_entries;
+	/** Entries with no reference in the order of release (LRU only). */
+	private LinkedHashMap<String,Entry> m_idle;
+	private Set<ComponentReference> s_references;
+	private ReferenceQueue<AbstractComponent> q_collected;
+	private Eviction e_eviction;
+	private int n_capacity;
+	
+	/** Loads models through {@link NLPUtils#getObjectInputStream(String)}. */
+	public ModelRegistry(Eviction eviction, int capacity)
+	{
+		this(eviction, capacity, NLPUtils::getObjectInputStream);
+	}
+	
+	/** @param opener returns the object input stream of a model path in the format of {@code AbstractStatisticalComponent#save}. */
+	ModelRegistry(Eviction eviction, int capacity, Function<String,ObjectInputStream> opener)
+	{
+		f_opener     = opener;
+		m_entries    = new HashMap<>();
+		m_idle       = new LinkedHashMap<>();
+		s_references = new HashSet<>();
+		q_collected  = new ReferenceQueue<>();
+		setEviction(eviction, capacity);
+	}
+	
+	/** @return the process-wide registry, which keeps models until cleared by default. */
+	static public ModelRegistry getInstance()
+	{
+		return INSTANCE;
+	}
+	
+	/** @param capacity the maximum number of unreferenced models kept by {@link Eviction#LRU}. */
+	public synchronized void setEviction(Eviction eviction, int capacity)
+	{
+		// only entries with no reference are moved, in the order of release so that LRU keeps the most recent ones
+		List<Entry> idle = new ArrayList<>(m_idle.values());
+		e_eviction = eviction;
+		n_capacity = capacity;
+		m_idle.clear();
+		
+		for (Entry entry : m_entries.values())
+			if (entry.count == 0 && !idle.contains(entry)) idle.add(entry);
+		
+		for (Entry entry : idle) idle(entry);
+	}
+
+//	====================================== ACQUIRE/RELEASE ======================================
+	
+	/**
+	 * Creates a component from the shared models of the specific path, loading them if they are not cached.
+	 * @param constructor creates a component in the decode mode from the object input stream.
+	 * @return the frozen component, or {@code null} if the constructor returns {@code null}.
+	 * @throws IllegalStateException if the models cannot be loaded.
+	 */
+	public <T extends AbstractComponent> T acquire(String modelPath, Function<ObjectInputStream,T> constructor)
+	{
+		Entry entry;
+		Content content;
+		T component;
+		
+		synchronized (this)
+		{
+			expunge();
+			entry = m_entries.computeIfAbsent(modelPath, Entry::new);
+			m_idle.remove(modelPath);
+			entry.count++;
+		}
+		
+		try
+		{
+			content = entry.getContent();
+			component = constructor.apply(new ModelInputStream(content.models, content.objects));
+			if (component != null) component.freeze();
+		}
+		catch (Exception e)
+		{
+			synchronized (this) {decrement(entry);}
+			throw new IllegalStateException("Failed to load: "+modelPath, e);
+		}
+		
+		synchronized (this)
+		{
+			if (component != null) s_references.add(new ComponentReference(component, entry, q_collected));
+			else decrement(entry);
+		}
+		
+		return component;
+	}
+	
+	/** Releases the reference of the specific component acquired from this registry; the component should not be used afterwards. */
+	public synchronized void release(AbstractComponent component)
+	{
+		Iterator<ComponentReference> it = s_references.iterator();
+		ComponentReference reference;
+		
+		while (it.hasNext())
+		{
+			reference = it.next();
+			
+			if (reference.get() == component)
+			{
+				it.remove();
+				reference.clear();
+				decrement(reference.entry);
+				return;
+			}
+		}
+	}
+	
+	/** @return the number of live components created from the models of the specific path. */
+	public synchronized int getReferenceCount(String modelPath)
+	{
+		expunge();
+		Entry entry = m_entries.get(modelPath);
+		return (entry != null) ? entry.count : 0;
+	}
+	
+	/** @return {@code true} if the models of the specific path are loaded and have not been reclaimed. */
+	public synchronized boolean isCached(String modelPath)
+	{
+		expunge();
+		Entry entry = m_entries.get(modelPath);
+		return entry != null && entry.peek() != null;
+	}
+	
+	/** Removes all models with no reference. */
+	public synchronized void clear()
+	{
+		expunge();
+		m_entries.values().removeIf(entry -> entry.count == 0);
+		m_idle.clear();
+	}
+	
+	/** Decrements the references of components that have been garbage collected. */
+	private void expunge()
+	{
+		Reference<? extends AbstractComponent> reference;
+		
+		while ((reference = q_collected.poll()) != null)
+		{
+			if (s_references.remove(reference))
+				decrement(((ComponentReference)reference).entry);
+		}
+	}
+	
+	private void decrement(Entry entry)
+	{
+		if (--entry.count == 0) idle(entry);
+	}
+	
+	/** Applies the eviction policy to the specific entry with no reference. */
+	private void idle(Entry entry)
+	{
+		Content content = entry.peek();
+		
+		switch (e_eviction)
+		{
+		case NONE:
+			entry.strong = content;
+			entry.soft = null;
+			break;
+		case SOFT:
+			entry.soft = (content != null) ? new SoftReference<>(content) : null;
+			entry.strong = null;
+			break;
+		case LRU:
+			entry.strong = content;
+			entry.soft = null;
+			m_idle.put(entry.path, entry);
+			Iterator<Entry> it = m_idle.values().iterator();
+			
+			while (m_idle.size() > n_capacity)
+			{
+				m_entries.remove(it.next().path);
+				it.remove();
+			}
+			break;
+		}
+	}
+
+//	====================================== ENTRY ======================================
+	
+	/** The objects and models loaded from a model path. */
+	static private class Content
+	{
+		private Object[]      objects;
+		private StringModel[] models;
+	}
+	
+	private class Entry
+	{
+		private String path;
+		private int count;
+		private volatile Content strong;
+		private volatile SoftReference<Content> soft;
+		
+		public Entry(String path)
+		{
+			this.path = path;
+		}
+		
+		public Content peek()
+		{
+			Content content = strong;
+			if (content == null && soft != null) content = soft.get();
+			return content;
+		}
+		
+		/** @return the content of this entry, loading it if it is not cached; called outside of the registry lock. */
+		public synchronized Content getContent() throws Exception
+		{
+			Content content = peek();
+			if (content == null) content = load();
+			strong = content;
+			soft = null;
+			return content;
+		}
+		
+		/** Reads the feature extractors, the lexicons, and the models as in {@code AbstractStatisticalComponent#load}. */
+		private Content load() throws Exception
+		{
+			ObjectInputStream in = f_opener.apply(path);
+			if (in == null) throw new IllegalStateException("Cannot open: "+path);
+			Content content = new Content();
+			content.objects = new Object[]{in.readObject(), in.readObject()};
+			
+			if (in instanceof ModelInputStream)
+				content.models = ((ModelInputStream)in).getModels();
+			else
+			{
+				content.models = new StringModel[in.readInt()];
+				for (int i=0; i<content.models.length; i++) content.models[i] = new StringModel(in);
+			}
+			
+			in.close();
+			return content;
+		}
+	}
+	
+	static private class ComponentReference extends WeakReference<AbstractComponent>
+	{
+		private Entry entry;
+		
+		public ComponentReference(AbstractComponent component, Entry entry, ReferenceQueue<AbstractComponent> queue)
+		{
+			super(component, queue);
+			this.entry = entry;
+		}
+	}
+}
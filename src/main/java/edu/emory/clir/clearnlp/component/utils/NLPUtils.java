@@ -16,15 +16,20 @@
 package edu.emory.clir.clearnlp.component.utils;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 import org.tukaani.xz.XZInputStream;
 
+import edu.emory.clir.clearnlp.classification.model.ModelFile;
+import edu.emory.clir.clearnlp.classification.model.ModelInputStream;
 import edu.emory.clir.clearnlp.collection.tree.PrefixTree;
 import edu.emory.clir.clearnlp.component.mode.dep.AbstractDEPParser;
 import edu.emory.clir.clearnlp.component.mode.dep.DEPConfiguration;
@@ -50,6 +55,7 @@ import edu.emory.clir.clearnlp.tokenization.AbstractTokenizer;
 import edu.emory.clir.clearnlp.tokenization.EnglishTokenizer;
 import edu.emory.clir.clearnlp.util.BinUtils;
 import edu.emory.clir.clearnlp.util.IOUtils;
+import edu.emory.clir.clearnlp.util.constant.StringConst;
 import edu.emory.clir.clearnlp.util.lang.TLanguage;
 
 /**
@@ -58,8 +64,24 @@ import edu.emory.clir.clearnlp.util.lang.TLanguage;
  */
 public class NLPUtils
 {
+	static private volatile ModelRegistry g_registry = null;
+	
 	private NLPUtils() {}
 	
+	/**
+	 * Components loaded from model paths share their models through the specific registry (e.g., {@link ModelRegistry#getInstance()});
+	 * {@code null} loads the models for every component (default).
+	 */
+	static public void setModelRegistry(ModelRegistry registry)
+	{
+		g_registry = registry;
+	}
+	
+	static public ModelRegistry getModelRegistry()
+	{
+		return g_registry;
+	}
+	
 	/** @param in the inputstream for a headrule file. */
 	static public AbstractC2DConverter getC2DConverter(TLanguage language, InputStream in)
 	{
@@ -94,7 +116,8 @@ public class NLPUtils
 	
 	static public AbstractPOSTagger getPOSTagger(TLanguage language, String modelPath)
 	{
-		return getPOSTagger(language, getObjectInputStream(modelPath));
+		ModelRegistry registry = g_registry;
+		return (registry != null) ? registry.acquire(modelPath, in -> getPOSTagger(language, in)) : getPOSTagger(language, getObjectInputStream(modelPath));
 	}
 	
 	static public AbstractDEPParser getDEPParser(TLanguage language, ObjectInputStream in, DEPConfiguration configuration)
@@ -110,7 +133,8 @@ public class NLPUtils
 	
 	static public AbstractDEPParser getDEPParser(TLanguage language, String modelPath, DEPConfiguration configuration)
 	{
-		return getDEPParser(language, getObjectInputStream(modelPath), configuration);
+		ModelRegistry registry = g_registry;
+		return (registry != null) ? registry.acquire(modelPath, in -> getDEPParser(language, in, configuration)) : getDEPParser(language, getObjectInputStream(modelPath), configuration);
 	}
 	
 	static public AbstractSRLabeler getSRLabeler(TLanguage language, ObjectInputStream in, SRLConfiguration configuration)
@@ -126,7 +150,8 @@ public class NLPUtils
 	
 	static public AbstractSRLabeler getSRLabeler(TLanguage language, String modelPath, SRLConfiguration configuration)
 	{
-		return getSRLabeler(language, getObjectInputStream(modelPath), configuration);
+		ModelRegistry registry = g_registry;
+		return (registry != null) ? registry.acquire(modelPath, in -> getSRLabeler(language, in, configuration)) : getSRLabeler(language, getObjectInputStream(modelPath), configuration);
 	}
 	
 	static public AbstractNERecognizer getNERecognizer(TLanguage language, ObjectInputStream in)
@@ -142,7 +167,8 @@ public class NLPUtils
 	
 	static public AbstractNERecognizer getNERecognizer(TLanguage language, String modelPath)
 	{
-		return getNERecognizer(language, getObjectInputStream(modelPath));
+		ModelRegistry registry = g_registry;
+		return (registry != null) ? registry.acquire(modelPath, in -> getNERecognizer(language, in)) : getNERecognizer(language, getObjectInputStream(modelPath));
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -185,14 +211,33 @@ public class NLPUtils
 		return getDistributionalSemantics(getObjectInputStream(modelPath));
 	}
 	
+	/**
+	 * @return the object input stream of the specific model, which is either XZ-compressed or a {@link ModelFile};
+	 * a model file is memory-mapped, through a temporary file if it is not a file on the classpath (e.g., in a jar).
+	 */
 	static public ObjectInputStream getObjectInputStream(String modelPath)
 	{
 		try
 		{
-			return new ObjectInputStream(new XZInputStream(new BufferedInputStream(IOUtils.getInputStreamsFromClasspath(modelPath))));
+			InputStream in = new BufferedInputStream(IOUtils.getInputStreamsFromClasspath(modelPath));
+			if (ModelFile.isModelFile(in)) return new ModelInputStream(getModelFile(modelPath, in));
+			return new ObjectInputStream(new XZInputStream(in));
 		}
-		catch (IOException e) {e.printStackTrace();}
+		catch (IOException | URISyntaxException e) {e.printStackTrace();}
 
 		return null;
 	}
+	
+	static private ModelFile getModelFile(String modelPath, InputStream in) throws IOException, URISyntaxException
+	{
+		URL url = IOUtils.class.getResource(StringConst.FW_SLASH+modelPath);
+		
+		if (url != null && url.getProtocol().equals("file"))
+		{
+			in.close();
+			return ModelFile.map(new File(url.toURI()));
+		}
+		
+		return ModelFile.map(in);
+	}
 }
@@ -19,6 +19,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -62,6 +63,13 @@ abstract public class AbstractTokenizer
 	
 	abstract public List<List<String>> segmentize(InputStream in);
 	
+	/**
+	 * @return an iterator over the sentences in the specific input stream.
+	 * Each sentence is returned as soon as it is complete so that memory usage is bounded by the sentence length, not the stream size.
+	 * The input stream is closed when the iterator is exhausted.
+	 */
+	abstract public Iterator<List<String>> getSentenceIterator(InputStream in);
+	
 	/** @return a list of tokens in the specific input stream. */
 	public List<String> tokenize(InputStream in)
 	{
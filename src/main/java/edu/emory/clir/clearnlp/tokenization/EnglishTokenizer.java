@@ -16,14 +16,20 @@
 package edu.emory.clir.clearnlp.tokenization;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import edu.emory.clir.clearnlp.dictionary.english.DTAbbreviation;
 import edu.emory.clir.clearnlp.dictionary.english.DTHyphen;
 import edu.emory.clir.clearnlp.dictionary.universal.DTCompound;
 import edu.emory.clir.clearnlp.tokenization.english.ApostropheEnglishTokenizer;
+import edu.emory.clir.clearnlp.util.IOUtils;
 import edu.emory.clir.clearnlp.util.StringUtils;
 import edu.emory.clir.clearnlp.util.constant.CharConst;
 import edu.emory.clir.clearnlp.util.lang.TLanguage;
@@ -90,36 +96,114 @@ public class EnglishTokenizer extends AbstractTokenizer
 	public List<List<String>> segmentize(InputStream in)
 	{
 		List<List<String>> sentences = new ArrayList<>();
-		int[] brackets = new int[R_BRACKETS.length];
-		List<String> tokens = tokenize(in);
-		int bIndex, i, size = tokens.size();
-		boolean isTerminal = false;
-		String token;
+		Iterator<List<String>> it = getSentenceIterator(in);
 		
-		for (i=0, bIndex=0; i<size; i++)
+		while (it.hasNext())
+			sentences.add(it.next());
+		
+		return sentences;
+	}
+	
+	@Override
+	public Iterator<List<String>> getSentenceIterator(InputStream in)
+	{
+		return new SentenceIterator(IOUtils.createBufferedReader(in));
+	}
+	
+	/** Segments sentences while reading tokens line by line; brackets are counted across sentences. */
+	private class SentenceIterator implements Iterator<List<String>>
+	{
+		private int[] brackets = new int[R_BRACKETS.length];
+		private Deque<String> d_tokens = new ArrayDeque<>();
+		private BufferedReader b_reader;
+		private List<String> l_next;
+		
+		public SentenceIterator(BufferedReader reader)
 		{
-			token = tokens.get(i);
-			countBrackets(token, brackets);
+			b_reader = reader;
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			if (l_next == null) l_next = nextSentence();
+			return l_next != null;
+		}
+		
+		@Override
+		public List<String> next()
+		{
+			if (!hasNext()) throw new NoSuchElementException();
+			List<String> sentence = l_next;
+			l_next = null;
+			return sentence;
+		}
+		
+		/** @return the next sentence if exists; otherwise, {@code null}. */
+		private List<String> nextSentence()
+		{
+			List<String> sentence = new ArrayList<>();
+			boolean isTerminal = false;
+			String token;
 			
-			if (isTerminal || isFinalMarksOnly(token))
+			while ((token = pollToken()) != null)
 			{
-				if (i+1 < size && isFollowedByBracket(tokens.get(i+1), brackets))
+				sentence.add(token);
+				countBrackets(token, brackets);
+				
+				if (isTerminal || isFinalMarksOnly(token))
 				{
-					isTerminal = true;
-					continue;
+					if ((token = peekToken()) != null && isFollowedByBracket(token, brackets))
+					{
+						isTerminal = true;
+						continue;
+					}
+					
+					return sentence;
 				}
-				
-				sentences.add(tokens.subList(bIndex, bIndex = i+1));
-				isTerminal = false;
 			}
+			
+			return sentence.isEmpty() ? null : sentence;
 		}
 		
-		if (bIndex < size)
-			sentences.add(tokens.subList(bIndex, size));
+		private String pollToken()
+		{
+			return fill() ? d_tokens.poll() : null;
+		}
 		
-		return sentences;
-	}
+		private String peekToken()
+		{
+			return fill() ? d_tokens.peek() : null;
+		}
 		
+		/** Reads lines until at least one token is buffered or the stream ends. */
+		private boolean fill()
+		{
+			String line;
+			
+			try
+			{
+				while (d_tokens.isEmpty() && b_reader != null)
+				{
+					if ((line = b_reader.readLine()) != null)
+						d_tokens.addAll(tokenize(line));
+					else
+					{
+						b_reader.close();
+						b_reader = null;
+					}
+				}
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+				b_reader = null;
+			}
+			
+			return !d_tokens.isEmpty();
+		}
+	}
+	
 	/** Called by {@link EnglishSegmenter#getSentencesRaw(BufferedReader)}. */
 	private void countBrackets(String str, int[] brackets)
 	{
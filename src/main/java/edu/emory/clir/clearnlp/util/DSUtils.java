@@ -321,7 +321,13 @@ public class DSUtils
 	
 	static public int maxIndex(double[] array)
 	{
-		int i, size = array.length, maxIndex = 0;
+		return maxIndex(array, array.length);
+	}
+	
+	/** @return the index of the maximum value among the first {@code size} values. */
+	static public int maxIndex(double[] array, int size)
+	{
+		int i, maxIndex = 0;
 		double maxValue = array[maxIndex];
 		
 		for (i=1; i<size; i++)
@@ -355,6 +361,36 @@ public class DSUtils
 		return maxIndex;
 	}
 	
+	/**
+	 * Puts the indices of the k highest values in descending order to {@code top} without allocating any object,
+	 * where k is the length of {@code top}; among the same values, lower positions come first as in {@link #top2(double[])}.
+	 * @param size the number of values to consider if {@code include} is {@code null}.
+	 * @param include the indices to consider if not {@code null}.
+	 * @return the number of indices put to {@code top}.
+	 */
+	static public int top(double[] array, int size, int[] include, int[] top)
+	{
+		int i, j, k, n = 0, len = (include != null) ? include.length : size;
+		double d;
+		
+		for (j=0; j<len; j++)
+		{
+			i = (include != null) ? include[j] : j;
+			d = array[i];
+			
+			for (k=n; k>0 && array[top[k-1]] < d; k--)
+				if (k < top.length) top[k] = top[k-1];
+			
+			if (k < top.length)
+			{
+				top[k] = i;
+				if (n < top.length) n++;
+			}
+		}
+		
+		return n;
+	}
+	
 	static public Pair<DoubleIntPair,DoubleIntPair> top2(double[] array)
 	{
 		int i, size = array.length;
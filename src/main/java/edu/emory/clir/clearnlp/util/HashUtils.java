@@ -34,18 +34,28 @@ public class HashUtils
 	
 	public static int fnv1aHash32(final String s, int basis)
 	{
-		char[] cs = s.toCharArray();
 		int i, len = s.length();
 		
 		for (i=0; i<len; i++)
 		{
-			basis ^= cs[i];
+			basis ^= s.charAt(i);
 			basis *= FNV_PRIME_32;
 		}
 		
 		return basis;
     }
 	
+	/** @return the specific hash whose bits are avalanched by the finalizer of MurmurHash3. */
+	public static int mix32(int h)
+	{
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		return h;
+	}
+	
 	public static long fnv1aHash64(String s)
 	{
 		return fnv1aHash64(s, FNV_BASIS_64);
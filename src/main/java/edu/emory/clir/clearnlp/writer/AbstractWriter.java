@@ -0,0 +1,235 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.writer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+
+/**
+ * Writes dependency trees by encoding their fields directly into a reusable byte buffer in UTF-8,
+ * which is flushed to the output stream whenever it gets full.
+ * I/O errors of the output stream are thrown as {@link UncheckedIOException}s; bytes that fail to be written stay in the buffer.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+abstract public class AbstractWriter
+{
+	static private final int BUFFER_SIZE = 1 << 16;
+	static private final byte[] NULL = {'n','u','l','l'};
+	
+	private OutputStream f_out;
+	private TWriter      w_type;
+	private byte[]       b_buffer;
+	private byte[]       b_digits;
+	private int          n_size;
+	
+	public AbstractWriter(OutputStream out, TWriter type)
+	{
+		f_out    = out;
+		w_type   = type;
+		b_buffer = new byte[BUFFER_SIZE];
+		b_digits = new byte[20];
+	}
+	
+	/** Writes the specific tree. */
+	abstract public void write(DEPTree tree);
+	
+	public TWriter getWriterType()
+	{
+		return w_type;
+	}
+	
+	public boolean isWriterType(TWriter type)
+	{
+		return type == w_type;
+	}
+	
+	/**
+	 * Writes all buffered bytes to the output stream and flushes the stream.
+	 * @throws UncheckedIOException if the output stream fails.
+	 */
+	public void flush()
+	{
+		try
+		{
+			flushBuffer();
+			f_out.flush();
+		}
+		catch (IOException e) {throw new UncheckedIOException(e);}
+	}
+	
+	/**
+	 * Writes all buffered bytes to the output stream and closes the stream, even if the bytes fail to be written.
+	 * @throws UncheckedIOException if the output stream fails.
+	 */
+	public void close()
+	{
+		try
+		{
+			try
+			{
+				flushBuffer();
+			}
+			finally
+			{
+				f_out.close();
+			}
+		}
+		catch (IOException e) {throw new UncheckedIOException(e);}
+	}
+	
+	private void flushBuffer() throws IOException
+	{
+		if (n_size > 0)
+		{
+			f_out.write(b_buffer, 0, n_size);
+			n_size = 0;
+		}
+	}
+
+//	====================================== APPEND ======================================
+	
+	protected void append(int b)
+	{
+		if (n_size == b_buffer.length)
+		{
+			try
+			{
+				flushBuffer();
+			}
+			catch (IOException e) {throw new UncheckedIOException(e);}
+		}
+		
+		b_buffer[n_size++] = (byte)b;
+	}
+	
+	/** Appends the specific ASCII character. */
+	protected void append(char c)
+	{
+		append((int)c);
+	}
+	
+	/** Appends the specific string in UTF-8; {@code "null"} if the string is {@code null}. */
+	protected void append(String s)
+	{
+		if (s == null)
+		{
+			for (byte b : NULL) append(b);
+			return;
+		}
+		
+		int i, size = s.length();
+		
+		for (i=0; i<size; i++)
+			i = append(s, i);
+	}
+	
+	/**
+	 * Appends the index'th character of the string in UTF-8.
+	 * @return the index of the last character consumed, which is {@code index+1} for a surrogate pair.
+	 */
+	protected int append(String s, int index)
+	{
+		char c = s.charAt(index);
+		
+		if (c < 0x80)
+			append((int)c);
+		else if (c < 0x800)
+		{
+			append(0xC0 | (c >> 6));
+			append(0x80 | (c & 0x3F));
+		}
+		else if (Character.isSurrogate(c))
+		{
+			if (Character.isHighSurrogate(c) && index+1 < s.length() && Character.isLowSurrogate(s.charAt(index+1)))
+			{
+				int cp = Character.toCodePoint(c, s.charAt(++index));
+				append(0xF0 | (cp >> 18));
+				append(0x80 | ((cp >> 12) & 0x3F));
+				append(0x80 | ((cp >>  6) & 0x3F));
+				append(0x80 | (cp & 0x3F));
+			}
+			else
+				append('?');	// same as String#getBytes for malformed input
+		}
+		else
+		{
+			append(0xE0 | (c >> 12));
+			append(0x80 | ((c >> 6) & 0x3F));
+			append(0x80 | (c & 0x3F));
+		}
+		
+		return index;
+	}
+	
+	/** Appends the decimal representation of the specific integer. */
+	protected void appendDecimal(long n)
+	{
+		boolean negative = n < 0;
+		int i = 0;
+		
+		do
+		{
+			b_digits[i++] = (byte)('0' + Math.abs(n % 10));
+			n /= 10;
+		}
+		while (n != 0);
+		
+		if (negative) append('-');
+		
+		while (i > 0)
+			append(b_digits[--i]);
+	}
+	
+	/** Appends the specific non-negative integer as a variable-length quantity (7 bits per byte, little-endian). */
+	protected void appendVarInt(int n)
+	{
+		while ((n & ~0x7F) != 0)
+		{
+			append((n & 0x7F) | 0x80);
+			n >>>= 7;
+		}
+		
+		append(n);
+	}
+	
+	/** @return the number of bytes needed to encode the specific string in UTF-8. */
+	protected int getUTF8Length(String s)
+	{
+		int i, len = 0, size = s.length();
+		char c;
+		
+		for (i=0; i<size; i++)
+		{
+			c = s.charAt(i);
+			
+			if      (c < 0x80)	len += 1;
+			else if (c < 0x800)	len += 2;
+			else if (Character.isHighSurrogate(c) && i+1 < size && Character.isLowSurrogate(s.charAt(i+1)))
+			{
+				len += 4;
+				i++;
+			}
+			else if (Character.isSurrogate(c))	len += 1;
+			else								len += 3;
+		}
+		
+		return len;
+	}
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.writer;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map.Entry;
+
+import edu.emory.clir.clearnlp.dependency.DEPFeat;
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.util.arc.AbstractArc;
+
+/**
+ * Writes trees in a compact binary format where integers are variable-length quantities (see {@link #appendVarInt(int)})
+ * and strings are their UTF-8 lengths plus one followed by their bytes (0 for {@code null}).
+ * <pre>
+ * tree  := #nodes node*
+ * node  := form lemma pos #feats (key value)* head deprel #sheads (head label)* #xheads (head label)* nament
+ * head  := the head ID plus one (0 if the node has no head)
+ * </pre>
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class BinaryWriter extends AbstractWriter
+{
+	public BinaryWriter(OutputStream out)
+	{
+		super(out, TWriter.BINARY);
+	}
+	
+	@Override
+	public void write(DEPTree tree)
+	{
+		int i, size = tree.size();
+		appendVarInt(size-1);
+		
+		for (i=1; i<size; i++)
+			write(tree.get(i));
+	}
+	
+	private void write(DEPNode node)
+	{
+		writeString(node.getWordForm());
+		writeString(node.getLemma());
+		writeString(node.getPOSTag());
+		writeFeats(node.getFeats());
+		
+		if (node.hasHead())
+		{
+			appendVarInt(node.getHead().getID()+1);
+			writeString(node.getLabel());
+		}
+		else
+		{
+			appendVarInt(0);
+			writeString(null);
+		}
+		
+		writeArcs(node.getSemanticHeadArcList());
+		writeArcs(node.getSecondaryHeadArcList());
+		writeString(node.getNamedEntityTag());
+	}
+	
+	private void writeFeats(DEPFeat feats)
+	{
+		appendVarInt(feats.size());
+		
+		for (Entry<String,String> entry : feats.entrySet())
+		{
+			writeString(entry.getKey());
+			writeString(entry.getValue());
+		}
+	}
+	
+	private <T extends AbstractArc<DEPNode>>void writeArcs(List<T> arcs)
+	{
+		int i, size = (arcs != null) ? arcs.size() : 0;
+		T arc;
+		
+		appendVarInt(size);
+		
+		for (i=0; i<size; i++)
+		{
+			arc = arcs.get(i);
+			appendVarInt(arc.getNode().getID()+1);
+			writeString(arc.getLabel());
+		}
+	}
+	
+	private void writeString(String s)
+	{
+		if (s == null)
+			appendVarInt(0);
+		else
+		{
+			appendVarInt(getUTF8Length(s)+1);
+			append(s);
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.writer;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map.Entry;
+
+import edu.emory.clir.clearnlp.dependency.DEPFeat;
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.util.arc.AbstractArc;
+
+/**
+ * Writes each tree as a JSON array of nodes on its own line (e.g., {@code [{"id":1,"form":"He","pos":"PRP","head":2,"deprel":"nsubj"},...]}).
+ * Fields that are not assigned are omitted; semantic and secondary heads are arrays of {@code {"head":id,"label":label}}.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class JSONWriter extends AbstractWriter
+{
+	public JSONWriter(OutputStream out)
+	{
+		super(out, TWriter.JSON);
+	}
+	
+	@Override
+	public void write(DEPTree tree)
+	{
+		int i, size = tree.size();
+		append('[');
+		
+		for (i=1; i<size; i++)
+		{
+			if (i > 1) append(',');
+			write(tree.get(i));
+		}
+		
+		append(']');
+		append('\n');
+	}
+	
+	private void write(DEPNode node)
+	{
+		append("{\"id\":");
+		appendDecimal(node.getID());
+		writeField("form"  , node.getWordForm());
+		writeField("lemma" , node.getLemma());
+		writeField("pos"   , node.getPOSTag());
+		writeFeats(node.getFeats());
+		
+		if (node.hasHead())
+		{
+			append(",\"head\":");
+			appendDecimal(node.getHead().getID());
+			writeField("deprel", node.getLabel());
+		}
+		
+		writeArcs("sheads", node.getSemanticHeadArcList());
+		writeArcs("xheads", node.getSecondaryHeadArcList());
+		writeField("nament", node.getNamedEntityTag());
+		append('}');
+	}
+	
+	private void writeField(String key, String value)
+	{
+		if (value == null) return;
+		append(',');
+		writeString(key);
+		append(':');
+		writeString(value);
+	}
+	
+	private void writeFeats(DEPFeat feats)
+	{
+		if (feats.isEmpty()) return;
+		boolean first = true;
+		append(",\"feats\":{");
+		
+		for (Entry<String,String> entry : feats.entrySet())
+		{
+			if (first)	first = false;
+			else		append(',');
+			
+			writeString(entry.getKey());
+			append(':');
+			writeString(entry.getValue());
+		}
+		
+		append('}');
+	}
+	
+	private <T extends AbstractArc<DEPNode>>void writeArcs(String key, List<T> arcs)
+	{
+		if (arcs == null || arcs.isEmpty()) return;
+		int i, size = arcs.size();
+		T arc;
+		
+		append(',');
+		writeString(key);
+		append(":[");
+		
+		for (i=0; i<size; i++)
+		{
+			arc = arcs.get(i);
+			if (i > 0) append(',');
+			append("{\"head\":");
+			appendDecimal(arc.getNode().getID());
+			writeField("label", arc.getLabel());
+			append('}');
+		}
+		
+		append(']');
+	}
+	
+	/** Writes the specific string as a JSON string literal. */
+	private void writeString(String s)
+	{
+		int i, size = s.length();
+		char c;
+		
+		append('"');
+		
+		for (i=0; i<size; i++)
+		{
+			c = s.charAt(i);
+			
+			switch (c)
+			{
+			case '"' : append('\\'); append('"');  break;
+			case '\\': append('\\'); append('\\'); break;
+			case '\n': append('\\'); append('n');  break;
+			case '\r': append('\\'); append('r');  break;
+			case '\t': append('\\'); append('t');  break;
+			default:
+				if (c < 0x20)
+				{
+					append("\\u00");
+					append(Character.forDigit(c >> 4, 16));
+					append(Character.forDigit(c & 0xF, 16));
+				}
+				else
+					i = append(s, i);
+			}
+		}
+		
+		append('"');
+	}
+}
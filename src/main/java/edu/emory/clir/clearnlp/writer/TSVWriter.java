@@ -0,0 +1,181 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.writer;
+
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+
+import edu.emory.clir.clearnlp.component.utils.NLPMode;
+import edu.emory.clir.clearnlp.dependency.DEPFeat;
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.reader.TSVReader;
+import edu.emory.clir.clearnlp.util.arc.AbstractArc;
+
+/**
+ * Writes trees in the same format as {@link DEPNode#toStringPOS()}, {@link DEPNode#toStringMorph()},
+ * {@link DEPNode#toStringDEP()}, {@link DEPNode#toStringSRL()}, or {@link DEPNode#toString()} depending on the mode,
+ * where each tree is followed by an empty line.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class TSVWriter extends AbstractWriter
+{
+	private NLPMode n_mode;
+	
+	public TSVWriter(OutputStream out, NLPMode mode)
+	{
+		super(out, TWriter.TSV);
+		n_mode = mode;
+	}
+	
+	@Override
+	public void write(DEPTree tree)
+	{
+		int i, size = tree.size();
+		
+		for (i=1; i<size; i++)
+		{
+			write(tree.get(i));
+			append('\n');
+		}
+		
+		if (size == 1) append('\n');
+		append('\n');
+	}
+	
+	private void write(DEPNode node)
+	{
+		switch (n_mode)
+		{
+		case pos  : writePOS  (node); break;
+		case morph: writeMorph(node); break;
+		case dep  : writeDEP  (node); break;
+		case srl  : writeSRL  (node); break;
+		case ner  : writeNER  (node); break;
+		}
+	}
+	
+	private void writePOS(DEPNode node)
+	{
+		append(node.getWordForm());
+		appendColumn();
+		append(node.getPOSTag());
+		appendColumn();
+		writeFeats(node.getFeats());
+	}
+	
+	private void writeMorph(DEPNode node)
+	{
+		append(node.getWordForm());
+		appendColumn();
+		append(node.getLemma());
+		appendColumn();
+		append(node.getPOSTag());
+		appendColumn();
+		writeFeats(node.getFeats());
+	}
+	
+	private void writeDEP(DEPNode node)
+	{
+		appendDecimal(node.getID());
+		appendColumn();
+		writeMorph(node);
+		appendColumn();
+		
+		if (node.hasHead())
+		{
+			appendDecimal(node.getHead().getID());
+			appendColumn();
+			append(node.getLabel());
+		}
+		else
+		{
+			append(TSVReader.BLANK);
+			appendColumn();
+			append(TSVReader.BLANK);
+		}
+	}
+	
+	private void writeSRL(DEPNode node)
+	{
+		writeDEP(node);
+		appendColumn();
+		writeArcs(node.getSemanticHeadArcList());
+	}
+	
+	private void writeNER(DEPNode node)
+	{
+		String tag = node.getNamedEntityTag();
+		
+		writeSRL(node);
+		appendColumn();
+		writeArcs(node.getSecondaryHeadArcList());
+		appendColumn();
+		append(tag != null ? tag : TSVReader.BLANK);
+	}
+	
+	private void writeFeats(DEPFeat feats)
+	{
+		if (feats.isEmpty())
+		{
+			append(TSVReader.BLANK);
+			return;
+		}
+		
+		boolean first = true;
+		
+		for (Entry<String,String> entry : feats.entrySet())
+		{
+			if (first)	first = false;
+			else		append(DEPFeat.DELIM_FEATS);
+			
+			append(entry.getKey());
+			append(DEPFeat.DELIM_KEY_VALUE);
+			append(entry.getValue());
+		}
+	}
+	
+	/** Arcs are sorted in place as in {@link DEPNode#toString()}. */
+	private <T extends AbstractArc<DEPNode>>void writeArcs(List<T> arcs)
+	{
+		if (arcs == null || arcs.isEmpty())
+		{
+			append(TSVReader.BLANK);
+			return;
+		}
+		
+		Collections.sort(arcs);
+		int i, size = arcs.size();
+		T arc;
+		
+		for (i=0; i<size; i++)
+		{
+			arc = arcs.get(i);
+			if (i > 0) append(TSVReader.DELIM_ARCS);
+			appendDecimal(arc.getNode().getID());
+			append(AbstractArc.DELIM);
+			append(arc.getLabel());
+		}
+	}
+	
+	private void appendColumn()
+	{
+		append('\t');
+	}
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.bin;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.component.AbstractComponent;
+import edu.emory.clir.clearnlp.component.utils.NLPMode;
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.reader.TSVReader;
+import edu.emory.clir.clearnlp.writer.TWriter;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class NLPServerTest
+{
+	@Test
+	public void testProcess()
+	{
+		NLPServer server = new NLPServer();
+		server.init(new NLPDecode(), new TSVReader(0), null, new AbstractComponent[]{new TestTagger()}, NLPMode.pos, TWriter.TSV);
+		
+		assertEquals("Hello\tNN\t_\nworld\tNN\t_\n\n@EOD\n", server.process("Hello\nworld\n"));
+		assertEquals("Hello\tNN\t_\n\nworld\tNN\t_\n\n@EOD\n", server.process("Hello\n\nworld\n"));
+		assertEquals("@EOD\n", server.process(""));
+		
+		// the failed document is reported without its trees, and the next document is still decoded
+		assertEquals("@ERROR Cannot tag: fail\n@EOD\n", server.process("Hello\nfail\n"));
+		assertEquals("world\tNN\t_\n\n@EOD\n", server.process("world\n"));
+	}
+	
+	static private class TestTagger extends AbstractComponent
+	{
+		@Override
+		public void process(DEPTree tree)
+		{
+			for (DEPNode node : tree)
+			{
+				if (node.getWordForm().equals("fail")) throw new IllegalArgumentException("Cannot tag:\n"+node.getWordForm());
+				node.setPOSTag("NN");
+			}
+		}
+	}
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
+import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class IntInstanceStoreTest
+{
+	@Test
+	public void testIntInstanceStore()
+	{
+		IntInstanceStore store = new IntInstanceStore(new File(System.getProperty("java.io.tmpdir")), 3);
+		SparseFeatureVector x;
+		int i;
+		
+		for (i=0; i<10; i++)
+		{
+			x = new SparseFeatureVector(i%2 == 1);
+			
+			if (x.hasWeight())
+			{
+				x.addFeature(i+1, 0.5);
+				x.addFeature(200000+i, (i == 9) ? 0.1 : -2);
+			}
+			else
+			{
+				x.addFeature(i+1);
+				x.addFeature(200000+i);
+			}
+			
+			store.add(new IntInstance(i, x));
+		}
+		
+		store.close();
+		assertEquals(10, store.size());
+		assertEquals(4 , store.getChunkSize());
+		
+		i = 0;
+		
+		for (IntInstance instance : store)
+			assertEquals(expected(i++), instance.toString());
+		
+		List<String> expected = new ArrayList<>(), actual = new ArrayList<>();
+		Iterator<IntInstance> it = store.iterator(new int[]{0, 2, 3}, new Random(5), 4);
+		
+		for (i=0; i<10; i++)
+			if (i < 3 || i > 5) expected.add(expected(i));
+		
+		while (it.hasNext())
+			actual.add(it.next().toString());
+		
+		Collections.sort(expected);
+		Collections.sort(actual);
+		assertEquals(expected, actual);
+		
+		store.delete();
+		assertEquals(0, store.size());
+		assertFalse(store.iterator().hasNext());
+	}
+	
+	private String expected(int i)
+	{
+		if (i%2 == 0) return i+" "+(i+1)+" "+(200000+i);
+		return i+" "+(i+1)+":0.5 "+(200000+i)+":"+((i == 9) ? 0.1 : -2.0);
+	}
+	
+	@Test
+	public void testStringInstanceStore()
+	{
+		StringInstanceStore store = new StringInstanceStore(new File(System.getProperty("java.io.tmpdir")), 2);
+		StringFeatureVector x = new StringFeatureVector();
+		x.addFeature(0, "A");
+		x.addFeature(300, "é");
+		store.add(new StringInstance("L1", x));
+		
+		x = new StringFeatureVector(true);
+		x.addFeature(1, "B", 0.3);
+		store.add(new StringInstance("L2", x));
+		store.add(new StringInstance("L3", new StringFeatureVector()));
+		store.close();
+		
+		Iterator<StringInstance> it = store.iterator();
+		assertEquals("L1 0:A 300:é", it.next().toString());
+		assertEquals("L2 1:B:0.3", it.next().toString());
+		assertEquals("L3 ", it.next().toString());
+		assertFalse(it.hasNext());
+		store.delete();
+	}
+}
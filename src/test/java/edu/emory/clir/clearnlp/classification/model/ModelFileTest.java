@@ -0,0 +1,253 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.classification.map.FeatureMap;
+import edu.emory.clir.clearnlp.classification.map.HashedFeatureMap;
+import edu.emory.clir.clearnlp.classification.map.LabelMap;
+import edu.emory.clir.clearnlp.classification.map.MappedFeatureMap;
+import edu.emory.clir.clearnlp.classification.map.PerfectHashFeatureMap;
+import edu.emory.clir.clearnlp.classification.vector.AbstractWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.BinaryWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.MappedWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.MultiWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.QuantizedWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.QuantizedWeightVector.Precision;
+import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ModelFileTest
+{
+	@Test
+	public void testReadWrite() throws Exception
+	{
+		StringModel[] models = {createModel(false), createModel(true)};
+		byte[] meta = {1, 2, 3};
+		
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ModelFile.write(bout, meta, models);
+		InputStream in = new BufferedInputStream(new ByteArrayInputStream(bout.toByteArray()));
+		assertTrue(ModelFile.isModelFile(in));
+		check(models, meta, ModelFile.read(in));
+		
+		File file = File.createTempFile("model", ".cnlpm");
+		file.deleteOnExit();
+		FileOutputStream fout = new FileOutputStream(file);
+		fout.write(bout.toByteArray());
+		fout.close();
+		check(models, meta, ModelFile.map(file));
+		check(models, meta, ModelFile.map(new ByteArrayInputStream(bout.toByteArray())));
+	}
+	
+	@Test
+	public void testSerialization() throws Exception
+	{
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ModelFile.write(bout, new byte[0], new StringModel[]{createModel(false)});
+		StringModel mapped = ModelFile.read(new ByteArrayInputStream(bout.toByteArray())).getModels()[0];
+		
+		bout = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bout);
+		mapped.save(out);
+		out.close();
+		
+		StringModel model = new StringModel(new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray())));
+		assertTrue(model.getWeightVector() instanceof MultiWeightVector);
+		assertEquals(FeatureMap.class, model.getFeatureMap().getClass());
+		checkModel(mapped, model);
+	}
+	
+	@Test
+	public void testQuantized() throws Exception
+	{
+		for (Precision precision : Precision.values())
+		{
+			StringModel[] models = {createModel(false), createModel(true)};
+			for (StringModel model : models) model.setWeightVector(new QuantizedWeightVector(model.getWeightVector(), precision));
+			
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			ModelFile.write(bout, new byte[0], models);
+			StringModel[] read = ModelFile.read(new ByteArrayInputStream(bout.toByteArray())).getModels();
+			
+			for (int i=0; i<models.length; i++)
+			{
+				QuantizedWeightVector vector = (QuantizedWeightVector)read[i].getWeightVector();
+				assertEquals(precision, vector.getPrecision());
+				checkModel(models[i], read[i]);
+			}
+		}
+	}
+	
+	@Test
+	public void testRewrite() throws Exception
+	{
+		StringModel[] models = {createModel(false), createModel(true)};
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ModelFile.write(bout, new byte[0], models);
+		StringModel[] mapped = ModelFile.read(new ByteArrayInputStream(bout.toByteArray())).getModels();
+		
+		bout = new ByteArrayOutputStream();
+		ModelFile.write(bout, new byte[0], mapped);
+		check(models, new byte[0], ModelFile.read(new ByteArrayInputStream(bout.toByteArray())));
+		
+		for (StringModel model : mapped) model.setWeightVector(new QuantizedWeightVector(model.getWeightVector(), Precision.INT8));
+		bout = new ByteArrayOutputStream();
+		ModelFile.write(bout, new byte[0], mapped);
+		StringModel[] read = ModelFile.read(new ByteArrayInputStream(bout.toByteArray())).getModels();
+		
+		for (int i=0; i<models.length; i++)
+		{
+			assertTrue(read[i].getFeatureMap() instanceof MappedFeatureMap);
+			assertEquals(Precision.INT8, ((QuantizedWeightVector)read[i].getWeightVector()).getPrecision());
+			checkModel(mapped[i], read[i]);
+		}
+	}
+	
+	@Test
+	public void testPerfectHash() throws Exception
+	{
+		StringModel[] models = {createModel(false), createModel(true)};
+		StringModel[] frozen = {createModel(false), createModel(true)};
+		for (StringModel model : frozen) model.setFeatureMap(new PerfectHashFeatureMap(model.getFeatureMap()));
+		
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ModelFile.write(bout, new byte[0], frozen);
+		StringModel[] read = ModelFile.read(new ByteArrayInputStream(bout.toByteArray())).getModels();
+		
+		for (int i=0; i<models.length; i++)
+		{
+			assertTrue(read[i].getFeatureMap() instanceof PerfectHashFeatureMap);
+			checkModel(models[i], frozen[i]);
+			checkModel(models[i], read[i]);
+		}
+		
+		bout = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bout);
+		read[0].save(out);
+		out.close();
+		
+		StringModel model = new StringModel(new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray())));
+		assertTrue(model.getFeatureMap() instanceof PerfectHashFeatureMap);
+		checkModel(models[0], model);
+	}
+	
+	@Test
+	public void testHashed() throws Exception
+	{
+		HashedFeatureMap features = new HashedFeatureMap(4);
+		MultiWeightVector vector = new MultiWeightVector();
+		vector.expand(3, features.size());
+		for (int i=0; i<vector.size(); i++) vector.set(i, i % 5);
+		StringModel model = new StringModel(vector, new LabelMap(new String[]{"x", "y", "z"}), features);
+		
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ModelFile.write(bout, new byte[0], new StringModel[]{model});
+		StringModel read = ModelFile.read(new ByteArrayInputStream(bout.toByteArray())).getModels()[0];
+		
+		assertTrue(read.isFeatureHashing());
+		assertEquals(4, ((HashedFeatureMap)read.getFeatureMap()).getBits());
+		assertEquals(model.getFeatureSize(), read.getFeatureSize());
+		
+		StringFeatureVector x = new StringFeatureVector();
+		x.addFeature(0, "a");
+		x.addFeature(1, "b");
+		x.addFeature(2, "c");
+		assertArrayEquals(model.getScores(x), read.getScores(x), 0);
+	}
+	
+	private StringModel createModel(boolean binary)
+	{
+		String[] labels = binary ? new String[]{"pos", "neg"} : new String[]{"x", "y", "z"};
+		AbstractWeightVector vector = binary ? new BinaryWeightVector() : new MultiWeightVector();
+		FeatureMap features = new FeatureMap();
+		int i;
+		
+		features.put(0, "a", 1);
+		features.put(1, "a", 2);
+		features.put(1, "b", 3);
+		features.put(2, "üñî", 4);
+		
+		vector.expand(labels.length, features.size());
+		
+		for (i=0; i<vector.size(); i++)
+			vector.set(i, (i % 7) - 3.5f);
+		
+		return new StringModel(vector, new LabelMap(labels), features);
+	}
+	
+	private void check(StringModel[] expected, byte[] meta, ModelFile file)
+	{
+		assertArrayEquals(meta, file.getMeta());
+		assertEquals(expected.length, file.getModels().length);
+		
+		for (int i=0; i<expected.length; i++)
+		{
+			StringModel model = file.getModels()[i];
+			assertTrue(model.getWeightVector() instanceof MappedWeightVector);
+			assertTrue(model.getFeatureMap() instanceof MappedFeatureMap);
+			checkModel(expected[i], model);
+		}
+	}
+	
+	private void checkModel(StringModel expected, StringModel actual)
+	{
+		FeatureMap map = actual.getFeatureMap();
+		
+		assertArrayEquals(expected.getLabels(), actual.getLabels());
+		assertEquals(expected.isBinaryLabel(), actual.isBinaryLabel());
+		assertEquals(expected.getLabelSize()  , actual.getLabelSize());
+		assertEquals(expected.getFeatureSize(), actual.getFeatureSize());
+		assertEquals(expected.getFeatureMap().size(), map.size());
+		
+		assertEquals( 1, map.getFeatureIndex(0, "a"));
+		assertEquals( 2, map.getFeatureIndex(1, "a"));
+		assertEquals( 3, map.getFeatureIndex(1, "b"));
+		assertEquals( 4, map.getFeatureIndex(2, "üñî"));
+		assertEquals( 0, map.getFeatureIndex(2, "üñ"));
+		assertEquals( 0, map.getFeatureIndex(0, "b"));
+		assertEquals(-1, map.getFeatureIndex(3, "a"));
+		
+		StringFeatureVector x = new StringFeatureVector();
+		x.addFeature(0, "a");
+		x.addFeature(1, "b");
+		x.addFeature(2, "üñî");
+		x.addFeature(1, "c");
+		
+		assertArrayEquals(expected.getScores(x), actual.getScores(x), 0);
+		assertEquals(expected.predictBest(x).getLabel(), actual.predictBest(x).getLabel());
+		
+		for (int i=0; i<expected.getLabelSize(); i++)
+			assertArrayEquals(expected.getWeightVector().getWeights(i), actual.getWeightVector().getWeights(i), 0);
+	}
+}
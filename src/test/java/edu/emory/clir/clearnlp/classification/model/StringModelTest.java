@@ -18,6 +18,7 @@ package edu.emory.clir.clearnlp.classification.model;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
@@ -28,14 +29,21 @@ import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
 import edu.emory.clir.clearnlp.classification.instance.IntInstance;
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
 import edu.emory.clir.clearnlp.classification.instance.StringInstanceReader;
+import edu.emory.clir.clearnlp.classification.map.FeatureMap;
+import edu.emory.clir.clearnlp.classification.map.HashedFeatureMap;
+import edu.emory.clir.clearnlp.classification.map.LabelMap;
 import edu.emory.clir.clearnlp.classification.prediction.StringPrediction;
 import edu.emory.clir.clearnlp.classification.vector.AbstractWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.BinaryWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.MultiWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
 import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
 import edu.emory.clir.clearnlp.util.IOUtils;
 
@@ -342,4 +350,144 @@ public class StringModelTest
 		assertEquals("sunny", p.getLabel());
 		assertEquals(8, p.getScore(), 0);
 	}
+	
+	@Test
+	public void testPredictTopIndices()
+	{
+		Random rand = new Random(1);
+		
+		for (boolean binary : new boolean[]{false, true})
+		{
+			String[] labels = binary ? new String[]{"pos", "neg"} : new String[]{"a", "b", "c", "d", "e", "f"};
+			AbstractWeightVector vector = binary ? new BinaryWeightVector() : new MultiWeightVector();
+			FeatureMap features = new FeatureMap();
+			int i, j;
+			
+			for (i=1; i<=10; i++) features.put(i%3, "f"+i, i);
+			vector.expand(labels.length, features.size());
+			for (i=0; i<vector.size(); i++) vector.set(i, rand.nextFloat() - 0.5f);
+			
+			StringModel model = new StringModel(vector, new LabelMap(labels), features);
+			double[] scores = new double[model.getScoreSize()];
+			int[] include = {1, 3, 4}, top = new int[2];
+			StringPrediction[] ps;
+			StringFeatureVector x;
+			
+			for (i=0; i<20; i++)
+			{
+				x = new StringFeatureVector();
+				for (j=1; j<=10; j++) if (rand.nextBoolean()) x.addFeature(j%3, "f"+j);
+				
+				ps = model.predictTop2(x);
+				assertEquals(2, model.predictTopIndices(x, null, scores, top));
+				checkTop2(model, ps, scores, top);
+				
+				if (binary) continue;
+				ps = model.predictTop2(x, include);
+				assertEquals(2, model.predictTopIndices(x, include, scores, top));
+				checkTop2(model, ps, scores, top);
+			}
+		}
+	}
+	
+	private void checkTop2(StringModel model, StringPrediction[] ps, double[] scores, int[] top)
+	{
+		for (int k=0; k<2; k++)
+		{
+			assertEquals(ps[k].getLabel(), model.getLabel(top[k]));
+			assertEquals(ps[k].getScore(), scores[top[k]], 0);
+		}
+	}
+	
+	@Test
+	public void testCompact()
+	{
+		FeatureMap features = new FeatureMap();
+		features.put(0, "a", 1);
+		features.put(0, "b", 2);
+		features.put(1, "a", 3);
+		features.put(1, "c", 4);
+		
+		MultiWeightVector vector = new MultiWeightVector();
+		vector.expand(2, features.size());
+		float[] weights = {0.5f, -0.5f, 0, 0, 1, 2, 0.01f, -0.01f, 3, 0};
+		for (int i=0; i<weights.length; i++) vector.set(i, weights[i]);
+		
+		StringModel model = new StringModel(vector, new LabelMap(new String[]{"x", "y"}), features);
+		StringFeatureVector x = new StringFeatureVector();
+		x.addFeature(0, "a");
+		x.addFeature(0, "b");
+		x.addFeature(1, "a");
+		x.addFeature(1, "c");
+		double[] scores = model.getScores(x);
+		
+		assertEquals(1, model.compact(0));
+		assertEquals(4, model.getFeatureSize());
+		assertEquals(8, model.getWeightVector().size());
+		assertEquals(0, model.getFeatureMap().getFeatureIndex(0, "a"));
+		assertEquals(3, model.getFeatureMap().getFeatureIndex(1, "c"));
+		assertTrue(Arrays.equals(scores, model.getScores(x)));
+		
+		assertEquals(1, model.compact(0.1));
+		assertEquals(3, model.getFeatureSize());
+		assertEquals(0, model.getFeatureMap().getFeatureIndex(1, "a"));
+		assertEquals(2, model.getFeatureMap().getFeatureIndex(1, "c"));
+		assertEquals(scores[0] - 0.01, model.getScores(x)[0], 1e-6);
+	}
+	
+	@Test
+	public void testHashing() throws Exception
+	{
+		StringModel model = new StringModel(false);
+		model.setFeatureHashing(1);
+		StringFeatureVector x = new StringFeatureVector();
+		
+		for (int i=0; i<8; i++) x.addFeature(0, "f"+i);
+		model.addInstance(new StringInstance("A", x));
+		model.addInstance(new StringInstance("B", x));
+		List<IntInstance> list = model.initializeForTraining(0, 0);
+		HashedFeatureMap map = (HashedFeatureMap)model.getFeatureMap();
+		
+		assertTrue(model.isFeatureHashing());
+		assertEquals(3, model.getFeatureSize());
+		
+		SparseFeatureVector v = list.get(0).getFeatureVector();
+		double[] sums = new double[3];
+		boolean[] rows = new boolean[3];
+		int i, index, collisions = 0;
+		
+		for (i=0; i<8; i++)
+		{
+			index = map.getSignedFeatureIndex(0, "f"+i);
+			sums[Math.abs(index)] += Math.signum(index);
+			if (rows[Math.abs(index)]) collisions++;
+			rows[Math.abs(index)] = true;
+		}
+		
+		assertEquals(collisions, map.getCollisionSize());
+		
+		for (i=0; i<v.size(); i++)
+			assertEquals(sums[v.getIndex(i)], v.getWeight(i), 0);
+		
+		for (i=0; i<v.size(); i++)
+			assertFalse(v.getWeight(i) == 0);
+		
+		model.getWeightVector().set(model.getWeightVector().getWeightIndex(0, 1), 1);
+		model.getWeightVector().set(model.getWeightVector().getWeightIndex(1, 2), 2);
+		double[] scores = model.getScores(x);
+		assertEquals(sums[1], scores[0], 0);
+		assertEquals(sums[2] * 2, scores[1], 0);
+		
+		AbstractWeightVector vector = model.getWeightVector();
+		
+		try
+		{
+			model.compact(0);
+			fail();
+		}
+		catch (IllegalArgumentException e) {}
+		
+		assertTrue(vector == model.getWeightVector());
+		assertTrue(model.isFeatureHashing());
+	}
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.trainer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.classification.instance.IntInstance;
+import edu.emory.clir.clearnlp.classification.instance.SparseInstance;
+import edu.emory.clir.clearnlp.classification.model.SparseModel;
+import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
+import edu.emory.clir.clearnlp.util.DSUtils;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class AbstractOnlineTrainerTest
+{
+	static private final int LABELS = 3;
+	static private final int EPOCHS = 3;
+	
+	@Test
+	public void testSingleThread()
+	{
+		float[] expected = trainSequential(300);
+		
+		// a single thread and a number of threads not less than the number of instances fall back to the sequential path
+		assertArrayEquals(expected, train(300, 1), 0);
+		assertArrayEquals(expected, train(300, 1), 0);
+		assertArrayEquals(trainSequential(4), train(4, 4), 0);
+	}
+	
+	@Test
+	public void testMultiThreads()
+	{
+		AbstractOnlineTrainer trainer = createTrainer(300, false);
+		trainer.setNumberOfThreads(4);
+		for (int i=0; i<EPOCHS; i++) trainer.train();
+		assertEquals(trainer.getInstanceSize(), countCorrect(trainer));
+	}
+	
+	@Test
+	public void testShards()
+	{
+		float[] expected = trainShards(300, 4, false);
+		
+		// mixing is deterministic, and a single shard takes the sequential path
+		assertArrayEquals(expected, trainShards(300, 4, false), 0);
+		assertArrayEquals(trainShards(300, 4, true), trainShards(300, 4, true), 0);
+		assertArrayEquals(trainSequential(300), trainShards(300, 1, false), 0);
+		assertFalse(Arrays.equals(expected, trainSequential(300)));
+		
+		AbstractOnlineTrainer trainer = createTrainer(300, false);
+		trainer.setNumberOfShards(4);
+		for (int i=0; i<EPOCHS; i++) trainer.train();
+		assertEquals(trainer.getInstanceSize(), countCorrect(trainer));
+	}
+	
+	private float[] train(int size, int numThreads)
+	{
+		AbstractOnlineTrainer trainer = createTrainer(size, false);
+		trainer.setNumberOfThreads(numThreads);
+		for (int i=0; i<EPOCHS; i++) trainer.train();
+		return getWeights(trainer);
+	}
+	
+	private float[] trainShards(int size, int numShards, boolean average)
+	{
+		AbstractOnlineTrainer trainer = createTrainer(size, average);
+		trainer.setNumberOfShards(numShards);
+		for (int i=0; i<EPOCHS; i++) trainer.train();
+		return getWeights(trainer);
+	}
+	
+	/** Trains the instances in the order of the sequential path before threads were introduced. */
+	private float[] trainSequential(int size)
+	{
+		AbstractOnlineTrainer trainer = createTrainer(size, false);
+		Random rand = new Random(trainer.RANDOM_SEED);
+		int i, j;
+		
+		for (i=0; i<EPOCHS; i++)
+		{
+			DSUtils.shuffle(trainer.l_instances, rand);
+			
+			for (j=0; j<trainer.getInstanceSize(); j++)
+				trainer.update(trainer.getInstance(j), j+1);
+		}
+		
+		return getWeights(trainer);
+	}
+	
+	/** @return a trainer of linearly separable instances whose labels are indicated by their first features. */
+	private AbstractOnlineTrainer createTrainer(int size, boolean average)
+	{
+		SparseModel model = new SparseModel(false);
+		Random rand = new Random(1);
+		SparseFeatureVector x;
+		int i, j, label;
+		
+		for (i=0; i<size; i++)
+		{
+			label = i % LABELS;
+			x = new SparseFeatureVector();
+			x.addFeature(label+1);
+			for (j=0; j<5; j++) x.addFeature(LABELS+1+rand.nextInt(20));
+			model.addInstance(new SparseInstance(Integer.toString(label), x));
+		}
+		
+		return new AdaGradSVM(model, average, 0.02, 0.1, 0);
+	}
+	
+	private float[] getWeights(AbstractOnlineTrainer trainer)
+	{
+		float[] weights = new float[trainer.w_vector.size()];
+		for (int i=0; i<weights.length; i++) weights[i] = trainer.w_vector.get(i);
+		return weights;
+	}
+	
+	private int countCorrect(AbstractOnlineTrainer trainer)
+	{
+		int i, j, best, count = 0;
+		IntInstance instance;
+		double[] scores;
+		
+		for (i=0; i<trainer.getInstanceSize(); i++)
+		{
+			instance = trainer.getInstance(i);
+			scores = trainer.w_vector.getScores(instance.getFeatureVector());
+			for (j=1,best=0; j<scores.length; j++) if (scores[j] > scores[best]) best = j;
+			if (best == instance.getLabel()) count++;
+		}
+		
+		return count;
+	}
+}
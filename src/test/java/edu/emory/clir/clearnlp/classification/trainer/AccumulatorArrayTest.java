@@ -0,0 +1,62 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.trainer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class AccumulatorArrayTest
+{
+	@Test
+	public void test()
+	{
+		int size = AccumulatorArray.PAGE_SIZE * 3 + 5;
+		
+		for (boolean single : new boolean[]{false, true})
+		{
+			AccumulatorArray array = new AccumulatorArray(size, single);
+			assertEquals(4, array.getPageSize());
+			assertEquals(0, array.getAllocatedPageSize());
+			assertEquals(0, array.get(size-1), 0);
+			
+			array.add(size-1, 0.5);
+			array.add(size-1, 0.25);
+			array.add(1, 2);
+			
+			assertEquals(0.75, array.get(size-1), 0);
+			assertEquals(2, array.get(1), 0);
+			assertEquals(2, array.getAllocatedPageSize());
+			assertTrue (array.isAllocated(3));
+			assertFalse(array.isAllocated(2));
+			assertEquals(size, array.getEndIndex(3));
+			assertEquals(single, array.isSinglePrecision());
+			
+			AccumulatorArray copy = array.copy();
+			array.clear();
+			
+			assertEquals(0, array.get(1), 0);
+			assertEquals(2, array.getAllocatedPageSize());
+			assertEquals(2, copy.get(1), 0);
+		}
+	}
+}
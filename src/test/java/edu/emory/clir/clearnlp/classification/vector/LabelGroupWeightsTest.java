@@ -0,0 +1,75 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class LabelGroupWeightsTest
+{
+	@Test
+	public void testScores()
+	{
+		MultiWeightVector vector = new MultiWeightVector();
+		Random rand = new Random(1);
+		int i, labelSize = 8;
+		
+		vector.expand(labelSize, 100);
+		for (i=0; i<vector.size(); i++) vector.set(i, (float)rand.nextGaussian());
+		
+		SparseFeatureVector x = new SparseFeatureVector(true);
+		for (i=0; i<20; i++) x.addFeature(1 + rand.nextInt(99), rand.nextDouble());
+		x.addFeature(500, 1);
+		
+		int[][] groups = {{0,2,4,6}, {1,2,3}, {5}, {0,1,2,3,4,5,6,7}};
+		double[] expected = vector.getScores(x);
+		
+		int[][] grouped = vector.groupLabels(groups);
+		assertSame(groups, grouped);
+		assertSame(groups, vector.groupLabels(new int[][]{{0,2,4,6}, {1,2,3}, {5}, {0,1,2,3,4,5,6,7}}));
+		
+		for (int[] group : grouped)
+		{
+			double[] scores = new double[labelSize];
+			vector.getScores(x, group, scores);
+			
+			for (int label : group)
+				assertEquals(expected[label], scores[label], 0);
+		}
+		
+		// labels of the same memberships are adjacent: {0,4,6}, {2}, {1,3}, {5}, {7}
+		LabelGroupWeights weights = new LabelGroupWeights(vector.getWeightArray(), labelSize, 100, groups);
+		assertEquals(-1, weights.getGroupIndex(new int[]{5}));
+		assertEquals(2, weights.getGroupIndex(groups[2]));
+		assertTrue(weights.getRangeSize(0) <= 2);
+		assertTrue(weights.getRangeSize(1) <= 2);
+		assertEquals(1, weights.getRangeSize(3));
+		
+		assertTrue(vector.isLabelGrouped());
+		vector.expand(labelSize, 101);
+		assertFalse(vector.isLabelGrouped());
+	}
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.classification.vector.QuantizedWeightVector.Precision;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class QuantizedWeightVectorTest
+{
+	@Test
+	public void testHalf()
+	{
+		float[] values = {0f, -0f, 1f, -2.5f, 0.1f, 65504f, 6.1035156e-5f, 5.9604645e-8f};
+		
+		for (float f : values)
+			assertEquals(f, QuantizedWeightVector.toFloat(QuantizedWeightVector.toHalf(f)), Math.abs(f) / 1024);
+		
+		assertEquals(Float.POSITIVE_INFINITY, QuantizedWeightVector.toFloat(QuantizedWeightVector.toHalf(1e6f)), 0);
+		assertEquals(0f, QuantizedWeightVector.toFloat(QuantizedWeightVector.toHalf(1e-9f)), 0);
+		assertEquals(0x3c00, QuantizedWeightVector.toHalf(1f));
+	}
+	
+	@Test
+	public void testScores()
+	{
+		Random rand = new Random(1);
+		
+		for (AbstractWeightVector vector : new AbstractWeightVector[]{new MultiWeightVector(), new BinaryWeightVector()})
+		{
+			int labelSize = vector.isBinaryLabel() ? 1 : 5;
+			vector.expand(labelSize, 200);
+			for (int i=0; i<vector.size(); i++) vector.set(i, (float)rand.nextGaussian());
+			
+			SparseFeatureVector x = new SparseFeatureVector(true);
+			for (int i=0; i<20; i++) x.addFeature(1 + rand.nextInt(199), rand.nextDouble());
+			x.addFeature(500, 1);
+			
+			for (Precision precision : Precision.values())
+			{
+				QuantizedWeightVector quantized = new QuantizedWeightVector(vector, precision);
+				double delta = (precision == Precision.INT8) ? 0.2 : 0.01;
+				
+				assertEquals(vector.size(), quantized.size());
+				assertEquals(vector.getLabelSize(), quantized.getLabelSize());
+				assertArrayEquals(vector.getScores(x), quantized.getScores(x), delta);
+				assertArrayEquals(vector.getWeights(1), quantized.getWeights(1), (float)delta);
+				assertArrayEquals(quantized.getScores(x), quantized.toWeightVector().getScores(x), 1e-6);
+			}
+		}
+	}
+	
+	@Test(expected=UnsupportedOperationException.class)
+	public void testReadOnly()
+	{
+		MultiWeightVector vector = new MultiWeightVector();
+		vector.expand(2, 2);
+		new QuantizedWeightVector(vector, Precision.INT8).set(0, 1f);
+	}
+}
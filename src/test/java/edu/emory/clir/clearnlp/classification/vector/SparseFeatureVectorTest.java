@@ -53,5 +53,11 @@ public class SparseFeatureVectorTest
 		assertEquals(2, vector.size());
 		assertEquals("0:0.1 1:0.2", vector.toString());
 		assertEquals("0.05", String.format("%4.2f", vector.sumOfSquares()));
+		
+		// reuse
+		vector.clear();
+		assertTrue(vector.isEmpty());
+		vector.addFeature(2, 0.3);
+		assertEquals("2:0.3", vector.toString());
 	}
 }
\ No newline at end of file
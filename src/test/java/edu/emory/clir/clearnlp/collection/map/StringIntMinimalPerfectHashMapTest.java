@@ -0,0 +1,91 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.collection.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.classification.map.FeatureMap;
+import edu.emory.clir.clearnlp.classification.map.PerfectHashFeatureMap;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class StringIntMinimalPerfectHashMapTest
+{
+	/** Seeding FNV with displacements gave these keys the same slot in 2 slots for every displacement. */
+	@Test(timeout=10000)
+	public void testKeyPair()
+	{
+		StringIntMinimalPerfectHashMap map = new StringIntMinimalPerfectHashMap();
+		map.addkey("a");
+		map.addkey("c");
+		map.initHashFunction();
+		
+		assertEquals(2, map.getValues().length);
+		assertEquals(0, map.lookup("a"));
+		assertEquals(1, map.lookup("c"));
+	}
+	
+	@Test(timeout=10000)
+	public void testLookup()
+	{
+		StringIntMinimalPerfectHashMap map = new StringIntMinimalPerfectHashMap();
+		int i, size = 1000;
+		
+		for (i=0; i<size; i++)
+			map.put("k"+i, i*2);
+		
+		map.initHashFunction();
+		map.clearKeys();
+		assertEquals(size, map.size());
+		
+		for (i=0; i<size; i++)
+			assertEquals(i*2, map.lookup("k"+i));
+		
+		// an unknown key gets either an empty slot or the slot of an arbitrary key
+		for (i=0; i<size; i++)
+		{
+			int value = map.lookup("u"+i);
+			assertTrue(value == -1 || (value % 2 == 0 && value < size*2));
+		}
+	}
+	
+	@Test
+	public void testFingerprint()
+	{
+		FeatureMap map = new FeatureMap();
+		int i, size = 1000, unknown = 0;
+		
+		for (i=1; i<=size; i++)
+			map.put(0, "f"+i, i);
+		
+		PerfectHashFeatureMap hash = new PerfectHashFeatureMap(map);
+		
+		for (i=1; i<=size; i++)
+			assertEquals(i, hash.getFeatureIndex(0, "f"+i));
+		
+		// the fingerprints reject unknown features, which would otherwise get the indices of arbitrary features,
+		// except for about 1 in 65,536 of them
+		for (i=0; i<size*10; i++)
+			if (hash.getFeatureIndex(0, "u"+i) == 0) unknown++;
+		
+		assertTrue(size*10 - unknown <= 2);
+	}
+}
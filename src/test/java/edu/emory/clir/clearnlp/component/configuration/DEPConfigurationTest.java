@@ -36,6 +36,9 @@ public class DEPConfigurationTest
 		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(filename));
 		
 		assertEquals(config.getBeamSize(), 32);
+		assertEquals(config.getTimeBudget(), 50);
+		assertEquals(config.getTransitionBudget(), 1000);
+		assertEquals(config.getHeadlessCandidates(), 8);
 		assertEquals(config.getRootLabel(), "root");
 		assertTrue(config.evaluatePunctuation());
 	}
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class LatencyHistogramTest
+{
+	@Test
+	public void testBuckets()
+	{
+		long value, prev = -1;
+		int bucket;
+		
+		for (value=0; value<100000; value++)
+		{
+			bucket = LatencyHistogram.getBucket(value);
+			assertTrue(value <= LatencyHistogram.getUpperBound(bucket));
+			if (bucket > 0) assertTrue(value > LatencyHistogram.getUpperBound(bucket-1));
+			assertTrue(prev <= bucket);
+			prev = bucket;
+		}
+		
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.getUpperBound(LatencyHistogram.getBucket(Long.MAX_VALUE)));
+	}
+	
+	@Test
+	public void testPercentile()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getPercentile(50));
+		
+		for (int i=1; i<=1000; i++)
+			histogram.add(i * 1000);
+		
+		assertEquals(1000, histogram.getCount());
+		assertEquals(1000000, histogram.getMax());
+		assertEquals(1000000, histogram.getPercentile(100));
+		assertTrue(Math.abs(histogram.getPercentile(50) - 500000) <= 500000 / LatencyHistogram.SUB_BUCKETS);
+		assertTrue(Math.abs(histogram.getPercentile(99) - 990000) <= 990000 / LatencyHistogram.SUB_BUCKETS);
+		
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+	}
+	
+	@Test
+	public void testComponentMetrics()
+	{
+		ComponentMetrics metrics = new ComponentMetrics("test");
+		metrics.addSentence(10, 2000000);
+		metrics.addBatch(2, 30, 4000000);
+		metrics.addTransition(100, 200);
+		metrics.addClassification(100, 200);
+		
+		assertEquals(3, metrics.getSentenceCount());
+		assertEquals(40, metrics.getTokenCount());
+		assertEquals(1, metrics.getTransitionCount());
+		assertEquals(2, metrics.getClassificationCount());
+		assertEquals(6, metrics.getProcessMillis());
+		assertEquals(2000, metrics.getMaxLatencyMicros());
+		assertEquals(40 * 1e9 / 6000000, metrics.getTokensPerSecond(), 1e-6);
+	}
+}
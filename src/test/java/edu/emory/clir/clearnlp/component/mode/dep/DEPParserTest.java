@@ -0,0 +1,324 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.mode.dep;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.classification.model.StringModel;
+import edu.emory.clir.clearnlp.classification.trainer.LiblinearL2SVM;
+import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
+import edu.emory.clir.clearnlp.component.metrics.ComponentMetrics;
+import edu.emory.clir.clearnlp.component.mode.dep.state.AbstractDEPState;
+import edu.emory.clir.clearnlp.component.mode.dep.state.DEPStateBranch;
+import edu.emory.clir.clearnlp.component.utils.CFlag;
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.reader.TSVReader;
+import edu.emory.clir.clearnlp.util.IOUtils;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class DEPParserTest
+{
+	static private final String CONFIGURATION = "src/test/resources/nlp/configuration/configure.xml";
+	static private final String FEATURES = "<feature_template>"
+			+ "<feature f0=\"i:m\"/><feature f0=\"j:m\"/><feature f0=\"i:p\"/><feature f0=\"j:p\"/>"
+			+ "<feature f0=\"i:p\" f1=\"j:p\"/><feature f0=\"i-1:p\"/><feature f0=\"i+1:p\"/><feature f0=\"j-1:p\"/><feature f0=\"j+1:p\"/>"
+			+ "</feature_template>";
+	static private final String TREES = "src/test/resources/dependency/dependency.cnlp";
+	
+	static private DEPFeatureExtractor[] extractors;
+	static private StringModel[] models;
+	
+	/** Trains the model shared by all tests once. */
+	static private synchronized void train()
+	{
+		if (models != null) return;
+		extractors = new DEPFeatureExtractor[]{new DEPFeatureExtractor(new ByteArrayInputStream(FEATURES.getBytes()))};
+		DefaultDEPParser parser = new DefaultDEPParser(createConfiguration(1, 0, 0), extractors, null);
+		
+		for (DEPTree tree : readTrees())
+			parser.process(tree);
+		
+		new LiblinearL2SVM(parser.getModels()[0], 0, 0, 1, 0.001, 0.1, 0).train();
+		models = parser.getModels();
+	}
+	
+	@Test
+	public void testTransitionBudget()
+	{
+		train();
+		List<DEPTree> trees = readTrees();
+		TestParser greedy = new TestParser(createConfiguration(1, 0, 0));
+		TestParser beam = new TestParser(createConfiguration(32, 0, 0));
+		TestParser budget;
+		int steps, branchSteps = 0;
+		String heads;
+		
+		for (DEPTree tree : trees)
+		{
+			heads = parse(greedy, tree);
+			steps = greedy.transitions;
+			parse(beam, tree);
+			branchSteps += beam.transitions - steps;
+			
+			// out of budget during the greedy pass, at its end, or as soon as the first branch is taken
+			for (int maxSteps : new int[]{1, steps, steps+1})
+			{
+				budget = new TestParser(createConfiguration(32, maxSteps, 0));
+				assertEquals(heads, parse(budget, tree));
+				assertEquals(steps, budget.transitions);
+			}
+		}
+		
+		// the budgets above cut real branches
+		assertTrue(branchSteps > 0);
+	}
+	
+	@Test
+	public void testHeadlessCandidates()
+	{
+		train();
+		DEPTree tree = readTrees().get(0);
+		int i, size = tree.size();
+		
+		for (int limit : new int[]{0, 1, 3})
+		{
+			DEPConfiguration config = createConfiguration(1, 0, limit);
+			TestParser parser = new TestParser(config);
+			
+			for (i=1; i<size; i++)
+			{
+				AbstractDEPState state = new DEPStateBranch(new DEPTree(tree), CFlag.EVALUATE, config);
+				parser.vectors = 0;
+				parser.processHeadless(state, state.getNode(i));
+				
+				// candidates on the left include the root; none of them is a descendant of the headless node
+				assertEquals(count(i, limit) + count(size-i-1, limit), parser.vectors);
+			}
+		}
+	}
+	
+	@Test
+	public void testFreeze()
+	{
+		train();
+		DefaultDEPParser parser = createDecoder();
+		parser.freeze();
+		assertTrue(parser.isThreadSafe());
+		
+		try
+		{
+			parser.setFlag(CFlag.TRAIN);
+			fail();
+		}
+		catch (IllegalStateException e) {}
+		
+		try
+		{
+			parser.setModels(models);
+			fail();
+		}
+		catch (IllegalStateException e) {}
+		
+		try
+		{
+			parser.setConfiguration(createConfiguration(1, 0, 0));
+			fail();
+		}
+		catch (IllegalStateException e) {}
+		
+		try
+		{
+			parser.onlineTrain(readTrees());
+			fail();
+		}
+		catch (IllegalStateException e) {}
+		
+		// only decoding components can be frozen
+		try
+		{
+			new TestParser(createConfiguration(1, 0, 0)).freeze();
+			fail();
+		}
+		catch (IllegalStateException e) {}
+	}
+	
+	@Test
+	public void testFrozenThreads() throws Exception
+	{
+		train();
+		final List<DEPTree> trees = readTrees();
+		final DefaultDEPParser parser = createDecoder();
+		final String heads;
+		int i, numThreads = 4;
+		
+		parser.freeze();
+		heads = parseAll(parser, trees);
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		List<Future<String>> futures = new ArrayList<>();
+		
+		for (i=0; i<numThreads*4; i++)
+			futures.add(executor.submit(() -> parseAll(parser, trees)));
+		
+		try
+		{
+			for (Future<String> future : futures)
+				assertEquals(heads, future.get(1, TimeUnit.MINUTES));
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+	
+	@Test
+	public void testDetailedMetrics()
+	{
+		train();
+		List<DEPTree> trees = readTrees();
+		DefaultDEPParser parser = createDecoder();
+		ComponentMetrics metrics = parser.getMetrics();
+		
+		parseAll(parser, trees);
+		assertEquals(0, metrics.getTransitionCount());
+		assertEquals(0, metrics.getClassificationCount());
+		
+		metrics.setDetailed(true);
+		parseAll(parser, trees);
+		assertTrue(metrics.getTransitionCount() > 0);
+		assertTrue(metrics.getClassificationCount() >= metrics.getTransitionCount());
+	}
+	
+	/** @return a decoding parser with branching and a capped headless pass. */
+	private DefaultDEPParser createDecoder()
+	{
+		DefaultDEPParser parser = new DefaultDEPParser(createConfiguration(8, 0, 2), extractors, null, models, false);
+		parser.setFlag(CFlag.DECODE);
+		return parser;
+	}
+	
+	private String parseAll(AbstractDEPParser parser, List<DEPTree> trees)
+	{
+		StringBuilder build = new StringBuilder();
+		
+		for (DEPTree tree : trees)
+		{
+			build.append(parse(parser, tree));
+			build.append('\n');
+		}
+		
+		return build.toString();
+	}
+	
+	private int count(int candidates, int limit)
+	{
+		return (limit > 0) ? Math.min(candidates, limit) : candidates;
+	}
+	
+	/** @return the heads of the parsed copy of the specific tree. */
+	private String parse(AbstractDEPParser parser, DEPTree tree)
+	{
+		DEPTree copy = new DEPTree(tree);
+		StringBuilder build = new StringBuilder();
+		
+		// evaluating parsers take the gold heads as the oracle
+		if (parser.isDecode()) copy.clearDependencies();
+		parser.process(copy);
+		
+		for (int i=1; i<copy.size(); i++)
+		{
+			DEPNode node = copy.get(i);
+			assertTrue(node.hasHead());
+			build.append(node.getHead().getID());
+			build.append(':');
+			build.append(node.getLabel());
+			build.append(' ');
+		}
+		
+		return build.toString();
+	}
+	
+	static private DEPConfiguration createConfiguration(int beamSize, int transitionBudget, int headlessCandidates)
+	{
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		config.setBeamSize(beamSize);
+		config.setTimeBudget(0);
+		config.setTransitionBudget(transitionBudget);
+		config.setHeadlessCandidates(headlessCandidates);
+		return config;
+	}
+	
+	static private List<DEPTree> readTrees()
+	{
+		TSVReader reader = new TSVReader(0, 1, 2, 3, 4, 5, 6, 7);
+		reader.open(IOUtils.createFileInputStream(TREES));
+		List<DEPTree> trees = new ArrayList<>();
+		DEPTree tree;
+		
+		while ((tree = reader.next()) != null)
+			trees.add(tree);
+		
+		reader.close();
+		return trees;
+	}
+	
+	/** Counts the transitions and the feature vectors of an evaluating parser. */
+	static private class TestParser extends DefaultDEPParser
+	{
+		int transitions, vectors;
+		
+		public TestParser(DEPConfiguration configuration)
+		{
+			super(configuration, extractors, null, models, false);
+		}
+		
+		@Override
+		public void process(DEPTree tree)
+		{
+			transitions = 0;
+			super.process(tree);
+		}
+		
+		@Override
+		protected StringFeatureVector createStringFeatureVector(AbstractDEPState state)
+		{
+			vectors++;
+			return super.createStringFeatureVector(state);
+		}
+		
+		@Override
+		protected DEPLabel getAutoLabel(AbstractDEPState state, StringFeatureVector vector)
+		{
+			transitions++;
+			return super.getAutoLabel(state, vector);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.pipeline;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.component.AbstractComponent;
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class NLPPipelineTest
+{
+	@Test
+	public void testRun()
+	{
+		AbstractComponent[] components = {new Appender("a", true), new Appender("b", true), new Appender("c", false)};
+		NLPPipeline pipeline = new NLPPipeline(components, new int[]{1,4,4}, 4);
+		List<String> output = new ArrayList<>();
+		int[] count = {0};
+		
+		pipeline.run(() -> (count[0] < 100) ? new DEPTree(Arrays.asList("w"+count[0]++)) : null, tree -> output.add(tree.get(1).getLemma()));
+		assertEquals(100, output.size());
+		
+		for (int i=0; i<100; i++)
+			assertEquals("w"+i+"abc", output.get(i));
+		
+		assertEquals(4, pipeline.getStages().get(1).getWorkerSize());
+		assertEquals(1, pipeline.getStages().get(2).getWorkerSize());
+		assertEquals(100, pipeline.getStages().get(2).getSentenceCount());
+	}
+	
+	class Appender extends AbstractComponent
+	{
+		private String  tag;
+		private boolean threadSafe;
+		
+		public Appender(String tag, boolean threadSafe)
+		{
+			this.tag = tag;
+			this.threadSafe = threadSafe;
+		}
+		
+		@Override
+		public void process(DEPTree tree)
+		{
+			DEPNode node = tree.get(1);
+			node.setLemma((node.getLemma() == null ? node.getWordForm() : node.getLemma()) + tag);
+		}
+		
+		@Override
+		public boolean isThreadSafe()
+		{
+			return threadSafe;
+		}
+	}
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.pipeline;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class SentenceSchedulerTest
+{
+	@Test
+	public void testRun()
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		SentenceScheduler scheduler = new SentenceScheduler(executor, 4, 16);
+		List<DEPTree> input = new ArrayList<>(), output = new ArrayList<>();
+		int i, j;
+		
+		for (i=0; i<100; i++)
+		{
+			List<String> tokens = new ArrayList<>();
+			for (j=(i*37)%50; j>=0; j--) tokens.add("w"+i);
+			input.add(new DEPTree(tokens));
+		}
+		
+		int[] index = {0};
+		scheduler.run(() -> (index[0]++ < input.size()) ? input.get(index[0]-1) : null, tree -> {for (DEPNode node : tree) node.setLemma("x");}, output::add);
+		executor.shutdown();
+		
+		assertEquals(input.size()+1, index[0]);
+		assertEquals(input, output);
+		
+		for (DEPTree tree : output)
+			assertEquals("x", tree.get(1).getLemma());
+	}
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.trainer;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.classification.instance.StringInstance;
+import edu.emory.clir.clearnlp.classification.model.StringModel;
+import edu.emory.clir.clearnlp.classification.trainer.AbstractTrainer;
+import edu.emory.clir.clearnlp.classification.trainer.LiblinearL2SVM;
+import edu.emory.clir.clearnlp.classification.vector.AbstractWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
+import edu.emory.clir.clearnlp.component.AbstractStatisticalComponent;
+import edu.emory.clir.clearnlp.component.configuration.AbstractConfiguration;
+import edu.emory.clir.clearnlp.component.mode.pos.DefaultPOSTagger;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class AbstractNLPTrainerTest
+{
+	@Test
+	public void testTrainOneVsAll()
+	{
+		StringModel[] models = {createModel(), createModel()};
+		AbstractTrainer[] trainers = new AbstractTrainer[models.length];
+		
+		for (int i=0; i<models.length; i++)
+			trainers[i] = new LiblinearL2SVM(models[i], 0, 0, 1, 0.1, 0.1, 0);
+		
+		// no development file so that no model improves the score
+		AbstractStatisticalComponent<?,?,?,?,?> component = new DefaultPOSTagger(null, null, models, false);
+		new TestTrainer().trainPipeline(component, trainers, Collections.emptyList());
+		
+		for (StringModel model : models)
+			assertTrue(hasWeight(model.getWeightVector()));
+	}
+	
+	private StringModel createModel()
+	{
+		StringModel model = new StringModel(false);
+		StringFeatureVector x;
+		
+		for (int i=0; i<30; i++)
+		{
+			x = new StringFeatureVector();
+			x.addFeature(0, Integer.toString(i%3));
+			x.addFeature(1, Integer.toString(i%5));
+			model.addInstance(new StringInstance("L"+(i%3), x));
+		}
+		
+		return model;
+	}
+	
+	private boolean hasWeight(AbstractWeightVector vector)
+	{
+		for (int i=0; i<vector.size(); i++)
+			if (vector.get(i) != 0) return true;
+		
+		return false;
+	}
+	
+	static private class TestTrainer extends AbstractNLPTrainer
+	{
+		public TestTrainer()
+		{
+			super(null);
+		}
+		
+		@Override
+		protected AbstractConfiguration createConfiguration(InputStream in) {return null;}
+		@Override
+		protected AbstractStatisticalComponent<?,?,?,?,?> createComponentForCollect() {return null;}
+		@Override
+		protected AbstractStatisticalComponent<?,?,?,?,?> createComponentForTrain(Object lexicons) {return null;}
+		@Override
+		protected AbstractStatisticalComponent<?,?,?,?,?> createComponentForBootstrap(Object lexicons, StringModel[] models) {return null;}
+		@Override
+		protected AbstractStatisticalComponent<?,?,?,?,?> createComponentForEvaluate(Object lexicons, StringModel[] models) {return null;}
+		@Override
+		protected AbstractStatisticalComponent<?,?,?,?,?> createComponentForDecode(byte[] models) {return null;}
+	}
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.component.AbstractComponent;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ComponentLoaderTest
+{
+	@Test
+	public void testGetComponents()
+	{
+		ComponentLoader loader = new ComponentLoader(2);
+		CountDownLatch latch = new CountDownLatch(2);
+		
+		// each load waits for the other so that this test terminates only if both are loaded concurrently
+		loader.load(NLPMode.dep, () -> createComponent(latch));
+		loader.load(NLPMode.pos, () -> createComponent(latch));
+		assertNull(loader.getFuture(NLPMode.ner));
+		
+		List<AbstractComponent> list = loader.getComponents();
+		assertEquals(2, list.size());
+		assertTrue(loader.getFuture(NLPMode.dep).isDone());
+		assertEquals(list.get(0), loader.getFuture(NLPMode.dep).join());
+		assertEquals(list.get(1), loader.getFuture(NLPMode.pos).join());
+	}
+	
+	@Test
+	public void testFailure()
+	{
+		ComponentLoader loader = new ComponentLoader(1);
+		loader.load(NLPMode.pos, () -> {throw new IllegalArgumentException();});
+		
+		try
+		{
+			loader.getComponents();
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+	}
+	
+	private AbstractComponent createComponent(CountDownLatch latch)
+	{
+		latch.countDown();
+		
+		try
+		{
+			latch.await();
+		}
+		catch (InterruptedException e) {e.printStackTrace();}
+		
+		return new AbstractComponent()
+		{
+			@Override
+			public void process(DEPTree tree) {}
+		};
+	}
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.component.AbstractComponent;
+import edu.emory.clir.clearnlp.component.utils.ModelRegistry.Eviction;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ModelRegistryTest
+{
+	@Test
+	public void testAcquire() throws Exception
+	{
+		AtomicInteger loads = new AtomicInteger();
+		ModelRegistry registry = new ModelRegistry(Eviction.NONE, 0, path -> open(path, loads));
+		
+		TestComponent c1 = registry.acquire("a", TestComponent::new);
+		TestComponent c2 = registry.acquire("a", TestComponent::new);
+		TestComponent c3 = registry.acquire("b", TestComponent::new);
+		
+		assertEquals(2, loads.get());
+		assertTrue(c1 != c2);
+		assertSame(c1.extractors, c2.extractors);
+		assertEquals("a", c1.extractors);
+		assertEquals("b", c3.extractors);
+		assertTrue(c1.frozen);
+		assertEquals(2, registry.getReferenceCount("a"));
+		
+		registry.release(c1);
+		registry.release(c2);
+		assertEquals(0, registry.getReferenceCount("a"));
+		assertTrue(registry.isCached("a"));
+		
+		registry.acquire("a", TestComponent::new);
+		assertEquals(2, loads.get());
+		
+		registry.clear();
+		assertTrue(registry.isCached("a"));
+		assertTrue(registry.isCached("b"));
+	}
+	
+	@Test
+	public void testLRU() throws Exception
+	{
+		AtomicInteger loads = new AtomicInteger();
+		ModelRegistry registry = new ModelRegistry(Eviction.LRU, 1, path -> open(path, loads));
+		
+		TestComponent a = registry.acquire("a", TestComponent::new);
+		TestComponent b = registry.acquire("b", TestComponent::new);
+		
+		registry.release(a);
+		assertTrue(registry.isCached("a"));
+		registry.release(b);
+		assertFalse(registry.isCached("a"));
+		assertTrue(registry.isCached("b"));
+		
+		registry.acquire("b", TestComponent::new);
+		assertEquals(2, loads.get());
+		registry.acquire("a", TestComponent::new);
+		assertEquals(3, loads.get());
+	}
+	
+	@Test
+	public void testSetEviction() throws Exception
+	{
+		AtomicInteger loads = new AtomicInteger();
+		ModelRegistry registry = new ModelRegistry(Eviction.SOFT, 0, path -> open(path, loads));
+		
+		TestComponent a1 = registry.acquire("a", TestComponent::new);
+		registry.release(registry.acquire("b", TestComponent::new));
+		
+		for (Eviction eviction : new Eviction[]{Eviction.LRU, Eviction.NONE, Eviction.SOFT, Eviction.LRU})
+		{
+			registry.setEviction(eviction, 4);
+			assertSame(a1.extractors, registry.acquire("a", TestComponent::new).extractors);
+		}
+		
+		assertEquals(2, loads.get());
+		
+		registry.setEviction(Eviction.NONE, 0);
+		System.gc();
+		assertTrue(registry.isCached("b"));
+		registry.acquire("b", TestComponent::new);
+		assertEquals(2, loads.get());
+	}
+	
+	private ObjectInputStream open(String path, AtomicInteger loads)
+	{
+		try
+		{
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			ObjectOutputStream out = new ObjectOutputStream(bout);
+			out.writeObject(path);
+			out.writeObject(path);
+			out.writeInt(0);
+			out.close();
+			
+			loads.incrementAndGet();
+			return new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+		}
+		catch (Exception e) {e.printStackTrace();}
+		
+		return null;
+	}
+	
+	static private class TestComponent extends AbstractComponent
+	{
+		private Object extractors;
+		private boolean frozen;
+		
+		public TestComponent(ObjectInputStream in)
+		{
+			try
+			{
+				extractors = in.readObject();
+				in.readObject();
+			}
+			catch (Exception e) {e.printStackTrace();}
+		}
+		
+		@Override
+		public void freeze()
+		{
+			frozen = true;
+		}
+		
+		@Override
+		public void process(DEPTree tree) {}
+	}
+}
@@ -16,6 +16,11 @@
 package edu.emory.clir.clearnlp.tokenization;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.util.Iterator;
+import java.util.List;
 
 import org.junit.Test;
 
@@ -40,6 +45,24 @@ public class EnglishTokenizerTest
 		assertEquals(r, t.tokenize(s).toString());
 	}
 	
+	@Test
+	public void testSentenceIterator()
+	{
+		AbstractTokenizer t = new EnglishTokenizer();
+		String s = "He said \"Hi.\" Then (he left.) Yes!\nMore here. And \"more\nlines.\" end";
+		Iterator<List<String>> it = t.getSentenceIterator(new ByteArrayInputStream(s.getBytes()));
+		
+		assertEquals("[He, said, \", Hi, ., \"]", it.next().toString());
+		assertEquals("[Then, (, he, left, ., )]", it.next().toString());
+		assertEquals("[Yes, !]", it.next().toString());
+		assertEquals("[More, here, .]", it.next().toString());
+		assertEquals("[And, \", more, lines, ., \"]", it.next().toString());
+		assertEquals("[end]", it.next().toString());
+		assertFalse(it.hasNext());
+		
+		assertEquals(6, t.segmentize(new ByteArrayInputStream(s.getBytes())).size());
+	}
+	
 	@Test
 	public void test()
 	{
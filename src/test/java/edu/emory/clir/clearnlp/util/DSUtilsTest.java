@@ -107,5 +107,14 @@ public class DSUtilsTest
 		p = ps.o2;
 		assertEquals(p.i, 2);
 		assertEquals(p.d, 2, 0);
+		
+		int[] top = new int[3];
+		assertEquals(3, DSUtils.top(array, array.length, null, top));
+		assertEquals("[4, 0, 2]", Arrays.toString(top));
+		assertEquals(2, DSUtils.top(array, 4, new int[]{1,3}, top));
+		assertEquals(1, top[0]);
+		assertEquals(3, top[1]);
+		assertEquals(4, DSUtils.maxIndex(array, 5));
+		assertEquals(0, DSUtils.maxIndex(array, 4));
 	}
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.writer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.component.utils.NLPMode;
+import edu.emory.clir.clearnlp.dependency.DEPFeat;
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.reader.TSVReader;
+import edu.emory.clir.clearnlp.util.DSUtils;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class AbstractWriterTest
+{
+	@Test
+	public void testTSVWriter() throws Exception
+	{
+		TSVReader reader = new TSVReader(0, 1, 2, 3, 4, 5, 6, 7);
+		reader.open(new FileInputStream("src/test/resources/dependency/dependency.cnlp"));
+		DEPTree tree = reader.next();
+		reader.close();
+		
+		assertEquals(tree.toString(DEPNode::toStringPOS)  +"\n\n", toString(tree, NLPMode.pos));
+		assertEquals(tree.toString(DEPNode::toStringMorph)+"\n\n", toString(tree, NLPMode.morph));
+		assertEquals(tree.toString(DEPNode::toStringDEP)  +"\n\n", toString(tree, NLPMode.dep));
+		assertEquals(tree.toString(DEPNode::toStringSRL)  +"\n\n", toString(tree, NLPMode.srl));
+		assertEquals(tree.toString()                      +"\n\n", toString(tree, NLPMode.ner));
+	}
+	
+	@Test
+	public void testJSONWriter()
+	{
+		DEPTree tree = new DEPTree(DSUtils.toArrayList(new DEPNode(1, "\"a\\\t"), new DEPNode(2, "é中😀")));
+		tree.get(1).setHead(tree.get(2), "dep");
+		tree.get(2).setHead(tree.get(0), "root");
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AbstractWriter writer = new JSONWriter(out);
+		writer.write(tree);
+		writer.close();
+		
+		String expected = "[{\"id\":1,\"form\":\"\\\"a\\\\\\t\",\"head\":2,\"deprel\":\"dep\"},{\"id\":2,\"form\":\"é中😀\",\"head\":0,\"deprel\":\"root\"}]\n";
+		assertEquals(expected, new String(out.toByteArray(), StandardCharsets.UTF_8));
+	}
+	
+	@Test
+	public void testBinaryWriter()
+	{
+		DEPTree tree = new DEPTree(DSUtils.toArrayList(new DEPNode(1, "A", null, "DT", new DEPFeat("k=v"))));
+		tree.get(1).setHead(tree.get(0), "root");
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AbstractWriter writer = new BinaryWriter(out);
+		writer.write(tree);
+		writer.close();
+		
+		byte[] expected = {1, 2,'A', 0, 3,'D','T', 1, 2,'k', 2,'v', 1, 5,'r','o','o','t', 0, 0, 0};
+		assertArrayEquals(expected, out.toByteArray());
+	}
+	
+	@Test
+	public void testIOException()
+	{
+		DEPTree tree = new DEPTree(DSUtils.toArrayList(new DEPNode(1, "A")));
+		FailingOutputStream out = new FailingOutputStream();
+		AbstractWriter writer = new TSVWriter(out, NLPMode.pos);
+		writer.write(tree);
+		
+		try
+		{
+			writer.flush();
+			fail();
+		}
+		catch (UncheckedIOException e) {}
+		
+		// the buffered bytes are kept and written once the stream recovers
+		out.fail = false;
+		writer.close();
+		assertEquals(toString(tree, NLPMode.pos), new String(out.bytes.toByteArray(), StandardCharsets.UTF_8));
+		assertTrue(out.closed);
+	}
+	
+	@Test
+	public void testIOExceptionOnFullBuffer()
+	{
+		FailingOutputStream out = new FailingOutputStream();
+		AbstractWriter writer = new TSVWriter(out, NLPMode.pos);
+		DEPTree tree = new DEPTree(DSUtils.toArrayList(new DEPNode(1, "A")));
+		
+		try
+		{
+			// the buffer gets full before 1 << 16 trees are written
+			for (int i=0; i<1<<16; i++) writer.write(tree);
+			fail();
+		}
+		catch (UncheckedIOException e) {}
+		
+		try
+		{
+			writer.close();
+			fail();
+		}
+		catch (UncheckedIOException e) {}
+		
+		assertTrue(out.closed);
+	}
+	
+	/** Fails to write until {@link #fail} is set to {@code false}. */
+	static private class FailingOutputStream extends OutputStream
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		boolean fail = true, closed;
+		
+		@Override
+		public void write(int b) throws IOException
+		{
+			write(new byte[]{(byte)b}, 0, 1);
+		}
+		
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			if (fail) throw new IOException("fail");
+			bytes.write(b, off, len);
+		}
+		
+		@Override
+		public void close()
+		{
+			closed = true;
+		}
+	}
+	
+	private String toString(DEPTree tree, NLPMode mode)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AbstractWriter writer = new TSVWriter(out, mode);
+		writer.write(tree);
+		writer.close();
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+}